@@ -15,6 +15,7 @@ import org.elasticsearch.action.count.CountRequestBuilder;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -24,6 +25,7 @@ import org.elasticsearch.mapping.MappingBuilder;
 import org.elasticsearch.mapping.QueryHelper;
 import org.elasticsearch.mapping.QueryHelper.SearchQueryHelperBuilder;
 import org.elasticsearch.mapping.SourceFetchContext;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.facet.Facet;
 import org.elasticsearch.search.facet.Facets;
 import org.elasticsearch.search.facet.terms.TermsFacet;
@@ -47,6 +49,7 @@ import com.google.common.collect.Lists;
  */
 public class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearchDAO {
     private static final String SCORE_SCRIPT = "_score * ((doc.containsKey('alienScore') && !doc['alienScore'].empty) ? doc['alienScore'].value : 1)";
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
     @Resource
     private ElasticSearchClient esClient;
     @Resource
@@ -176,6 +179,36 @@ public class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearch
         return toGetMultipleDataResult(Object.class, searchResponse, from);
     }
 
+    @Override
+    @SneakyThrows({ IOException.class })
+    public void scroll(String[] searchIndices, Class<?>[] classes, FilterBuilder customFilter, int batchSize, IScrollCallback callback) {
+        String[] types = new String[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            types[i] = MappingBuilder.indexTypeFromClass(classes[i]);
+        }
+        // scan search type returns no hits on the initial request but only on the scroll requests.
+        SearchResponse searchResponse = getClient().prepareSearch(searchIndices).setTypes(types).setSearchType(SearchType.SCAN).setScroll(SCROLL_KEEP_ALIVE)
+                .setQuery(QueryBuilders.filteredQuery(QueryBuilders.matchAllQuery(), customFilter)).setSize(batchSize).execute().actionGet();
+        String scrollId = searchResponse.getScrollId();
+        try {
+            while (true) {
+                searchResponse = getClient().prepareSearchScroll(scrollId).setScroll(SCROLL_KEEP_ALIVE).execute().actionGet();
+                scrollId = searchResponse.getScrollId();
+                SearchHit[] hits = searchResponse.getHits().getHits();
+                if (hits.length == 0) {
+                    break;
+                }
+                Object[] data = new Object[hits.length];
+                for (int i = 0; i < hits.length; i++) {
+                    data[i] = getJsonMapper().readValue(hits[i].getSourceAsString(), getClassFromType(hits[i].getType()));
+                }
+                callback.onBatch(data);
+            }
+        } finally {
+            getClient().prepareClearScroll().addScrollId(scrollId).execute().actionGet();
+        }
+    }
+
     @Override
     public <T> FacetedSearchResult facetedSearch(Class<T> clazz, String searchText, Map<String, String[]> filters, int maxElements) {
         return facetedSearch(clazz, searchText, filters, null, 0, maxElements);
@@ -241,6 +274,20 @@ public class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearch
         return toGetMultipleDataResult(clazz, searchResponse, 0);
     }
 
+    @Override
+    public <T> List<GetMultipleDataResult<T>> multiSearch(Class<T> clazz, List<Map<String, String[]>> filtersList,
+            Map<String, FilterValuesStrategy> filterStrategies, int maxElements) {
+        List<GetMultipleDataResult<T>> results = Lists.newArrayList();
+        if (filtersList == null) {
+            return results;
+        }
+        // filters are built by the query helper so that filters on nested or range fields behave as in the other searches
+        for (Map<String, String[]> filters : filtersList) {
+            results.add(search(clazz, null, filters, filterStrategies, maxElements));
+        }
+        return results;
+    }
+
     /**
      * Convert a SearchResponse into a {@link GetMultipleDataResult} including json deserialization.
      *
@@ -269,6 +269,18 @@ public interface IGenericSearchDAO extends IGenericIdDAO {
     <T> FacetedSearchResult facetedSearch(Class<T> clazz, String searchText, Map<String, String[]> filters, FilterBuilder customFilter, String fetchContext,
             int from, int maxElements, String fieldSort, boolean sortOrder);
 
+    /**
+     * Iterate over all the objects matching a filter using an elastic search scroll. The iteration works on a snapshot of the indices taken when the
+     * scroll starts, so objects updated by the callback are neither skipped nor returned twice.
+     *
+     * @param searchIndices The indices to search for.
+     * @param classes The classes of the objects to iterate over.
+     * @param customFilter The filter that objects must match.
+     * @param batchSize The maximum number of objects to fetch per shard for every batch.
+     * @param callback The callback that processes every batch of objects.
+     */
+    void scroll(String[] searchIndices, Class<?>[] classes, FilterBuilder customFilter, int batchSize, IScrollCallback callback);
+
     /**
      * Perform a suggestion search on a specific field.
      *
@@ -335,6 +347,18 @@ public interface IGenericSearchDAO extends IGenericIdDAO {
     <T> GetMultipleDataResult<T> search(Class<T> clazz, String searchText, Map<String, String[]> filters, Map<String, FilterValuesStrategy> filterStrategies,
             int maxElements);
 
+    /**
+     * Run several filter based searches on the same type of data, filters are handled as in {@link #search(Class, String, Map, Map, int)}.
+     *
+     * @param clazz The type of data to query.
+     * @param filtersList The filters of each search, a null element matches all data.
+     * @param filterStrategies The {@link FilterValuesStrategy} to apply to filter keys with multiple values (OR is used for keys not in the map).
+     * @param maxElements The maximum number of elements to return for each search.
+     * @return A {@link GetMultipleDataResult} for every search, in the order of the given filters. Empty instance when no data found for a search.
+     */
+    <T> List<GetMultipleDataResult<T>> multiSearch(Class<T> clazz, List<Map<String, String[]>> filtersList, Map<String, FilterValuesStrategy> filterStrategies,
+            int maxElements);
+
     /**
      * Find instances by id, only retrieve specific fields of the object.
      *
@@ -0,0 +1,13 @@
+package alien4cloud.dao;
+
+/**
+ * Callback to process the batches of objects returned by a scroll over elastic search.
+ */
+public interface IScrollCallback {
+    /**
+     * Process a batch of objects.
+     *
+     * @param data The de-serialized objects of the batch.
+     */
+    void onBatch(Object[] data);
+}
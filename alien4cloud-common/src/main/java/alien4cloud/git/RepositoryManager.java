@@ -48,7 +48,6 @@ public class RepositoryManager {
     private Path pathToReach;
     @Value("${directories.alien}/${directories.upload_temp}")
     private String alienTempUpload;
-    public static String _SUFFIXE = "_ZIPPED";
     public static String _ALL = "_ALL";
     public static String _DEFAULTSEPARATOR = "/";
     public static String _TOSCA_METADATA = "TOSCA-Metadata";
@@ -94,10 +93,10 @@ public class RepositoryManager {
             if (isCompleteImport()) {
                 cloneEntireRepository(repositoryUrl, username, password, pathToReach.resolve(folder + _ALL));
                 folderToReach = pathToReach.resolve(folder + _ALL).toString();
-                zipRepositoryToRoot(this.pathToReach.resolve(folder + _ALL));
+                collectArchivesFromRoot(this.pathToReach.resolve(folder + _ALL));
             } else {
                 cloneEntireRepository(repositoryUrl, username, password, pathToReach.resolve(folder + locations.size()));
-                zipRepository(pathToReach.resolve(folder + locations.size()), this.getLocations());
+                collectArchives(pathToReach.resolve(folder + locations.size()), this.getLocations());
                 folderToReach = pathToReach.resolve(folder + locations.size()).toString();
             }
 
@@ -183,34 +182,23 @@ public class RepositoryManager {
     }
 
     /**
-     * Zip a folder and its CSARs with importLocations to fetch
+     * Register the CSARs folders to import from a repository with importLocations to fetch
      * 
-     * If the repository is already and archive the folder is zipped directly
-     * Else, only the sub-repos containing the Yaml file are zipped.
+     * If the repository is already and archive the folder is imported directly
+     * Else, only the sub-repos containing the Yaml file are imported. Folders are imported as expanded archives so there is no need to zip them.
      * 
      * @param pathToFetch The path where the parent folder is located
-     * @param locations The sub-folders to zip
+     * @param locations The sub-folders to import
      */
-    private void zipRepository(Path pathToFetch, Map<String, String> locations) {
+    private void collectArchives(Path pathToFetch, Map<String, String> locations) {
         for (Entry<String, String> entry : locations.entrySet()) {
             File file = pathToFetch.resolve(entry.getKey()).toFile();
             if (file.exists()) {
-                try {
-                    File[] listFiles = file.listFiles();
-                    if (!isArchive(listFiles)) {
-                        for (int i = 0; i < listFiles.length; i++) {
-                            if (listFiles[i].isDirectory() && !listFiles[i].getName().endsWith(".git")) {
-                                FileUtil.zip(file.toPath().resolve(listFiles[i].getName()), pathToFetch.resolve(listFiles[i].getName() + _SUFFIXE));
-                                this.csarsToImport.add(pathToFetch.resolve(listFiles[i].getName() + _SUFFIXE));
-                            }
-                        }
-                    } else {
-                        Path locatePath = file.toPath();
-                        FileUtil.zip(locatePath, pathToFetch.resolve(entry.getKey() + _SUFFIXE));
-                        this.csarsToImport.add(pathToFetch.resolve(entry.getKey() + _SUFFIXE));
-                    }
-                } catch (IOException e) {
-                    log.error("Error while zipping target directory ", e);
+                File[] listFiles = file.listFiles();
+                if (!isArchive(listFiles)) {
+                    collectSubArchives(file.toPath(), listFiles);
+                } else {
+                    this.csarsToImport.add(file.toPath());
                 }
             } else {
                 throw new NotFoundException(file.getName());
@@ -219,30 +207,27 @@ public class RepositoryManager {
     }
 
     /**
-     * Zip a folder and its CSARs without any importLocations
+     * Register the CSARs folders to import from a repository without any importLocations
      * 
-     * If the repository is already and archive the folder is zipped directly
-     * Else, only the sub-repos containing the Yaml file are zipped.
+     * If the repository is already and archive the folder is imported directly
+     * Else, only the sub-repos containing the Yaml file are imported.
      * 
      * @param pathToFetch The path where the parent folder is located
      */
-    private void zipRepositoryToRoot(Path pathToFetch) {
-        File file = pathToFetch.toFile();
-        try {
-            File[] listFiles = file.listFiles();
-            if (!isArchive(listFiles)) {
-                for (int i = 0; i < listFiles.length; i++) {
-                    if (listFiles[i].isDirectory() && !listFiles[i].getName().endsWith(".git")) {
-                        FileUtil.zip(file.toPath().resolve(listFiles[i].getName()), pathToFetch.resolve(listFiles[i].getName() + _SUFFIXE));
-                        this.csarsToImport.add(pathToFetch.resolve(listFiles[i].getName() + _SUFFIXE));
-                    }
-                }
-            } else {
-                FileUtil.zip(pathToFetch, pathToFetch.resolve("../" + splitRepositoryName(file.getName() + _SUFFIXE)));
-                this.csarsToImport.add(pathToFetch.resolve("../" + file.getName() + _SUFFIXE));
+    private void collectArchivesFromRoot(Path pathToFetch) {
+        File[] listFiles = pathToFetch.toFile().listFiles();
+        if (!isArchive(listFiles)) {
+            collectSubArchives(pathToFetch, listFiles);
+        } else {
+            this.csarsToImport.add(pathToFetch);
+        }
+    }
+
+    private void collectSubArchives(Path parentPath, File[] listFiles) {
+        for (int i = 0; i < listFiles.length; i++) {
+            if (listFiles[i].isDirectory() && !listFiles[i].getName().endsWith(".git")) {
+                this.csarsToImport.add(parentPath.resolve(listFiles[i].getName()));
             }
-        } catch (IOException e) {
-            log.error("Error while zipping target directory ", e);
         }
     }
 
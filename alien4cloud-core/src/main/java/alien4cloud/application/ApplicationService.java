@@ -16,6 +16,7 @@ import org.elasticsearch.mapping.QueryHelper;
 import org.elasticsearch.mapping.QueryHelper.SearchQueryHelperBuilder;
 import org.springframework.stereotype.Service;
 
+import alien4cloud.common.TagSuggestionService;
 import alien4cloud.model.common.Tag;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.GetMultipleDataResult;
@@ -48,6 +49,8 @@ public class ApplicationService {
     private ApplicationEnvironmentService applicationEnvironmentService;
     @Resource
     private ApplicationVersionService applicationVersionService;
+    @Resource
+    private TagSuggestionService tagSuggestionService;
 
     /**
      * Create a new application and return it's id
@@ -159,6 +162,7 @@ public class ApplicationService {
         applicationEnvironmentService.deleteByApplication(applicationId);
         // delete the application
         alienDAO.delete(Application.class, applicationId);
+        tagSuggestionService.invalidate();
         return true;
     }
 
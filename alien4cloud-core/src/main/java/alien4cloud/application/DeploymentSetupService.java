@@ -443,7 +443,7 @@ public class DeploymentSetupService {
     public GetMultipleDataResult<DeploymentSetup> getByVersionId(String versionId) {
         Map<String, String[]> filters = Maps.newHashMap();
         filters.put("versionId", new String[] { versionId });
-        return alienDAO.search(DeploymentSetup.class, null, filters, 0, 20);
+        return alienDAO.search(DeploymentSetup.class, null, filters, 0, Integer.MAX_VALUE);
     }
 
     /**
@@ -500,15 +500,22 @@ public class DeploymentSetupService {
      * @return all deployment setup that is linked to this topology
      */
     public DeploymentSetup[] getByTopologyId(String topologyId) {
-        List<DeploymentSetup> deploymentSetups = Lists.newArrayList();
         ApplicationVersion version = applicationVersionService.getByTopologyId(topologyId);
-        if (version != null) {
-            ApplicationEnvironment[] environments = applicationEnvironmentService.getByVersionId(version.getId());
-            if (environments != null && environments.length > 0) {
-                for (ApplicationEnvironment environment : environments) {
-                    deploymentSetups.add(get(version, environment));
-                }
-            }
+        if (version == null) {
+            return new DeploymentSetup[0];
+        }
+        ApplicationEnvironment[] environments = applicationEnvironmentService.getByVersionId(version.getId());
+        if (environments == null || environments.length == 0) {
+            return new DeploymentSetup[0];
+        }
+        // fetch the setups of every environment in a single multi-get, environments without setup are skipped
+        String[] deploymentSetupIds = new String[environments.length];
+        for (int i = 0; i < environments.length; i++) {
+            deploymentSetupIds[i] = generateId(version.getId(), environments[i].getId());
+        }
+        List<DeploymentSetup> deploymentSetups = alienDAO.findByIds(DeploymentSetup.class, deploymentSetupIds);
+        if (deploymentSetups == null) {
+            return new DeploymentSetup[0];
         }
         return deploymentSetups.toArray(new DeploymentSetup[deploymentSetups.size()]);
     }
@@ -3,6 +3,7 @@ package alien4cloud.application;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -13,21 +14,19 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.stereotype.Service;
 
-import alien4cloud.component.ICSARRepositorySearchService;
-import alien4cloud.exception.AlreadyExistException;
+import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.exception.CyclicReferenceException;
+import alien4cloud.exception.NotFoundException;
 import alien4cloud.model.components.AbstractPropertyValue;
 import alien4cloud.model.components.FunctionPropertyValue;
-import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.model.topology.NodeGroup;
 import alien4cloud.model.topology.NodeTemplate;
 import alien4cloud.model.topology.RelationshipTemplate;
 import alien4cloud.model.topology.SubstitutionTarget;
 import alien4cloud.model.topology.Topology;
-import alien4cloud.topology.TopologyServiceCore;
 import alien4cloud.tosca.normative.ToscaFunctionConstants;
-import alien4cloud.utils.MapUtil;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -35,15 +34,15 @@ import com.google.common.collect.Sets;
 @Service
 public class TopologyCompositionService {
 
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO alienDAO;
+
     @Resource
-    private ICSARRepositorySearchService csarRepoSearchService;
-    
-    @Resource
-    private TopologyServiceCore topologyServiceCore;
+    private TopologySubstitutionGraph topologySubstitutionGraph;
 
     public void processTopologyComposition(Topology topology) {
         Deque<CompositionCouple> stack = new ArrayDeque<CompositionCouple>();
-        recursivelyBuildSubstitutionStack(topology, stack, "");
+        buildSubstitutionStack(topology, stack);
         // now this stack contains all the embedded topology templates
         if (!stack.isEmpty()) {
             // iterate over the stack in descending order (manage the deepest topologies at a first time).
@@ -98,17 +97,11 @@ public class TopologyCompositionService {
             }
         }
         // all relations that target the proxy must be redirected to the corresponding child node
-        for (NodeTemplate otherNodes : compositionCouple.parent.getNodeTemplates().values()) {
-            if (otherNodes.getRelationships() != null) {
-                for (RelationshipTemplate relationshipTemplate : otherNodes.getRelationships().values()) {
-                    if (relationshipTemplate.getTarget().equals(compositionCouple.nodeName)) {
-                        SubstitutionTarget st = compositionCouple.child.getSubstitutionMapping().getCapabilities()
-                                .get(relationshipTemplate.getTargetedCapabilityName());
-                        relationshipTemplate.setTarget(st.getNodeTemplateName());
-                        relationshipTemplate.setTargetedCapabilityName(st.getTargetId());
-                    }
-                }
-            }
+        for (RelationshipTemplate relationshipTemplate : compositionCouple.parent.getRelationshipIndex().getIncomingRelationshipTemplates(
+                compositionCouple.nodeName)) {
+            SubstitutionTarget st = compositionCouple.child.getSubstitutionMapping().getCapabilities().get(relationshipTemplate.getTargetedCapabilityName());
+            relationshipTemplate.setTarget(st.getNodeTemplateName());
+            relationshipTemplate.setTargetedCapabilityName(st.getTargetId());
         }
         if (compositionCouple.parent.getOutputAttributes() != null) {
             Set<String> outputAttributes = compositionCouple.parent.getOutputAttributes().remove(compositionCouple.nodeName);
@@ -142,6 +135,8 @@ public class TopologyCompositionService {
         }
         // merge each child nodes into the parent
         compositionCouple.parent.getNodeTemplates().putAll(compositionCouple.child.getNodeTemplates());
+        // relationships have been moved and redirected, the index will be rebuilt from the merged nodes
+        compositionCouple.parent.invalidateRelationshipIndex();
     }
 
     /**
@@ -227,114 +222,164 @@ public class TopologyCompositionService {
     }
 
     /**
-     * Deeply explore this topology to detect if some type must be substituted by the corresponding topology template content and feed the {@link Deque}. <br>
+     * Explore this topology and, one depth at a time, the topology templates it embeds to detect if some type must be substituted by the corresponding
+     * topology template content and feed the {@link Deque}. The topology templates of a depth are fetched in a single request. <br>
      * BTW, rename the nodes by prefixing all the node names.
      */
-    private void recursivelyBuildSubstitutionStack(Topology topology, Deque<CompositionCouple> stack, String prefix) {
+    private void buildSubstitutionStack(Topology topology, Deque<CompositionCouple> stack) {
         if (topology == null || topology.getNodeTemplates() == null || topology.getNodeTemplates().isEmpty()) {
             return;
         }
-        for (Entry<String, NodeTemplate> nodeEntry : topology.getNodeTemplates().entrySet()) {
-            String nodeName = nodeEntry.getKey();
-            String type = nodeEntry.getValue().getType();
-            IndexedNodeType nodeType = csarRepoSearchService.getElementInDependencies(IndexedNodeType.class, type, topology.getDependencies());
-            if (nodeType.getSubstitutionTopologyId() != null) {
-                // this node type is a proxy for a topology template
-                Topology child = topologyServiceCore.getMandatoryTopology(nodeType.getSubstitutionTopologyId());
-                CompositionCouple couple = new CompositionCouple(topology, child, nodeName, nodeName + "_");
-                renameNodes(couple);
+        List<SubstitutedNode> substitutedNodes = getSubstitutedNodes(topology);
+        while (!substitutedNodes.isEmpty()) {
+            Map<String, Deque<Topology>> children = fetchTopologies(substitutedNodes);
+            List<SubstitutedNode> nextSubstitutedNodes = Lists.newArrayList();
+            for (SubstitutedNode substitutedNode : substitutedNodes) {
+                Topology child = children.get(substitutedNode.topologyId).poll();
+                if (child == null) {
+                    throw new NotFoundException("Topology [" + substitutedNode.topologyId + "] cannot be found");
+                }
+                if (child.getNodeTemplates() == null || child.getNodeTemplates().isEmpty()) {
+                    stack.offer(new CompositionCouple(substitutedNode.parent, child, substitutedNode.nodeName, substitutedNode.nodeName + "_"));
+                    continue;
+                }
+                // look for the substituted nodes before renaming so the graph recognizes the template
+                Map<String, String> childSubstitutedNodes = topologySubstitutionGraph.getSubstitutedNodes(child);
+                CompositionCouple couple = new CompositionCouple(substitutedNode.parent, child, substitutedNode.nodeName, substitutedNode.nodeName + "_");
+                Map<String, String> newNames = renameNodes(couple);
                 stack.offer(couple);
-                recursivelyBuildSubstitutionStack(child, stack, nodeName + "_");
+                for (Entry<String, String> childSubstitutedNode : childSubstitutedNodes.entrySet()) {
+                    nextSubstitutedNodes.add(new SubstitutedNode(child, newNames.get(childSubstitutedNode.getKey()), childSubstitutedNode.getValue()));
+                }
             }
+            substitutedNodes = nextSubstitutedNodes;
         }
     }
-    
-    private void renameNodes(CompositionCouple compositionCouple) {
-        Topology topology = compositionCouple.child;
-        String[] nodeNames = new String[topology.getNodeTemplates().size()];
-        nodeNames = topology.getNodeTemplates().keySet().toArray(nodeNames);
-        for (String nodeName : nodeNames) {
-            String newName = ensureNodeNameIsUnique(topology.getNodeTemplates().keySet(), compositionCouple.nodeNamePrefix + nodeName, 0);
-            renameNodeTemplate(topology, nodeName, newName);
+
+    private List<SubstitutedNode> getSubstitutedNodes(Topology topology) {
+        List<SubstitutedNode> substitutedNodes = Lists.newArrayList();
+        for (Entry<String, String> substitutedNode : topologySubstitutionGraph.getSubstitutedNodes(topology).entrySet()) {
+            substitutedNodes.add(new SubstitutedNode(topology, substitutedNode.getKey(), substitutedNode.getValue()));
         }
+        return substitutedNodes;
     }
 
-    private String ensureNodeNameIsUnique(Set<String> keys, String prefix, int suffixeNumber) {
-        String name = (suffixeNumber > 0) ? prefix + suffixeNumber : prefix;
-        if (keys.contains(name)) {
-            return ensureNodeNameIsUnique(keys, prefix, ++suffixeNumber);
-        } else {
-            return name;
+    /**
+     * Fetch the topologies that substitute the given nodes in a single request. A topology substituted by several nodes is fetched once for each node as
+     * each node gets its own copy of the topology.
+     */
+    private Map<String, Deque<Topology>> fetchTopologies(List<SubstitutedNode> substitutedNodes) {
+        String[] topologyIds = new String[substitutedNodes.size()];
+        Map<String, Deque<Topology>> topologies = Maps.newHashMap();
+        for (int i = 0; i < topologyIds.length; i++) {
+            topologyIds[i] = substitutedNodes.get(i).topologyId;
+            topologies.put(topologyIds[i], new ArrayDeque<Topology>());
         }
+        List<Topology> fetched = alienDAO.findByIds(Topology.class, topologyIds);
+        if (fetched != null) {
+            for (Topology topology : fetched) {
+                topologies.get(topology.getId()).offer(topology);
+            }
+        }
+        return topologies;
     }
 
-    private void renameNodeTemplate(Topology topology, String oldName, String newName) {
-        // if the prefixed name is already used by another node ?
-        // quite improbable but ...
-        if (topology.getNodeTemplates().containsKey(newName)) {
-            throw new AlreadyExistException(String.format("A node with name '%s' already exists in this topology", newName));
+    /**
+     * Prefix all the nodes of the child topology. All the new names are computed first and every reference to the nodes is then rewritten in a single pass.
+     */
+    private Map<String, String> renameNodes(CompositionCouple compositionCouple) {
+        Topology topology = compositionCouple.child;
+        Map<String, String> newNames = Maps.newHashMap();
+        Set<String> usedNames = Sets.newHashSet();
+        for (String nodeName : topology.getNodeTemplates().keySet()) {
+            String newName = ensureNodeNameIsUnique(usedNames, compositionCouple.nodeNamePrefix + nodeName);
+            usedNames.add(newName);
+            newNames.put(nodeName, newName);
         }
-        NodeTemplate nodeTemplate = topology.getNodeTemplates().remove(oldName);
-        // manage relationships that target this node
-        for (NodeTemplate otherNodes : topology.getNodeTemplates().values()) {
-            if (otherNodes.getRelationships() == null || otherNodes.getRelationships().isEmpty()) {
-                continue;
-            }
-            for (RelationshipTemplate relationshipTemplate : otherNodes.getRelationships().values()) {
-                if (relationshipTemplate.getTarget().equals(oldName)) {
-                    relationshipTemplate.setTarget(newName);
+        renameNodeTemplates(topology, newNames);
+        return newNames;
+    }
+
+    private String ensureNodeNameIsUnique(Set<String> keys, String prefix) {
+        String name = prefix;
+        int suffixeNumber = 0;
+        while (keys.contains(name)) {
+            suffixeNumber++;
+            name = prefix + suffixeNumber;
+        }
+        return name;
+    }
+
+    private void renameNodeTemplates(Topology topology, Map<String, String> newNames) {
+        Map<String, NodeTemplate> nodeTemplates = Maps.newHashMap();
+        for (Entry<String, NodeTemplate> nodeTemplateEntry : topology.getNodeTemplates().entrySet()) {
+            NodeTemplate nodeTemplate = nodeTemplateEntry.getValue();
+            // manage relationships that target the renamed nodes
+            if (nodeTemplate.getRelationships() != null) {
+                for (RelationshipTemplate relationshipTemplate : nodeTemplate.getRelationships().values()) {
+                    relationshipTemplate.setTarget(rename(newNames, relationshipTemplate.getTarget()));
                 }
             }
+            nodeTemplates.put(newNames.get(nodeTemplateEntry.getKey()), nodeTemplate);
         }
+        // setting the node templates also resets the relationship index
+        topology.setNodeTemplates(nodeTemplates);
         // all output stuffs
-        MapUtil.replaceKey(topology.getOutputProperties(), oldName, newName);
-        MapUtil.replaceKey(topology.getOutputCapabilityProperties(), oldName, newName);
-        MapUtil.replaceKey(topology.getOutputAttributes(), oldName, newName);
+        renameKeys(topology.getOutputProperties(), newNames);
+        renameKeys(topology.getOutputCapabilityProperties(), newNames);
+        renameKeys(topology.getOutputAttributes(), newNames);
         // group members must be updated
         if (topology.getGroups() != null) {
             for (NodeGroup nodeGroup : topology.getGroups().values()) {
                 Set<String> members = nodeGroup.getMembers();
-                if (members != null && members.remove(oldName)) {
-                    members.add(newName);
+                if (members != null && !members.isEmpty()) {
+                    Set<String> renamedMembers = Sets.newHashSet();
+                    for (String member : members) {
+                        renamedMembers.add(rename(newNames, member));
+                    }
+                    members.clear();
+                    members.addAll(renamedMembers);
                 }
             }
         }
         // substitutions
         if (topology.getSubstitutionMapping() != null) {
-            renameNodeTemplateInSubstitutionTargets(topology.getSubstitutionMapping().getCapabilities(), oldName, newName);
-            renameNodeTemplateInSubstitutionTargets(topology.getSubstitutionMapping().getRequirements(), oldName, newName);
+            renameNodeTemplatesInSubstitutionTargets(topology.getSubstitutionMapping().getCapabilities(), newNames);
+            renameNodeTemplatesInSubstitutionTargets(topology.getSubstitutionMapping().getRequirements(), newNames);
+        }
+    }
+
+    private String rename(Map<String, String> newNames, String name) {
+        String newName = newNames.get(name);
+        return newName == null ? name : newName;
+    }
+
+    private <V> void renameKeys(Map<String, V> map, Map<String, String> newNames) {
+        if (map == null || map.isEmpty()) {
+            return;
+        }
+        Map<String, V> renamed = Maps.newHashMap();
+        for (Entry<String, V> entry : map.entrySet()) {
+            renamed.put(rename(newNames, entry.getKey()), entry.getValue());
         }
-        // finally the node itself
-        topology.getNodeTemplates().put(newName, nodeTemplate);
+        map.clear();
+        map.putAll(renamed);
     }
 
-    private void renameNodeTemplateInSubstitutionTargets(Map<String, SubstitutionTarget> substitutionTargets, String oldName, String newName) {
+    private void renameNodeTemplatesInSubstitutionTargets(Map<String, SubstitutionTarget> substitutionTargets, Map<String, String> newNames) {
         if (substitutionTargets != null) {
             for (SubstitutionTarget s : substitutionTargets.values()) {
-                if (s.getNodeTemplateName().equals(oldName)) {
-                    s.setNodeTemplateName(newName);
-                }
+                s.setNodeTemplateName(rename(newNames, s.getNodeTemplateName()));
             }
         }
     }
 
     /**
-     * Deeply explore composition in order to detect cyclic reference: if a descendant references the mainTopologyId.
+     * Explore the substitution graph in order to detect cyclic reference: if a descendant references the mainTopologyId.
      */
     public void recursivelyDetectTopologyCompositionCyclicReference(String mainTopologyId, String substitutionTopologyId) {
-        Topology child = topologyServiceCore.getMandatoryTopology(substitutionTopologyId);
-        if (child == null || child.getNodeTemplates() == null || child.getNodeTemplates().isEmpty()) {
-            return;
-        }
-        for (Entry<String, NodeTemplate> nodeEntry : child.getNodeTemplates().entrySet()) {
-            String type = nodeEntry.getValue().getType();
-            IndexedNodeType nodeType = csarRepoSearchService.getElementInDependencies(IndexedNodeType.class, type, child.getDependencies());
-            if (nodeType.getSubstitutionTopologyId() != null) {
-                if (nodeType.getSubstitutionTopologyId().equals(mainTopologyId)) {
-                    throw new CyclicReferenceException("Cyclic reference : a topology template can not reference itself (even indirectly)");
-                }
-                recursivelyDetectTopologyCompositionCyclicReference(mainTopologyId, nodeType.getSubstitutionTopologyId());
-            }
+        if (topologySubstitutionGraph.hasDescendant(substitutionTopologyId, mainTopologyId)) {
+            throw new CyclicReferenceException("Cyclic reference : a topology template can not reference itself (even indirectly)");
         }
     }
 
@@ -360,4 +405,21 @@ public class TopologyCompositionService {
         }
     }
 
+    private static class SubstitutedNode {
+        /** The topology that contains the node. */
+        private final Topology parent;
+
+        /** The name of the node. */
+        private final String nodeName;
+
+        /** The id of the topology template that substitutes the node type. */
+        private final String topologyId;
+
+        public SubstitutedNode(Topology parent, String nodeName, String topologyId) {
+            this.parent = parent;
+            this.nodeName = nodeName;
+            this.topologyId = topologyId;
+        }
+    }
+
 }
@@ -0,0 +1,161 @@
+package alien4cloud.application;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import lombok.AllArgsConstructor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import alien4cloud.component.ICSARRepositorySearchService;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.Topology;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Graph of topology substitutions: for every topology, the nodes whose type is substituted by a topology template and the id of this template.
+ *
+ * Resolving the types of the nodes is the expensive part of walking a composition, so the edges of a topology are memoized along with the node types and
+ * dependencies they have been computed from. An entry is reused as long as the topology still has the same node types and dependencies and is recomputed
+ * otherwise, topologies themselves are always fetched (in batch) so edits made without updating the graph can never be missed. Changes of the substitution
+ * types themselves (substitution archive uploaded again, topology or archive deleted) are not visible from the parent topology and invalidate the whole
+ * graph.
+ */
+@Component
+public class TopologySubstitutionGraph {
+    @Value("${topology_composition.cache_size:1000}")
+    private int cacheSize = 1000;
+
+    @Resource
+    private ICSARRepositorySearchService csarRepoSearchService;
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO alienDAO;
+
+    private Cache<String, SubstitutionEdges> edges;
+
+    @PostConstruct
+    public void init() {
+        edges = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /**
+     * Get the nodes of a topology that are substituted by a topology template.
+     *
+     * @param topology The topology for which to get substituted nodes.
+     * @return A map of the substituted node names to the id of the topology that substitutes them.
+     */
+    public Map<String, String> getSubstitutedNodes(Topology topology) {
+        Map<String, String> nodeTypes = getNodeTypes(topology);
+        if (topology.getId() != null) {
+            SubstitutionEdges topologyEdges = edges.getIfPresent(topology.getId());
+            if (topologyEdges != null && topologyEdges.nodeTypes.equals(nodeTypes)
+                    && Objects.equal(topologyEdges.dependencies, topology.getDependencies())) {
+                return topologyEdges.substitutedNodes;
+            }
+        }
+        return update(topology, nodeTypes);
+    }
+
+    /**
+     * Recompute the edges of a topology, this should be called when a topology is saved so later compositions don't have to resolve its types.
+     *
+     * @param topology The saved topology.
+     */
+    public void update(Topology topology) {
+        update(topology, getNodeTypes(topology));
+    }
+
+    /**
+     * Remove the edges of every topology, to be called when a topology template stops (or starts) substituting a type, when a substitution type is indexed
+     * again or when a topology or an archive is deleted.
+     */
+    public void invalidateAll() {
+        edges.invalidateAll();
+    }
+
+    /**
+     * Check if a topology is used (even indirectly) to substitute nodes of another topology. The topologies of every depth of the substitution graph are
+     * fetched in a single request.
+     *
+     * @param topologyId The id of the topology from which to start.
+     * @param descendantId The id of the topology to look for.
+     * @return True if nodes of the topology or of one of its descendants are substituted by the descendantId topology.
+     */
+    public boolean hasDescendant(String topologyId, String descendantId) {
+        Set<String> visited = Sets.newHashSet(topologyId);
+        List<String> level = Lists.newArrayList(topologyId);
+        while (!level.isEmpty()) {
+            List<Topology> topologies = alienDAO.findByIds(Topology.class, level.toArray(new String[level.size()]));
+            level = Lists.newArrayList();
+            if (topologies == null) {
+                break;
+            }
+            for (Topology topology : topologies) {
+                for (String childId : getSubstitutedNodes(topology).values()) {
+                    if (childId.equals(descendantId)) {
+                        return true;
+                    }
+                    if (visited.add(childId)) {
+                        level.add(childId);
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private Map<String, String> update(Topology topology, Map<String, String> nodeTypes) {
+        Map<String, String> substitutedNodes = Maps.newHashMap();
+        if (!nodeTypes.isEmpty()) {
+            Map<String, IndexedNodeType> types = csarRepoSearchService.getElementsInDependencies(IndexedNodeType.class, Sets.newHashSet(nodeTypes.values()),
+                    topology.getDependencies());
+            for (Map.Entry<String, String> nodeType : nodeTypes.entrySet()) {
+                IndexedNodeType type = types.get(nodeType.getValue());
+                if (type != null && type.getSubstitutionTopologyId() != null) {
+                    substitutedNodes.put(nodeType.getKey(), type.getSubstitutionTopologyId());
+                }
+            }
+        }
+        substitutedNodes = Collections.unmodifiableMap(substitutedNodes);
+        if (topology.getId() != null) {
+            Set<CSARDependency> dependencies = topology.getDependencies() == null ? null : Sets.newHashSet(topology.getDependencies());
+            edges.put(topology.getId(), new SubstitutionEdges(nodeTypes, dependencies, substitutedNodes));
+        }
+        return substitutedNodes;
+    }
+
+    private Map<String, String> getNodeTypes(Topology topology) {
+        Map<String, String> nodeTypes = Maps.newHashMap();
+        if (topology.getNodeTemplates() != null) {
+            for (Map.Entry<String, NodeTemplate> nodeTemplateEntry : topology.getNodeTemplates().entrySet()) {
+                nodeTypes.put(nodeTemplateEntry.getKey(), nodeTemplateEntry.getValue().getType());
+            }
+        }
+        return nodeTypes;
+    }
+
+    @AllArgsConstructor
+    private static class SubstitutionEdges {
+        /** Node template names to node types the edges have been computed from. */
+        private final Map<String, String> nodeTypes;
+        /** Dependencies the edges have been computed from. */
+        private final Set<CSARDependency> dependencies;
+        /** Substituted node template names to substituting topology ids. */
+        private final Map<String, String> substitutedNodes;
+    }
+}
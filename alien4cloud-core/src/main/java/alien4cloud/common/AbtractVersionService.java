@@ -1,13 +1,15 @@
 package alien4cloud.common;
 
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
+import org.elasticsearch.index.query.FilterBuilders;
+
+import alien4cloud.application.TopologySubstitutionGraph;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.GetMultipleDataResult;
 import alien4cloud.exception.AlreadyExistException;
@@ -24,9 +26,12 @@ import com.google.common.collect.Lists;
 
 public abstract class AbtractVersionService<V extends AbstractTopologyVersion> {
     protected static final String DEFAULT_VERSION_NAME = "0.1.0-SNAPSHOT";
+    private static final String VERSION_KEY_FIELD = "versionKey";
 
     @Resource(name = "alien-es-dao")
     protected IGenericSearchDAO alienDAO;
+    @Resource
+    private TopologySubstitutionGraph topologySubstitutionGraph;
 
     protected abstract V buildVersionImplem();
 
@@ -38,6 +43,20 @@ public abstract class AbtractVersionService<V extends AbstractTopologyVersion> {
 
     protected abstract String getDelegatePropertyName();
 
+    /**
+     * Save again the versions indexed before they had a version key so they can be sorted.
+     */
+    @PostConstruct
+    public void indexVersionKeys() {
+        GetMultipleDataResult<V> result = alienDAO.search(getVersionImplemClass(), null, null, FilterBuilders.missingFilter(VERSION_KEY_FIELD), null, 0,
+                Integer.MAX_VALUE);
+        if (result.getData() != null) {
+            for (V version : result.getData()) {
+                alienDAO.save(version);
+            }
+        }
+    }
+
     /**
      * Create a new version for an application/topology template based on an existing topology with the default version name.
      *
@@ -154,6 +173,7 @@ public abstract class AbtractVersionService<V extends AbstractTopologyVersion> {
     private void deleteVersion(V version) {
         alienDAO.delete(Topology.class, version.getTopologyId());
         alienDAO.delete(getVersionImplemClass(), version.getId());
+        topologySubstitutionGraph.invalidateAll();
     }
 
     /**
@@ -231,8 +251,7 @@ public abstract class AbtractVersionService<V extends AbstractTopologyVersion> {
     public V getVersionByIdOrDefault(String delegateId, String versionId) {
         V version = null;
         if (versionId == null) {
-            V[] versions = getByDelegateId(delegateId);
-            version = versions[0];
+            version = getLatestVersion(delegateId);
         } else {
             version = getOrFail(versionId);
         }
@@ -240,23 +259,42 @@ public abstract class AbtractVersionService<V extends AbstractTopologyVersion> {
     }
 
     /**
-     * Sort the versions from newest to oldest.
+     * Get the most recent version of an application/topology template.
      *
-     * @param data
-     * @return a sorted array of versions
+     * @param delegateId The id of the application/topology template.
+     * @return The version with the highest version number or null if there is no version.
      */
-    public V[] sortArrayOfVersion(V[] data) {
-        if (data == null || data.length <= 1) {
-            return data;
-        }
-        List<V> sortedData = Lists.newArrayList(data);
-        Collections.sort(sortedData, new Comparator<V>() {
-            @Override
-            public int compare(V left, V right) {
-                return VersionUtil.compare(right.getVersion(), left.getVersion());
-            }
-        });
-        return sortedData.toArray(buildVersionImplemArray(data.length));
+    public V getLatestVersion(String delegateId) {
+        return getFirstSortedVersion(delegateId, true);
+    }
+
+    /**
+     * Get the oldest version of an application/topology template.
+     *
+     * @param delegateId The id of the application/topology template.
+     * @return The version with the lowest version number or null if there is no version.
+     */
+    public V getOldestVersion(String delegateId) {
+        return getFirstSortedVersion(delegateId, false);
+    }
+
+    private V getFirstSortedVersion(String delegateId, boolean descending) {
+        GetMultipleDataResult<V> result = alienDAO.search(getVersionImplemClass(), null, getVersionsFilters(delegateId, null), null, null, 0, 1,
+                VERSION_KEY_FIELD, descending);
+        return result.getData() == null || result.getData().length == 0 ? null : result.getData()[0];
+    }
+
+    /**
+     * Search the versions of an application/topology template from newest to oldest.
+     *
+     * @param delegateId The id of the application/topology template.
+     * @param version The version to look for, null to get all versions.
+     * @param from Index of the first version to return.
+     * @param size Maximum number of versions to return.
+     * @return A page of the versions sorted from newest to oldest.
+     */
+    public GetMultipleDataResult<V> searchVersions(String delegateId, String version, int from, int size) {
+        return alienDAO.search(getVersionImplemClass(), null, getVersionsFilters(delegateId, version), null, null, from, size, VERSION_KEY_FIELD, true);
     }
 
     /**
@@ -280,7 +318,7 @@ public abstract class AbtractVersionService<V extends AbstractTopologyVersion> {
     }
 
     public V searchByDelegateAndVersion(String delegateId, String version) {
-        GetMultipleDataResult<V> result = alienDAO.find(getVersionImplemClass(), getVersionsFilters(delegateId, version), Integer.MAX_VALUE);
+        GetMultipleDataResult<V> result = alienDAO.find(getVersionImplemClass(), getVersionsFilters(delegateId, version), 1);
         if (result.getTotalResults() > 0) {
             return result.getData()[0];
         }
@@ -292,6 +330,7 @@ public abstract class AbtractVersionService<V extends AbstractTopologyVersion> {
         topologyTemplateVersion.setTopologyId(topologyId);
         alienDAO.save(topologyTemplateVersion);
         alienDAO.delete(Topology.class, oldTopologyId);
+        topologySubstitutionGraph.invalidateAll();
     }
 
 }
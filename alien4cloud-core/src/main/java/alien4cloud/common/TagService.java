@@ -12,6 +12,7 @@ import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.model.common.ITaggableResource;
 import alien4cloud.model.common.Tag;
 
+import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
 
 /**
@@ -21,6 +22,8 @@ import com.google.common.collect.Lists;
 public class TagService {
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
+    @Resource
+    private TagSuggestionService tagSuggestionService;
 
     /**
      * Add or update a tag to a taggable resource.
@@ -34,11 +37,16 @@ public class TagService {
             resource.setTags(Lists.<Tag> newArrayList());
         }
         Tag newTag = new Tag(key, value);
-        if (resource.getTags().contains(newTag)) {
-            resource.getTags().remove(newTag);
-        }
+        int index = resource.getTags().indexOf(newTag);
+        Tag oldTag = index < 0 ? null : resource.getTags().remove(index);
         resource.getTags().add(newTag);
         alienDAO.save(resource);
+        if (oldTag == null || Objects.equal(oldTag.getValue(), value)) {
+            tagSuggestionService.register(resource);
+        } else {
+            // the previous value may not be used anymore
+            tagSuggestionService.invalidate();
+        }
     }
 
     /**
@@ -51,6 +59,7 @@ public class TagService {
         if (resource.getTags() != null) {
             resource.getTags().remove(new Tag(key, null));
             alienDAO.save(resource);
+            tagSuggestionService.invalidate();
         }
     }
 
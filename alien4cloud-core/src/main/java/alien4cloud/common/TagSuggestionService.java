@@ -0,0 +1,147 @@
+package alien4cloud.common;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import javax.annotation.Resource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import alien4cloud.dao.ElasticSearchDAO;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.FetchContext;
+import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.model.application.Application;
+import alien4cloud.model.common.ITaggableResource;
+import alien4cloud.model.common.Tag;
+import alien4cloud.model.components.IndexedArtifactType;
+import alien4cloud.model.components.IndexedCapabilityType;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedRelationshipType;
+
+import com.google.common.collect.Lists;
+
+/**
+ * In memory dictionary of the tag names and values used by applications and components, used to suggest tags without querying elasticsearch.
+ *
+ * The dictionary is loaded from elasticsearch on first use and then maintained when tags are added to resources. As a tag name or value may still be used
+ * by other resources, removing a tag (or a tagged resource) doesn't update the dictionary but only marks it to be reloaded on next use.
+ */
+@Slf4j
+@Service
+public class TagSuggestionService {
+    public static final String NAME_PATH = "name";
+    public static final String VALUE_PATH = "value";
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final String[] INDEXES = new String[] { ElasticSearchDAO.TOSCA_ELEMENT_INDEX, Application.class.getSimpleName().toLowerCase() };
+    private static final Class<?>[] CLASSES = new Class<?>[] { Application.class, IndexedNodeType.class, IndexedArtifactType.class,
+            IndexedCapabilityType.class, IndexedRelationshipType.class };
+
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO alienDAO;
+
+    /** Current dictionary, null when it has to be loaded. */
+    private volatile TagDictionary dictionary;
+
+    /**
+     * Get the tag names or values that starts with a given prefix.
+     *
+     * @param path The part of the tags to suggest, {@link #NAME_PATH} or {@link #VALUE_PATH}.
+     * @param prefix The prefix of the suggestions.
+     * @param maxElements The maximum number of suggestions to return.
+     * @return The tag names or values that starts with the prefix in alphabetical order.
+     */
+    public String[] suggest(String path, String prefix, int maxElements) {
+        TagDictionary current = dictionary;
+        if (current == null) {
+            current = load();
+        }
+        NavigableSet<String> words;
+        if (NAME_PATH.equals(path)) {
+            words = current.names;
+        } else if (VALUE_PATH.equals(path)) {
+            words = current.values;
+        } else {
+            return new String[0];
+        }
+        List<String> suggestions = Lists.newArrayList();
+        // every string that starts with the prefix is after the prefix and before the prefix followed by the highest character
+        for (String suggestion : words.subSet(prefix, true, prefix + Character.MAX_VALUE, true)) {
+            if (suggestions.size() == maxElements) {
+                break;
+            }
+            suggestions.add(suggestion);
+        }
+        return suggestions.toArray(new String[suggestions.size()]);
+    }
+
+    /**
+     * Register the tags of a resource in the dictionary, to be called when tags are added to a resource that is saved.
+     *
+     * @param resource The application or tosca element that has been tagged.
+     */
+    public synchronized void register(Object resource) {
+        if (dictionary != null && Arrays.asList(CLASSES).contains(resource.getClass())) {
+            // when not loaded, tags are read from elasticsearch on load
+            dictionary.addTags(getTags(resource));
+        }
+    }
+
+    /**
+     * Mark the dictionary to be reloaded, to be called when tags or tagged resources are removed.
+     */
+    public synchronized void invalidate() {
+        dictionary = null;
+    }
+
+    private synchronized TagDictionary load() {
+        if (dictionary != null) {
+            return dictionary;
+        }
+        TagDictionary loaded = new TagDictionary();
+        int from = 0;
+        GetMultipleDataResult<Object> result;
+        do {
+            result = alienDAO.search(INDEXES, CLASSES, null, null, null, FetchContext.TAG_SUGGESTION, from, LOAD_BATCH_SIZE);
+            if (result.getData() == null) {
+                break;
+            }
+            for (Object resource : result.getData()) {
+                loaded.addTags(getTags(resource));
+            }
+            from += LOAD_BATCH_SIZE;
+        } while (from < result.getTotalResults());
+        log.debug("Loaded <{}> tag names and <{}> tag values for suggestion", loaded.names.size(), loaded.values.size());
+        dictionary = loaded;
+        return loaded;
+    }
+
+    private static List<Tag> getTags(Object resource) {
+        return ((ITaggableResource) resource).getTags();
+    }
+
+    /** Sorted tag names and values, sets are concurrent so suggestions can be read while tags are registered. */
+    private static class TagDictionary {
+        private final NavigableSet<String> names = new ConcurrentSkipListSet<String>();
+        private final NavigableSet<String> values = new ConcurrentSkipListSet<String>();
+
+        private void addTags(List<Tag> tags) {
+            if (tags == null) {
+                return;
+            }
+            for (Tag tag : tags) {
+                if (tag.getName() != null) {
+                    names.add(tag.getName());
+                }
+                if (tag.getValue() != null) {
+                    values.add(tag.getValue());
+                }
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.mapping.ElasticSearchClient;
 import org.springframework.stereotype.Component;
 
+import alien4cloud.common.TagSuggestionService;
 import alien4cloud.dao.ElasticSearchDAO;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.GetMultipleDataResult;
@@ -45,6 +46,8 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
     private ElasticSearchClient elasticSearchClient;
     @Resource
     private IImageDAO imageDAO;
+    @Resource
+    private TagSuggestionService tagSuggestionService;
 
     private void refreshIndexForSearching() {
         elasticSearchClient.getClient().admin().indices().prepareRefresh(ElasticSearchDAO.TOSCA_ELEMENT_INDEX).execute().actionGet();
@@ -120,6 +123,7 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
             IndexedModelUtils.mergeInheritableIndex(superElement, element);
         }
         saveAndUpdateHighestVersion(element);
+        tagSuggestionService.register(element);
     }
     
     /**
@@ -240,6 +244,7 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
             imageDAO.delete(iconTag.getValue());
         }
         deleteAndUpdateHighestVersion(element);
+        tagSuggestionService.invalidate();
     }
 
     @Override
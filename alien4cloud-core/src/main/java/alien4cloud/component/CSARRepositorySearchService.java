@@ -12,6 +12,7 @@ import javax.annotation.Resource;
 import lombok.NonNull;
 
 import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.IdsQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.springframework.stereotype.Component;
@@ -76,6 +77,39 @@ public class CSARRepositorySearchService implements ICSARRepositorySearchService
         }
     }
 
+    @Override
+    public <T extends IndexedToscaElement> Map<String, T> getElementsInDependencies(Class<T> elementClass, Collection<String> elementIds,
+            Collection<CSARDependency> dependencies) {
+        Map<String, T> elementsById = Maps.newHashMap();
+        if (dependencies == null || dependencies.isEmpty() || elementIds == null || elementIds.isEmpty()) {
+            return elementsById;
+        }
+        // The query match all element ids of all defined dependencies' version from defined dependencies' archive name
+        BoolQueryBuilder boolQueryBuilder = QueryBuilders.boolQuery();
+        for (CSARDependency dependency : dependencies) {
+            IdsQueryBuilder idQueryBuilder = QueryBuilders.idsQuery();
+            for (String elementId : elementIds) {
+                idQueryBuilder.addIds(elementId + ":" + dependency.getVersion());
+            }
+            QueryBuilder matchArchiveNameQueryBuilder = QueryBuilders.termQuery("archiveName", dependency.getName());
+            boolQueryBuilder.should(QueryBuilders.boolQuery().must(idQueryBuilder).must(matchArchiveNameQueryBuilder));
+        }
+
+        List<T> elements = searchDAO.customFindAll(elementClass, boolQueryBuilder);
+        if (elements == null) {
+            return elementsById;
+        }
+        // keep the element from the highest archive version as getElementInDependencies does
+        for (T element : elements) {
+            T current = elementsById.get(element.getElementId());
+            if (current == null
+                    || VersionUtil.parseVersion(current.getArchiveVersion()).compareTo(VersionUtil.parseVersion(element.getArchiveVersion())) < 0) {
+                elementsById.put(element.getElementId(), element);
+            }
+        }
+        return elementsById;
+    }
+
     @Override
     public <T extends IndexedToscaElement> T getRequiredElementInDependencies(Class<T> elementClass, String elementId, Collection<CSARDependency> dependencies)
             throws NotFoundException {
@@ -45,6 +45,17 @@ public interface ICSARRepositorySearchService {
     <T extends IndexedToscaElement> T getRequiredElementInDependencies(Class<T> elementClass, String elementId, Collection<CSARDependency> dependencies)
             throws NotFoundException;
 
+    /**
+     * Get multiple elements of the same type from defined dependencies in a single request.
+     *
+     * @param elementClass The element class.
+     * @param elementIds The TOSCA element ids of the elements (without archive version).
+     * @param dependencies A list of CSAR in which the elements may be defined.
+     * @return A map of element id to the element found in the dependencies (with the highest archive version), ids that cannot be found are not in the map.
+     */
+    <T extends IndexedToscaElement> Map<String, T> getElementsInDependencies(Class<T> elementClass, Collection<String> elementIds,
+            Collection<CSARDependency> dependencies);
+
     /**
      * GEt the parent of an element
      *
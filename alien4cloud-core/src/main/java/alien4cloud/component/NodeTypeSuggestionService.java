@@ -0,0 +1,109 @@
+package alien4cloud.component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.elasticsearch.action.admin.indices.mapping.put.PutMappingResponse;
+import org.elasticsearch.client.IndicesAdminClient;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.mapping.ElasticSearchClient;
+import org.elasticsearch.mapping.MappingBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.stereotype.Service;
+
+import alien4cloud.dao.ElasticSearchDAO;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.exception.IndexingServiceException;
+import alien4cloud.model.components.IndexedNodeType;
+
+/**
+ * Suggest node types ids from a part of their element id.
+ */
+@Slf4j
+@Service
+public class NodeTypeSuggestionService {
+    private static final String ELEMENT_ID_FIELD = "elementId";
+    /** Sub-field of the element id indexed as lower case trigrams, it exists only in the index and not in the node types sources. */
+    private static final String ELEMENT_ID_TRIGRAM_FIELD = "elementId.trigram";
+    private static final String TRIGRAM_ANALYZER = "element_id_trigram";
+    private static final int TRIGRAM_LENGTH = 3;
+    private static final String NODE_TYPE = MappingBuilder.indexTypeFromClass(IndexedNodeType.class);
+    private static final String[] NODE_TYPES = new String[] { NODE_TYPE };
+
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO alienDAO;
+    @Resource
+    private ElasticSearchClient elasticSearchClient;
+
+    /**
+     * Add the trigram sub-field to the element id of the node types and index it for the node types saved before it existed.
+     * <p>
+     * The index is created without the trigram analyzer and the mapping of an existing index is not updated from the annotations, so both are put
+     * explicitly before the node types are saved again.
+     * </p>
+     */
+    @PostConstruct
+    public void initElementIdTrigrams() {
+        IndicesAdminClient indices = elasticSearchClient.getClient().admin().indices();
+        String index = ElasticSearchDAO.TOSCA_ELEMENT_INDEX;
+        if (indices.prepareGetSettings(index).get().getSetting(index, "index.analysis.analyzer." + TRIGRAM_ANALYZER + ".tokenizer") == null) {
+            log.info("Adding analyzer <{}> to index <{}>", TRIGRAM_ANALYZER, index);
+            // analyzers cannot be added to an open index
+            indices.prepareClose(index).get();
+            indices.prepareUpdateSettings(index)
+                    .setSettings(ImmutableSettings.settingsBuilder()
+                            .put("index.analysis.tokenizer." + TRIGRAM_ANALYZER + ".type", "nGram")
+                            .put("index.analysis.tokenizer." + TRIGRAM_ANALYZER + ".min_gram", TRIGRAM_LENGTH)
+                            .put("index.analysis.tokenizer." + TRIGRAM_ANALYZER + ".max_gram", TRIGRAM_LENGTH)
+                            .put("index.analysis.analyzer." + TRIGRAM_ANALYZER + ".type", "custom")
+                            .put("index.analysis.analyzer." + TRIGRAM_ANALYZER + ".tokenizer", TRIGRAM_ANALYZER)
+                            .putArray("index.analysis.analyzer." + TRIGRAM_ANALYZER + ".filter", "lowercase")).get();
+            indices.prepareOpen(index).get();
+            elasticSearchClient.waitForGreenStatus(index);
+        }
+
+        String mapping = "{\"" + NODE_TYPE + "\":{\"properties\":{\"" + ELEMENT_ID_FIELD + "\":{\"type\":\"string\",\"fields\":{\"trigram\":{\"type\":\"string\",\"analyzer\":\""
+                + TRIGRAM_ANALYZER + "\"}}}}}}";
+        PutMappingResponse putMappingResponse = indices.preparePutMapping(index).setType(NODE_TYPE).setSource(mapping).get();
+        if (!putMappingResponse.isAcknowledged()) {
+            throw new IndexingServiceException("Failed to add the element id trigrams to the mapping of <" + NODE_TYPE + ">");
+        }
+
+        GetMultipleDataResult<IndexedNodeType> result = alienDAO.search(IndexedNodeType.class, null, null,
+                FilterBuilders.missingFilter(ELEMENT_ID_TRIGRAM_FIELD), null, 0, Integer.MAX_VALUE);
+        if (result.getData() != null && result.getData().length > 0) {
+            alienDAO.save(result.getData());
+        }
+    }
+
+    /**
+     * Get the element ids of the latest versions of the node types that contains the given text.
+     *
+     * @param searchText The text the element ids must contain.
+     * @param maxElements The maximum number of element ids to return.
+     * @return The matching element ids sorted in alphabetical order.
+     */
+    public String[] suggestElementIds(String searchText, int maxElements) {
+        QueryBuilder queryOnText;
+        if (searchText.length() < TRIGRAM_LENGTH) {
+            // shorter texts are the beginning of a trigram of the element id (except for its last two characters)
+            queryOnText = QueryBuilders.prefixQuery(ELEMENT_ID_TRIGRAM_FIELD, searchText.toLowerCase());
+        } else {
+            // the trigrams of the text follow each other in the element ids that contains it
+            queryOnText = QueryBuilders.matchPhraseQuery(ELEMENT_ID_TRIGRAM_FIELD, searchText);
+        }
+        return selectElementIds(queryOnText, maxElements);
+    }
+
+    private String[] selectElementIds(QueryBuilder queryOnText, int maxElements) {
+        QueryBuilder queryOnHighest = QueryBuilders.termQuery("highestVersion", true);
+        QueryBuilder query = QueryBuilders.boolQuery().must(queryOnText).must(queryOnHighest);
+        return alienDAO.selectPath(ElasticSearchDAO.TOSCA_ELEMENT_INDEX, NODE_TYPES, query, SortOrder.ASC, ELEMENT_ID_FIELD, 0, maxElements);
+    }
+}
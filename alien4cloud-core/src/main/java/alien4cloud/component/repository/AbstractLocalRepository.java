@@ -41,7 +41,12 @@ public abstract class AbstractLocalRepository implements IFileRepository {
     public void storeFile(String id, InputStream data) {
         try {
             checkRepository();
-            Files.copy(data, resolveFile(id), StandardCopyOption.REPLACE_EXISTING);
+            if (getBlobStore() == null) {
+                Files.copy(data, resolveFile(id), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                // the file references a shared content so identical files are stored only once.
+                getBlobStore().store(data, resolveFile(id));
+            }
         } catch (IOException e) {
             throw new RepositoryIOException("Could not store file with UID [" + id + "]", e);
         }
@@ -53,5 +58,12 @@ public abstract class AbstractLocalRepository implements IFileRepository {
 
     public abstract Path getRepositoryPath();
 
+    /**
+     * Get the content-addressed store in which file contents are stored.
+     * 
+     * @return The blob store or null if files are stored as plain copies in the repository directory.
+     */
+    public abstract BlobStore getBlobStore();
+
     public abstract void checkRepository() throws IOException;
 }
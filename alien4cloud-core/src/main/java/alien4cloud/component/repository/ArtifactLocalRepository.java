@@ -6,6 +6,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import javax.annotation.Resource;
+
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -16,12 +18,19 @@ import alien4cloud.component.repository.exception.RepositoryIOException;
 public class ArtifactLocalRepository extends AbstractLocalRepository {
 
     private Path repositoryPath;
+    @Resource
+    private BlobStore blobStore;
 
     @Override
     public Path getRepositoryPath() {
         return this.repositoryPath;
     }
 
+    @Override
+    public BlobStore getBlobStore() {
+        return this.blobStore;
+    }
+
     @Override
     public void storeFile(String id, InputStream data) {
         try {
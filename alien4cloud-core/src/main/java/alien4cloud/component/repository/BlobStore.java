@@ -0,0 +1,308 @@
+package alien4cloud.component.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import alien4cloud.component.repository.exception.RepositoryIOException;
+import alien4cloud.utils.FileUtil;
+
+import com.google.common.io.BaseEncoding;
+
+/**
+ * Content-addressed store shared by the CSAR and artifact repositories.
+ *
+ * Every content is stored once under its SHA-256 hash and the files of the repositories are hard links to the blob, so identical archives entries or
+ * artifacts (SNAPSHOT re-uploads, near-identical versions) only use disk space once. The reference count of a blob is the hard link count of the file,
+ * deleting a repository file releases its reference and {@link #collectGarbage()} removes the blobs that are not referenced anymore. On file systems that
+ * does not support hard links the content is copied and no garbage collection is performed.
+ *
+ * As a blob is shared by every file that references it, blobs are read-only: repository files must never be written in place but replaced (deleted and
+ * stored again). The time at which a blob was last stored is kept in a separate mark file so the shared file is never modified.
+ */
+@Slf4j
+@Component
+public class BlobStore {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String TMP_DIRECTORY = "tmp";
+    private static final String MARKS_DIRECTORY = "marks";
+    private static final String LINK_COUNT_ATTRIBUTE = "unix:nlink";
+    private static final String GIT_DIRECTORY = ".git";
+
+    @Getter
+    private Path rootPath;
+    /** Blobs stored more recently than this delay (in milliseconds) are never collected. */
+    @Getter
+    @Setter
+    private long gracePeriod = 60 * 60 * 1000L;
+    /** Prevent garbage collection while contents are being stored and linked. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public BlobStore() {
+    }
+
+    public BlobStore(Path rootPath) {
+        this.rootPath = rootPath.toAbsolutePath();
+        ensureDirectory(this.rootPath.resolve(TMP_DIRECTORY));
+        ensureDirectory(this.rootPath.resolve(MARKS_DIRECTORY));
+    }
+
+    @Required
+    @Value("${directories.alien}/${directories.blob_repository:blobs}")
+    public void setRootPath(String path) {
+        this.rootPath = Paths.get(path).toAbsolutePath();
+        ensureDirectory(this.rootPath.resolve(TMP_DIRECTORY));
+        ensureDirectory(this.rootPath.resolve(MARKS_DIRECTORY));
+    }
+
+    /**
+     * Store the content of a stream and create the target file as a reference to it. The stream is not closed.
+     *
+     * @param data The content to store.
+     * @param target The path of the file to create (replaced if it already exists).
+     * @return The hash of the content.
+     */
+    public String store(InputStream data, Path target) {
+        lock.readLock().lock();
+        try {
+            String hash = storeBlob(data);
+            link(hash, target);
+            return hash;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Store the content of a file and create the target file as a reference to it.
+     *
+     * @param source The file to store, it may be located in any file system (for example in a zip file system).
+     * @param target The path of the file to create (replaced if it already exists).
+     * @return The hash of the content.
+     */
+    public String store(Path source, Path target) {
+        try (InputStream data = Files.newInputStream(source)) {
+            return store(data, target);
+        } catch (IOException e) {
+            throw new RepositoryIOException("Could not read file <" + source + "> to store it.", e);
+        }
+    }
+
+    /**
+     * Store every file of a directory tree and create the same tree under the target directory with references to the stored contents. Git metadata
+     * directories are not stored.
+     *
+     * @param sourceRoot The root of the tree to store, it may be located in any file system (for example the root of a zip file system).
+     * @param targetRoot The directory in which to create the tree.
+     * @throws IOException In case the source tree cannot be walked.
+     */
+    public void storeTree(final Path sourceRoot, final Path targetRoot) throws IOException {
+        Files.walkFileTree(sourceRoot, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(sourceRoot) && GIT_DIRECTORY.equals(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(targetRoot.resolve(FileUtil.relativizePath(sourceRoot, dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                store(file, targetRoot.resolve(FileUtil.relativizePath(sourceRoot, file)));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Get the path of a blob.
+     *
+     * @param hash The hash of the content.
+     * @return The path of the blob (that may not exist).
+     */
+    public Path getBlobPath(String hash) {
+        return rootPath.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path getMarkPath(String hash) {
+        return rootPath.resolve(MARKS_DIRECTORY).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Get the number of repository files that reference a blob.
+     *
+     * @param hash The hash of the content.
+     * @return The number of references to the blob, 0 if the blob does not exists and -1 if the file system cannot count the references.
+     */
+    public int getReferenceCount(String hash) {
+        Path blobPath = getBlobPath(hash);
+        if (!Files.exists(blobPath)) {
+            return 0;
+        }
+        try {
+            return getLinkCount(blobPath) - 1;
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Periodically delete the blobs that are not referenced anymore.
+     */
+    @Scheduled(fixedDelayString = "${directories.blob_gc_interval_ms:3600000}")
+    public void scheduledGarbageCollection() {
+        collectGarbage();
+    }
+
+    /**
+     * Delete every blob that is not referenced by a repository file anymore.
+     *
+     * @return The number of deleted blobs.
+     */
+    public int collectGarbage() {
+        final long expiry = System.currentTimeMillis() - gracePeriod;
+        final int[] deleted = new int[] { 0 };
+        lock.writeLock().lock();
+        try {
+            Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (dir.equals(rootPath.resolve(TMP_DIRECTORY)) || dir.equals(rootPath.resolve(MARKS_DIRECTORY))) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Path markPath = getMarkPath(file.getFileName().toString());
+                    long storedTime = Files.exists(markPath) ? Files.getLastModifiedTime(markPath).toMillis() : attrs.lastModifiedTime().toMillis();
+                    if (storedTime <= expiry && getLinkCount(file) <= 1) {
+                        Files.delete(file);
+                        Files.deleteIfExists(markPath);
+                        deleted[0]++;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            log.warn("Blob store file system does not support link count, unreferenced blobs cannot be collected.");
+        } catch (IOException e) {
+            log.error("Failed to collect unreferenced blobs", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (deleted[0] > 0) {
+            log.info("Deleted <" + deleted[0] + "> unreferenced blobs from the blob store.");
+        }
+        return deleted[0];
+    }
+
+    private String storeBlob(InputStream data) {
+        Path tmpPath = rootPath.resolve(TMP_DIRECTORY).resolve(UUID.randomUUID().toString());
+        try {
+            DigestInputStream digestStream = new DigestInputStream(data, newDigest());
+            Files.copy(digestStream, tmpPath);
+            String hash = BaseEncoding.base16().lowerCase().encode(digestStream.getMessageDigest().digest());
+            Path blobPath = getBlobPath(hash);
+            if (Files.exists(blobPath)) {
+                Files.delete(tmpPath);
+            } else {
+                // the content is shared by every file that references it, it must not be changed through one of them.
+                tmpPath.toFile().setReadOnly();
+                Files.createDirectories(blobPath.getParent());
+                try {
+                    Files.move(tmpPath, blobPath, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // stored concurrently
+                    Files.delete(tmpPath);
+                }
+            }
+            mark(hash);
+            return hash;
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(tmpPath);
+            } catch (IOException deleteException) {
+                log.warn("Failed to delete temporary blob <" + tmpPath + ">", deleteException);
+            }
+            throw new RepositoryIOException("Could not store content in blob store.", e);
+        }
+    }
+
+    /**
+     * Record that a blob has just been stored so it is not collected before being referenced.
+     */
+    private void mark(String hash) throws IOException {
+        Path markPath = getMarkPath(hash);
+        Files.createDirectories(markPath.getParent());
+        try {
+            Files.createFile(markPath);
+        } catch (FileAlreadyExistsException e) {
+            Files.setLastModifiedTime(markPath, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+    }
+
+    private void link(String hash, Path target) {
+        Path blobPath = getBlobPath(hash);
+        try {
+            Files.deleteIfExists(target);
+            Files.createDirectories(target.getParent());
+            try {
+                Files.createLink(target, blobPath);
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                log.debug("Unable to link <" + target + "> to blob <" + hash + ">, content is copied.");
+                Files.copy(blobPath, target, StandardCopyOption.REPLACE_EXISTING);
+                // a copy is not shared and can be modified
+                target.toFile().setWritable(true);
+            }
+        } catch (IOException e) {
+            throw new RepositoryIOException("Could not create file <" + target + "> from blob <" + hash + ">.", e);
+        }
+    }
+
+    private int getLinkCount(Path path) throws IOException {
+        return ((Number) Files.getAttribute(path, LINK_COUNT_ATTRIBUTE)).intValue();
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not supported by the JVM.", e);
+        }
+    }
+
+    private void ensureDirectory(Path path) {
+        try {
+            Files.createDirectories(path);
+        } catch (IOException e) {
+            throw new RepositoryIOException("Fails to create blob store at " + path.toString(), e);
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package alien4cloud.component.repository;
 
 import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import javax.annotation.Resource;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -38,7 +46,12 @@ import alien4cloud.utils.FileUtil;
 @Component
 public class CsarFileRepository implements ICsarRepositry {
     public static final String CSAR_EXTENSION = "csar";
+    public static final String EXPANDED_DIRECTORY = "expanded";
+    private static final String GIT_DIRECTORY = ".git";
     private Path rootPath;
+    /** Content-addressed store in which archive contents are stored, null to store plain copies of the archives. */
+    @Resource
+    private BlobStore blobStore;
 
     public CsarFileRepository() {
     }
@@ -80,7 +93,7 @@ public class CsarFileRepository implements ICsarRepositry {
         }
 
         Path csarDirectoryPath = rootPath.resolve(name).resolve(version);
-        String realName = name.concat("-").concat(version).concat("." + CSAR_EXTENSION);
+        String realName = getRealName(name, version);
 
         // create the storage directory
         createCSARDirectory(csarDirectoryPath, realName);
@@ -91,12 +104,16 @@ public class CsarFileRepository implements ICsarRepositry {
                 log.debug("tmp: " + tmpPath);
                 log.debug(" Dest: " + csarDirectoryPath.resolve(realName));
             }
-            Path csarTargetPath = csarDirectoryPath.resolve(realName);
-            Files.copy(tmpPath, csarTargetPath);
-
-            // unzip the csar
-            Path expandedPath = csarDirectoryPath.resolve("expanded");
-            FileUtil.unzip(csarTargetPath, expandedPath);
+            Path expandedPath = csarDirectoryPath.resolve(EXPANDED_DIRECTORY);
+            if (Files.isDirectory(tmpPath)) {
+                // the archive is already expanded, the zip file will be created only if requested (see getCSAR).
+                copyExpandedCSAR(tmpPath, expandedPath);
+            } else {
+                Path csarTargetPath = csarDirectoryPath.resolve(realName);
+                copyCSAR(tmpPath, csarTargetPath);
+                // unzip the csar
+                unzipCSAR(csarTargetPath, expandedPath);
+            }
             DirectoryJSonWalker.directoryJson(expandedPath, csarDirectoryPath.resolve("content.json"));
         } catch (IOException e) {
             throw new CSARStorageFailureException("Error while trying to store the CSAR: " + name + ", Version: " + version + "...." + e.getMessage(), e);
@@ -105,16 +122,85 @@ public class CsarFileRepository implements ICsarRepositry {
 
     @Override
     public Path getCSAR(String name, String version) throws CSARVersionNotFoundException {
-        String realName = name.concat("-").concat(version).concat("." + CSAR_EXTENSION);
+        String realName = getRealName(name, version);
 
-        Path path = rootPath.resolve(name).resolve(version).resolve(realName);
+        Path csarDirectoryPath = rootPath.resolve(name).resolve(version);
+        Path path = csarDirectoryPath.resolve(realName);
         if (Files.exists(path)) {
             return path;
         }
 
+        Path expandedPath = csarDirectoryPath.resolve(EXPANDED_DIRECTORY);
+        if (Files.isDirectory(expandedPath)) {
+            // the archive has been stored from a directory, zip it on first access.
+            return zipExpandedCSAR(name, version, expandedPath, path);
+        }
+
         throw new CSARVersionNotFoundException("CSAR: " + name + ", Version: " + version + " not found in the repository.");
     }
 
+    private String getRealName(String name, String version) {
+        return name.concat("-").concat(version).concat("." + CSAR_EXTENSION);
+    }
+
+    private void copyCSAR(Path source, Path destination) throws IOException {
+        if (blobStore == null) {
+            Files.copy(source, destination);
+        } else {
+            blobStore.store(source, destination);
+        }
+    }
+
+    private void unzipCSAR(Path csarPath, Path expandedPath) throws IOException {
+        if (blobStore == null) {
+            FileUtil.unzip(csarPath, expandedPath);
+            return;
+        }
+        try (FileSystem csarFS = FileSystems.newFileSystem(csarPath, null)) {
+            blobStore.storeTree(csarFS.getPath(csarFS.getSeparator()), expandedPath);
+        }
+    }
+
+    private void copyExpandedCSAR(final Path source, final Path destination) throws IOException {
+        if (blobStore != null) {
+            // archive entries are shared with other archives and versions that have the same content.
+            blobStore.storeTree(source, destination);
+            return;
+        }
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(source) && GIT_DIRECTORY.equals(dir.getFileName().toString())) {
+                    // do not store git metadata of archives imported from a git repository.
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(destination.resolve(FileUtil.relativizePath(source, dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.copy(file, destination.resolve(FileUtil.relativizePath(source, file)), StandardCopyOption.REPLACE_EXISTING);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private synchronized Path zipExpandedCSAR(String name, String version, Path expandedPath, Path csarPath) throws CSARVersionNotFoundException {
+        if (Files.exists(csarPath)) {
+            return csarPath;
+        }
+        Path tmpCsarPath = csarPath.resolveSibling(csarPath.getFileName().toString() + ".tmp");
+        try {
+            FileUtil.zip(expandedPath, tmpCsarPath);
+            Files.move(tmpCsarPath, csarPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new CSARStorageFailureException("Error while trying to create the CSAR file for: " + name + ", Version: " + version + "...." + e.getMessage(),
+                    e);
+        }
+        return csarPath;
+    }
+
     private void checkCSARRepository(Path rootPath) {
         if (!Files.isDirectory(rootPath)) {
             try {
@@ -130,7 +216,7 @@ public class CsarFileRepository implements ICsarRepositry {
     }
 
     private void createCSARDirectory(Path csarDirectoryPath, String realName) throws CSARVersionAlreadyExistsException {
-        if (Files.exists(csarDirectoryPath.resolve(realName))) {
+        if (Files.exists(csarDirectoryPath.resolve(realName)) || Files.exists(csarDirectoryPath.resolve(EXPANDED_DIRECTORY))) {
             log.info("Overriding CSAR with new one.");
             try {
                 FileUtil.delete(csarDirectoryPath);
@@ -26,7 +26,8 @@ public interface ICsarRepositry {
      * 
      * @param name the name of the CSAR to store.
      * @param version the version of the CSAR to store.
-     * @param tmpPath the path to the temporary directory where the CSAR is located. The file will be moved to its new location inside the repository.
+     * @param tmpPath the path to the temporary location where the CSAR is located, either a zip file or the root directory of an expanded archive. The
+     *            content will be copied to its new location inside the repository.
      * @throws CSARVersionAlreadyExistsException
      */
     void storeCSAR(String name, String version, Path tmpPath) throws CSARVersionAlreadyExistsException;
@@ -40,7 +41,7 @@ public interface ICsarRepositry {
      *            the version of the CSAR to store.
      * 
      * @return {@link Path} <br>
-     *         The path to the CSAR file
+     *         The path to the CSAR file (created on first access if the archive has been stored from a directory)
      * @throws CSARVersionNotFoundException
      */
     Path getCSAR(String name, String version) throws CSARVersionNotFoundException;
@@ -7,6 +7,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 @Configuration
@@ -15,6 +16,10 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 public class SchedulingConfiguration {
     @Value("${paas_monitor.threadpool_size}")
     private int paasMonitorThreadPoolSize;
+    @Value("${topology_validation.threadpool_size:4}")
+    private int topologyValidationThreadPoolSize;
+    @Value("${quick_search.threadpool_size:4}")
+    private int quickSearchThreadPoolSize;
 
     @Bean(name = "paas-monitor-scheduler")
     public Executor getPaaSScheduler() {
@@ -31,4 +36,22 @@ public class SchedulingConfiguration {
         threadPoolTaskScheduler.setThreadNamePrefix("node-type-score-");
         return threadPoolTaskScheduler;
     }
-}
\ No newline at end of file
+
+    @Bean(name = "topology-validation-executor")
+    public ThreadPoolTaskExecutor getTopologyValidationExecutor() {
+        ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+        threadPoolTaskExecutor.setCorePoolSize(topologyValidationThreadPoolSize);
+        threadPoolTaskExecutor.setMaxPoolSize(topologyValidationThreadPoolSize);
+        threadPoolTaskExecutor.setThreadNamePrefix("topology-validation-");
+        return threadPoolTaskExecutor;
+    }
+
+    @Bean(name = "quick-search-executor")
+    public ThreadPoolTaskExecutor getQuickSearchExecutor() {
+        ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+        threadPoolTaskExecutor.setCorePoolSize(quickSearchThreadPoolSize);
+        threadPoolTaskExecutor.setMaxPoolSize(quickSearchThreadPoolSize);
+        threadPoolTaskExecutor.setThreadNamePrefix("quick-search-");
+        return threadPoolTaskExecutor;
+    }
+}
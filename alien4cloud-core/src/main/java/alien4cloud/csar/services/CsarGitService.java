@@ -1,7 +1,6 @@
 package alien4cloud.csar.services;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -121,12 +120,7 @@ public class CsarGitService {
             parsingResult.add(result);
         }
         try {
-            Path path = Paths.get(pathToReach);
-            Path pathZipped = Paths.get(pathToReach.concat("_ZIPPED"));
-            if (Files.exists(pathZipped)) {
-                FileUtil.delete(pathZipped);
-            }
-            FileUtil.delete(path);
+            FileUtil.delete(Paths.get(pathToReach));
         } catch (IOException e) {
             e.printStackTrace();
         }
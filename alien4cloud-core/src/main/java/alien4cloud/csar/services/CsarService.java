@@ -11,6 +11,7 @@ import org.elasticsearch.index.query.FilterBuilders;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.springframework.stereotype.Component;
 
+import alien4cloud.application.TopologySubstitutionGraph;
 import alien4cloud.component.ICSARRepositoryIndexerService;
 import alien4cloud.component.repository.CsarFileRepository;
 import alien4cloud.dao.IGenericSearchDAO;
@@ -38,6 +39,9 @@ public class CsarService implements ICsarDependencyLoader {
     @Resource
     private CsarFileRepository alienRepository;
 
+    @Resource
+    private TopologySubstitutionGraph topologySubstitutionGraph;
+
     /**
      * Get a cloud service if exists in Dao.
      * 
@@ -177,6 +181,8 @@ public class CsarService implements ICsarDependencyLoader {
         indexerService.deleteElements(csar.getName(), csar.getVersion());
 
         csarDAO.delete(Csar.class, csarId);
+        // the types of the archive (and the topology they are substituted by) don't exist anymore
+        topologySubstitutionGraph.invalidateAll();
 
         // physically delete files
         alienRepository.removeCSAR(csar.getName(), csar.getVersion());
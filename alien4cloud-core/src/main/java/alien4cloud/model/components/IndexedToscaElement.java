@@ -20,6 +20,7 @@ import org.elasticsearch.annotation.query.TermFilter;
 import org.elasticsearch.mapping.IndexType;
 
 import alien4cloud.exception.IndexingServiceException;
+import alien4cloud.model.common.ITaggableResource;
 import alien4cloud.model.common.Tag;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
@@ -31,7 +32,7 @@ import com.fasterxml.jackson.annotation.JsonInclude.Include;
 @SuppressWarnings("PMD.UnusedPrivateField")
 @JsonInclude(Include.NON_NULL)
 @ESAll(analyser = "simple")
-public abstract class IndexedToscaElement {
+public abstract class IndexedToscaElement implements ITaggableResource {
     @FetchContext(contexts = { TAG_SUGGESTION }, include = { false })
     @StringField(indexType = IndexType.analyzed)
     @TermFilter
@@ -5,11 +5,13 @@ import lombok.Setter;
 
 import org.elasticsearch.annotation.BooleanField;
 import org.elasticsearch.annotation.Id;
+import org.elasticsearch.annotation.NumberField;
 import org.elasticsearch.annotation.StringField;
 import org.elasticsearch.annotation.query.TermFilter;
 import org.elasticsearch.mapping.IndexType;
 
 import alien4cloud.security.IManagedSecuredResource;
+import alien4cloud.utils.VersionUtil;
 
 @Getter
 @Setter
@@ -29,7 +31,14 @@ public abstract class AbstractTopologyVersion implements IManagedSecuredResource
     private boolean latest;
     @BooleanField(index = IndexType.not_analyzed)
     private boolean isSnapshot;
+    /** Numeric key derived from the version when saved so versions can be sorted by elasticsearch. */
+    @NumberField(index = IndexType.not_analyzed, includeInAll = false)
+    private long versionKey;
 
     public abstract void setDelegateId(String id);
 
+    public long getVersionKey() {
+        return version == null ? 0 : VersionUtil.toSortableKey(version);
+    }
+
 }
\ No newline at end of file
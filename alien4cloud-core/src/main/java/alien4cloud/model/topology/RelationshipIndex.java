@@ -0,0 +1,224 @@
+package alien4cloud.model.topology;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * In-memory adjacency index of the relationships of a topology: outgoing and incoming relationships by node template name.
+ *
+ * The index is built from the node templates of a loaded {@link Topology} (see {@link Topology#getRelationshipIndex()}) and is not persisted. Code that
+ * changes the relationships of the topology must either maintain the index through the update methods or invalidate it (
+ * {@link Topology#invalidateRelationshipIndex()}).
+ */
+public class RelationshipIndex {
+    /** Relationships by source node template name. */
+    private final Map<String, List<RelationshipReference>> outgoing = Maps.newHashMap();
+    /** Relationships by target node template name. */
+    private final Map<String, List<RelationshipReference>> incoming = Maps.newHashMap();
+
+    /**
+     * Build the index of the relationships of the given node templates.
+     *
+     * @param nodeTemplates The node templates of the topology, may be null.
+     */
+    public RelationshipIndex(Map<String, NodeTemplate> nodeTemplates) {
+        if (nodeTemplates == null) {
+            return;
+        }
+        for (Map.Entry<String, NodeTemplate> nodeTemplateEntry : nodeTemplates.entrySet()) {
+            Map<String, RelationshipTemplate> relationships = nodeTemplateEntry.getValue().getRelationships();
+            if (relationships == null) {
+                continue;
+            }
+            for (Map.Entry<String, RelationshipTemplate> relationshipEntry : relationships.entrySet()) {
+                addRelationship(nodeTemplateEntry.getKey(), relationshipEntry.getKey(), relationshipEntry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Get the relationships of which a node template is the source.
+     *
+     * @param nodeTemplateName The name of the source node template.
+     * @return The relationships from the node template, never null.
+     */
+    public List<RelationshipReference> getOutgoingRelationships(String nodeTemplateName) {
+        return unmodifiable(outgoing.get(nodeTemplateName));
+    }
+
+    /**
+     * Get the relationships of which a node template is the target.
+     *
+     * @param nodeTemplateName The name of the target node template.
+     * @return The relationships targeting the node template, never null.
+     */
+    public List<RelationshipReference> getIncomingRelationships(String nodeTemplateName) {
+        return unmodifiable(incoming.get(nodeTemplateName));
+    }
+
+    /**
+     * Get the relationship templates of which a node template is the target.
+     *
+     * @param nodeTemplateName The name of the target node template.
+     * @return The relationship templates targeting the node template, never null.
+     */
+    public List<RelationshipTemplate> getIncomingRelationshipTemplates(String nodeTemplateName) {
+        List<RelationshipTemplate> templates = Lists.newArrayList();
+        for (RelationshipReference reference : getIncomingRelationships(nodeTemplateName)) {
+            templates.add(reference.getTemplate());
+        }
+        return templates;
+    }
+
+    /**
+     * Register a relationship added to a node template.
+     *
+     * @param source The name of the source node template.
+     * @param relationshipName The name of the relationship in the source node template.
+     * @param relationshipTemplate The relationship template.
+     */
+    public void addRelationship(String source, String relationshipName, RelationshipTemplate relationshipTemplate) {
+        if (relationshipTemplate == null) {
+            return;
+        }
+        removeRelationship(source, relationshipName);
+        RelationshipReference reference = new RelationshipReference(source, relationshipName, relationshipTemplate);
+        get(outgoing, source).add(reference);
+        if (relationshipTemplate.getTarget() != null) {
+            get(incoming, relationshipTemplate.getTarget()).add(reference);
+        }
+    }
+
+    /**
+     * Unregister a relationship removed from a node template.
+     *
+     * @param source The name of the source node template.
+     * @param relationshipName The name of the relationship in the source node template.
+     * @return The removed relationship or null if the relationship was not indexed.
+     */
+    public RelationshipReference removeRelationship(String source, String relationshipName) {
+        RelationshipReference reference = remove(outgoing, source, relationshipName);
+        if (reference != null && reference.getTemplate().getTarget() != null) {
+            remove(incoming, reference.getTemplate().getTarget(), source, relationshipName);
+        }
+        return reference;
+    }
+
+    /**
+     * Unregister the relationships of which a node template is the source (when the node template is removed). The relationships targeting the node must be
+     * removed explicitly as they are defined on the other node templates.
+     *
+     * @param nodeTemplateName The name of the removed node template.
+     */
+    public void removeNode(String nodeTemplateName) {
+        for (RelationshipReference reference : Lists.newArrayList(getOutgoingRelationships(nodeTemplateName))) {
+            removeRelationship(nodeTemplateName, reference.getName());
+        }
+    }
+
+    /**
+     * Rename a node template in the index and update the target of the relationship templates that target it, this only visits the relationships of the
+     * renamed node.
+     *
+     * @param oldName The previous name of the node template.
+     * @param newName The new name of the node template.
+     */
+    public void renameNode(String oldName, String newName) {
+        List<RelationshipReference> targeting = incoming.remove(oldName);
+        List<RelationshipReference> from = outgoing.remove(oldName);
+        if (from != null) {
+            for (RelationshipReference reference : from) {
+                List<RelationshipReference> targetIncoming = incoming.get(reference.getTemplate().getTarget());
+                if (targetIncoming != null) {
+                    targetIncoming.remove(reference);
+                }
+                if (targeting != null && targeting.remove(reference)) {
+                    // relationship from the node to itself.
+                    reference.getTemplate().setTarget(newName);
+                }
+                addRelationship(newName, reference.getName(), reference.getTemplate());
+            }
+        }
+        if (targeting != null) {
+            for (RelationshipReference reference : targeting) {
+                reference.getTemplate().setTarget(newName);
+            }
+            get(incoming, newName).addAll(targeting);
+        }
+    }
+
+    /**
+     * Rename a relationship of a node template in the index.
+     *
+     * @param source The name of the source node template.
+     * @param oldName The previous name of the relationship.
+     * @param newName The new name of the relationship.
+     */
+    public void renameRelationship(String source, String oldName, String newName) {
+        RelationshipReference reference = removeRelationship(source, oldName);
+        if (reference != null) {
+            addRelationship(source, newName, reference.getTemplate());
+        }
+    }
+
+    private List<RelationshipReference> get(Map<String, List<RelationshipReference>> index, String nodeTemplateName) {
+        List<RelationshipReference> references = index.get(nodeTemplateName);
+        if (references == null) {
+            references = Lists.newArrayList();
+            index.put(nodeTemplateName, references);
+        }
+        return references;
+    }
+
+    private RelationshipReference remove(Map<String, List<RelationshipReference>> index, String nodeTemplateName, String relationshipName) {
+        return remove(index, nodeTemplateName, nodeTemplateName, relationshipName);
+    }
+
+    private RelationshipReference remove(Map<String, List<RelationshipReference>> index, String nodeTemplateName, String source, String relationshipName) {
+        List<RelationshipReference> references = index.get(nodeTemplateName);
+        if (references == null) {
+            return null;
+        }
+        Iterator<RelationshipReference> iterator = references.iterator();
+        while (iterator.hasNext()) {
+            RelationshipReference reference = iterator.next();
+            if (reference.getSource().equals(source) && reference.getName().equals(relationshipName)) {
+                iterator.remove();
+                if (references.isEmpty()) {
+                    index.remove(nodeTemplateName);
+                }
+                return reference;
+            }
+        }
+        return null;
+    }
+
+    private List<RelationshipReference> unmodifiable(List<RelationshipReference> references) {
+        if (references == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(references);
+    }
+
+    /**
+     * A relationship of the index: the relationship template with its source node template name and relationship name.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class RelationshipReference {
+        /** Name of the source node template. */
+        private final String source;
+        /** Name of the relationship in the source node template. */
+        private final String name;
+        /** The relationship template. */
+        private final RelationshipTemplate template;
+    }
+}
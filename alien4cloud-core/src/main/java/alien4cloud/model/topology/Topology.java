@@ -3,6 +3,7 @@ package alien4cloud.model.topology;
 import java.util.Map;
 import java.util.Set;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -23,6 +24,7 @@ import alien4cloud.utils.jackson.ConditionalOnAttribute;
 import alien4cloud.utils.jackson.JSonMapEntryArrayDeSerializer;
 import alien4cloud.utils.jackson.JSonMapEntryArraySerializer;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
@@ -114,4 +116,40 @@ public class Topology implements IManagedSecuredResource {
      * All the workflows associated with this topology.
      */
     private Map<String, Workflow> workflows;
+
+    /** Index of the relationships by source and target node template, built on demand and never persisted. */
+    @Setter(AccessLevel.NONE)
+    private transient volatile RelationshipIndex relationshipIndex;
+
+    public void setNodeTemplates(Map<String, NodeTemplate> nodeTemplates) {
+        this.nodeTemplates = nodeTemplates;
+        this.relationshipIndex = null;
+    }
+
+    /**
+     * Get the index of the relationships of the topology, the index is built on first access (once even when the topology is validated concurrently).
+     *
+     * @return The relationship index of the topology.
+     */
+    @JsonIgnore
+    public RelationshipIndex getRelationshipIndex() {
+        RelationshipIndex index = relationshipIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = relationshipIndex;
+                if (index == null) {
+                    index = new RelationshipIndex(nodeTemplates);
+                    relationshipIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Drop the relationship index so it is rebuilt on next access, to be called after relationships are changed without maintaining the index.
+     */
+    public void invalidateRelationshipIndex() {
+        relationshipIndex = null;
+    }
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package alien4cloud.paas.ha;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -22,6 +24,7 @@ import alien4cloud.utils.MappingUtil;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  * This allocator helps to allocate an availability zone to a compute based on its HA policy
@@ -66,28 +69,30 @@ public class AvailabilityZoneAllocator {
                 if (availabilityZones == null || availabilityZones.isEmpty()) {
                     throw new AvailabilityZoneConfigurationException(groupEntry.getKey(), "Need at least 1 availability zone configured to process allocation");
                 }
-                Map<AvailabilityZone, Integer> availabilityZoneRepartition = Maps.newHashMap();
-                for (AvailabilityZone availabilityZone : availabilityZones) {
-                    availabilityZoneRepartition.put(availabilityZone, 0);
-                }
-                for (PaaSNodeTemplate compute : groupEntry.getValue()) {
-                    AvailabilityZone existingAvz = haComputeMap.get(compute.getId());
-                    if (existingAvz != null) {
-                        Integer existingCount = availabilityZoneRepartition.get(existingAvz);
-                        if (existingCount == null) {
-                            log.warn(groupEntry.getKey(), "Attention AVZ mapping has been changed, the AVZ " + existingAvz.getId()
-                                    + " injected by the existing volume is no longer valid for this compute " + compute.getId());
-                        } else {
-                            availabilityZoneRepartition.put(existingAvz, existingCount + 1);
-                        }
-                    }
-                }
+                Map<AvailabilityZone, ZoneUsage> zoneUsages = newZoneUsages(availabilityZones);
+                List<PaaSNodeTemplate> computesToAllocate = Lists.newArrayList();
                 for (PaaSNodeTemplate compute : groupEntry.getValue()) {
                     AvailabilityZone existingAvz = haComputeMap.get(compute.getId());
                     if (existingAvz == null) {
-                        haComputeMap.put(compute.getId(), getLeastUsedAvailabilityZone(availabilityZoneRepartition));
+                        computesToAllocate.add(compute);
+                        continue;
+                    }
+                    ZoneUsage zoneUsage = zoneUsages.get(existingAvz);
+                    if (zoneUsage == null) {
+                        log.warn(groupEntry.getKey(), "Attention AVZ mapping has been changed, the AVZ " + existingAvz.getId()
+                                + " injected by the existing volume is no longer valid for this compute " + compute.getId());
+                    } else {
+                        zoneUsage.count++;
                     }
                 }
+                // least used zone first, zones are re-queued once their usage has been incremented
+                PriorityQueue<ZoneUsage> leastUsedZones = new PriorityQueue<>(zoneUsages.values());
+                for (PaaSNodeTemplate compute : computesToAllocate) {
+                    ZoneUsage leastUsedZone = leastUsedZones.poll();
+                    haComputeMap.put(compute.getId(), leastUsedZone.zone);
+                    leastUsedZone.count++;
+                    leastUsedZones.offer(leastUsedZone);
+                }
             }
         }
         return haComputeMap;
@@ -108,39 +113,32 @@ public class AvailabilityZoneAllocator {
         for (Map.Entry<String, List<PaaSNodeTemplate>> groupEntry : topology.getGroups().entrySet()) {
             String groupId = groupEntry.getKey();
             List<PaaSNodeTemplate> groupComputes = groupEntry.getValue();
-            Map<AvailabilityZone, Integer> repartitionMap = Maps.newHashMap();
             if (deploymentSetup.getAvailabilityZoneMapping() == null || !deploymentSetup.getAvailabilityZoneMapping().containsKey(groupId)) {
                 throw new AvailabilityZoneConfigurationException(groupId, "Ask to validate allocation on a topology with invalid deployment setup");
             }
-            for (AvailabilityZone matchedZone : deploymentSetup.getAvailabilityZoneMapping().get(groupId)) {
-                repartitionMap.put(matchedZone, 0);
-            }
+            Map<AvailabilityZone, ZoneUsage> zoneUsages = newZoneUsages(deploymentSetup.getAvailabilityZoneMapping().get(groupId));
             for (PaaSNodeTemplate groupCompute : groupComputes) {
                 AvailabilityZone allocatedZone = allocation.get(groupCompute.getId());
                 if (allocatedZone == null) {
                     allocationErrors.add(new AllocationError(AllocationErrorCode.NODE_NOT_ALLOCATED, groupId, groupCompute.getId()));
                     break;
-                } else if (!areStoragesInTheZone(groupCompute.getStorageNodes(), avzToPaaSResourceId.get(allocatedZone))) {
+                } else if (!areStoragesInTheZone(getStorageZones(groupCompute), avzToPaaSResourceId.get(allocatedZone))) {
                     allocationErrors.add(new AllocationError(AllocationErrorCode.NODE_HAS_VOLUME_NOT_IN_THE_SAME_ZONE, groupId, groupCompute.getId()));
                     break;
                 }
-                Integer existingCount = repartitionMap.get(allocatedZone);
-                if (existingCount == null) {
+                ZoneUsage zoneUsage = zoneUsages.get(allocatedZone);
+                if (zoneUsage == null) {
                     allocationErrors
                             .add(new AllocationError(AllocationErrorCode.NODE_HAS_ALLOCATED_ZONE_NOT_IN_DEPLOYMENT_SETUP, groupId, groupCompute.getId()));
                 } else {
-                    repartitionMap.put(allocatedZone, existingCount + 1);
+                    zoneUsage.count++;
                 }
             }
             int mostUsed = 0;
             int leastUsed = Integer.MAX_VALUE;
-            for (Map.Entry<AvailabilityZone, Integer> availabilityZoneRepartitionEntry : repartitionMap.entrySet()) {
-                if (availabilityZoneRepartitionEntry.getValue() > mostUsed) {
-                    mostUsed = availabilityZoneRepartitionEntry.getValue();
-                }
-                if (availabilityZoneRepartitionEntry.getValue() < leastUsed) {
-                    leastUsed = availabilityZoneRepartitionEntry.getValue();
-                }
+            for (ZoneUsage zoneUsage : zoneUsages.values()) {
+                mostUsed = Math.max(mostUsed, zoneUsage.count);
+                leastUsed = Math.min(leastUsed, zoneUsage.count);
             }
             if (mostUsed - leastUsed > 1) {
                 allocationErrors.add(new AllocationError(AllocationErrorCode.ZONES_NOT_DISTRIBUTED_EQUALLY, groupId, null));
@@ -149,27 +147,36 @@ public class AvailabilityZoneAllocator {
         return allocationErrors;
     }
 
-    private boolean areStoragesInTheZone(List<PaaSNodeTemplate> storageNodes, String zoneToCheck) {
-        for (PaaSNodeTemplate volume : storageNodes) {
-            String volumeAVZ = getAvailabilityZone(volume);
-            if (volumeAVZ != null && !volumeAVZ.equals(zoneToCheck)) {
-                return false;
+    private Map<AvailabilityZone, ZoneUsage> newZoneUsages(Collection<AvailabilityZone> availabilityZones) {
+        // linked so that zones with the same usage are always taken in the configuration order
+        Map<AvailabilityZone, ZoneUsage> zoneUsages = Maps.newLinkedHashMap();
+        for (AvailabilityZone availabilityZone : availabilityZones) {
+            if (!zoneUsages.containsKey(availabilityZone)) {
+                zoneUsages.put(availabilityZone, new ZoneUsage(availabilityZone, zoneUsages.size()));
             }
         }
-        return true;
+        return zoneUsages;
     }
 
-    AvailabilityZone getLeastUsedAvailabilityZone(Map<AvailabilityZone, Integer> availabilityZoneRepartition) {
-        AvailabilityZone leastUsed = null;
-        int leastUsedCount = 0;
-        for (Map.Entry<AvailabilityZone, Integer> repartitionEntry : availabilityZoneRepartition.entrySet()) {
-            if (leastUsed == null || leastUsedCount > repartitionEntry.getValue()) {
-                leastUsed = repartitionEntry.getKey();
-                leastUsedCount = repartitionEntry.getValue();
+    /**
+     * Get the zones of the volumes attached to a compute.
+     *
+     * @param compute The compute for which to get the zones.
+     * @return The zones in which the volumes of the compute are, volumes that are not yet created (without zone) are ignored.
+     */
+    private Set<String> getStorageZones(PaaSNodeTemplate compute) {
+        Set<String> storageZones = Sets.newHashSet();
+        for (PaaSNodeTemplate volume : compute.getStorageNodes()) {
+            String volumeAVZ = getAvailabilityZone(volume);
+            if (volumeAVZ != null) {
+                storageZones.add(volumeAVZ);
             }
         }
-        availabilityZoneRepartition.put(leastUsed, leastUsedCount + 1);
-        return leastUsed;
+        return storageZones;
+    }
+
+    private boolean areStoragesInTheZone(Set<String> storageZones, String zoneToCheck) {
+        return storageZones.isEmpty() || (storageZones.size() == 1 && storageZones.contains(zoneToCheck));
     }
 
     String getAvailabilityZone(PaaSNodeTemplate volume) {
@@ -186,4 +193,27 @@ public class AvailabilityZoneAllocator {
         }
         return null;
     }
+
+    /**
+     * Number of computes allocated to a zone.
+     */
+    private static class ZoneUsage implements Comparable<ZoneUsage> {
+        private final AvailabilityZone zone;
+        /** Position of the zone in the configuration, used to order zones with the same usage. */
+        private final int order;
+        private int count;
+
+        private ZoneUsage(AvailabilityZone zone, int order) {
+            this.zone = zone;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(ZoneUsage other) {
+            if (count != other.count) {
+                return count < other.count ? -1 : 1;
+            }
+            return order < other.order ? -1 : (order == other.order ? 0 : 1);
+        }
+    }
 }
@@ -10,14 +10,13 @@ import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 
-import org.apache.commons.lang3.ArrayUtils;
-
 import alien4cloud.model.components.Interface;
 import alien4cloud.model.components.Operation;
 import alien4cloud.paas.model.PaaSNodeTemplate;
 import alien4cloud.paas.model.PaaSRelationshipTemplate;
 import alien4cloud.utils.MapUtil;
 
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 /**
@@ -26,6 +25,8 @@ import com.google.common.collect.Sets;
 public abstract class AbstractPlanGenerator {
     // last processed step.
     private WorkflowStep lastStep;
+    // states reached on the synchronous line of steps that leads to the last step.
+    private SyncStates syncStates;
 
     /**
      * Generate a plan for a nodes hierarchy.
@@ -35,6 +36,7 @@ public abstract class AbstractPlanGenerator {
     public StartEvent generate(List<PaaSNodeTemplate> roots) {
         StartEvent startEvent = new StartEvent();
         lastStep = startEvent;
+        syncStates = new SyncStates(null);
         parallel(roots);
         return startEvent;
     }
@@ -48,6 +50,7 @@ public abstract class AbstractPlanGenerator {
     public StartEvent generate(PaaSNodeTemplate node) {
         StartEvent startEvent = new StartEvent();
         lastStep = startEvent;
+        syncStates = new SyncStates(null);
         generateNodeWorkflow(node);
         return startEvent;
     }
@@ -72,14 +75,21 @@ public abstract class AbstractPlanGenerator {
      */
     protected void parallel(List<PaaSNodeTemplate> nodes) {
         WorkflowStep previousStep = lastStep;
+        SyncStates previousSyncStates = syncStates;
+        SyncStates lastInnerSyncStates = previousSyncStates;
         ParallelGateway gateway = new ParallelGateway();
         gateway.setPreviousStep(previousStep);
         for (PaaSNodeTemplate node : nodes) {
             lastStep = gateway;
+            // states reached in a parallel branch are not reached synchronously for the other branches
+            syncStates = new SyncStates(previousSyncStates);
             generateNodeWorkflow(node);
             gateway.setLastInnerStep(lastStep);
+            lastInnerSyncStates = syncStates;
         }
         gateway.close();
+        // as for the steps, only the states of a single branch remain synchronous after the gateway
+        syncStates = gateway.getParallelSteps().size() == 1 ? lastInnerSyncStates : previousSyncStates;
         if (gateway.getParallelSteps().size() > 1) {
             if (previousStep instanceof ParallelGateway) {
                 lastStep = ((ParallelGateway) previousStep).addParallelStep(gateway);
@@ -108,6 +118,7 @@ public abstract class AbstractPlanGenerator {
      */
     protected void state(String id, String state) {
         next(new StateUpdateEvent(id, state));
+        syncStates.add(id, state);
     }
 
     /**
@@ -220,17 +231,7 @@ public abstract class AbstractPlanGenerator {
      * @return True if the state exists in the synchronous workflow line.
      */
     private boolean isStateSyncPrevious(String nodeId, String... states) {
-        WorkflowStep previousStep = lastStep;
-        while (previousStep != null) {
-            if (previousStep instanceof StateUpdateEvent) {
-                StateUpdateEvent sue = (StateUpdateEvent) previousStep;
-                if (sue.getElementId().equals(nodeId) && ArrayUtils.contains(states, sue.getState())) {
-                    return true;
-                }
-            }
-            previousStep = previousStep.getPreviousStep();
-        }
-        return false;
+        return syncStates.containsAny(nodeId, states);
     }
 
     /**
@@ -381,6 +382,42 @@ public abstract class AbstractPlanGenerator {
         return interfaces == null ? null : interfaces.get(interfaceName);
     }
 
+    /**
+     * States reached by nodes on the synchronous line of steps, this is equivalent to the {@link StateUpdateEvent} found by walking back the previous steps
+     * from the last step. States reached before the current parallel branch are held by the parent so branches don't have to copy them.
+     */
+    private static class SyncStates {
+        private final SyncStates parent;
+        private final Map<String, Set<String>> statesPerNode = Maps.newHashMap();
+
+        private SyncStates(SyncStates parent) {
+            this.parent = parent;
+        }
+
+        private void add(String nodeId, String state) {
+            Set<String> states = statesPerNode.get(nodeId);
+            if (states == null) {
+                states = Sets.newHashSet();
+                statesPerNode.put(nodeId, states);
+            }
+            states.add(state);
+        }
+
+        private boolean containsAny(String nodeId, String[] states) {
+            for (SyncStates current = this; current != null; current = current.parent) {
+                Set<String> nodeStates = current.statesPerNode.get(nodeId);
+                if (nodeStates != null) {
+                    for (String state : states) {
+                        if (nodeStates.contains(state)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
     @NoArgsConstructor
     @AllArgsConstructor
     protected class RelationshipMember {
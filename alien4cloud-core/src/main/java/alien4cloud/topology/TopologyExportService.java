@@ -0,0 +1,71 @@
+package alien4cloud.topology;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Service;
+
+import alien4cloud.component.repository.ICsarRepositry;
+import alien4cloud.component.repository.exception.CSARVersionNotFoundException;
+import alien4cloud.exception.NotFoundException;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.topology.Topology;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Export a topology together with the archives it depends on as a single zip.
+ */
+@Service
+public class TopologyExportService {
+    public static final String TOPOLOGY_ENTRY = "topology.yml";
+    public static final String ARCHIVES_DIRECTORY = "archives/";
+
+    @Resource
+    private TopologyService topologyService;
+    @Resource
+    private ICsarRepositry archiveRepositry;
+
+    /**
+     * Write a zip that contains the TOSCA definition of the topology and the archives of its dependencies. Entries are streamed so memory usage doesn't
+     * depend on the size of the archives. The stream is not closed.
+     *
+     * @param topology The topology to export.
+     * @param outputStream The stream in which to write the zip.
+     * @throws IOException In case the zip cannot be written.
+     * @throws NotFoundException In case an archive the topology depends on cannot be found, nothing has been written then.
+     */
+    public void export(Topology topology, OutputStream outputStream) throws IOException {
+        // resolve all the archives before writing so a missing one is reported before the response is committed
+        List<Path> archivePaths = Lists.newArrayList();
+        if (topology.getDependencies() != null) {
+            for (CSARDependency dependency : topology.getDependencies()) {
+                try {
+                    archivePaths.add(archiveRepositry.getCSAR(dependency.getName(), dependency.getVersion()));
+                } catch (CSARVersionNotFoundException e) {
+                    throw new NotFoundException("Archive [" + dependency.getName() + ":" + dependency.getVersion() + "] of topology [" + topology.getId()
+                            + "] cannot be found", e);
+                }
+            }
+        }
+
+        ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+        zipOutputStream.putNextEntry(new ZipEntry(TOPOLOGY_ENTRY));
+        topologyService.writeYaml(topology, zipOutputStream);
+        zipOutputStream.closeEntry();
+        for (Path archivePath : archivePaths) {
+            zipOutputStream.putNextEntry(new ZipEntry(ARCHIVES_DIRECTORY + archivePath.getFileName().toString()));
+            Files.copy(archivePath, zipOutputStream);
+            zipOutputStream.closeEntry();
+        }
+        // complete the zip without closing the underlying stream
+        zipOutputStream.finish();
+    }
+}
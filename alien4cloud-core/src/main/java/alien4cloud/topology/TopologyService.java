@@ -1,6 +1,7 @@
 package alien4cloud.topology;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.util.Collection;
 import java.util.HashMap;
@@ -43,7 +44,6 @@ import alien4cloud.model.topology.AbstractTopologyVersion;
 import alien4cloud.model.topology.NodeTemplate;
 import alien4cloud.model.topology.RelationshipTemplate;
 import alien4cloud.model.topology.Topology;
-import alien4cloud.rest.utils.JsonUtil;
 import alien4cloud.security.AuthorizationUtil;
 import alien4cloud.security.model.ApplicationRole;
 import alien4cloud.security.model.Role;
@@ -62,6 +62,7 @@ import com.google.common.collect.Sets;
 @Slf4j
 @Service
 public class TopologyService {
+    private static final String TOPOLOGY_YAML_TEMPLATE = "templates/topology-1_0_0_wd03.yml.vm";
 
     @Resource
     private CSARRepositorySearchService csarRepoSearchService;
@@ -86,8 +87,9 @@ public class TopologyService {
 
     private ToscaTypeLoader initializeTypeLoader(Topology topology) {
         ToscaTypeLoader loader = new ToscaTypeLoader(csarService);
-        Map<String, IndexedNodeType> nodeTypes = topologyServiceCore.getIndexedNodeTypesFromTopology(topology, false, false);
-        Map<String, IndexedRelationshipType> relationshipTypes = topologyServiceCore.getIndexedRelationshipTypesFromTopology(topology);
+        TopologyTypesContext typesContext = TopologyTypesContext.load(csarRepoSearchService, topology);
+        Map<String, IndexedNodeType> nodeTypes = topologyServiceCore.getIndexedNodeTypesFromTopology(topology, false, false, typesContext);
+        Map<String, IndexedRelationshipType> relationshipTypes = topologyServiceCore.getIndexedRelationshipTypesFromTopology(topology, typesContext);
         if (topology.getNodeTemplates() != null) {
             for (NodeTemplate nodeTemplate : topology.getNodeTemplates().values()) {
                 IndexedNodeType nodeType = nodeTypes.get(nodeTemplate.getType());
@@ -116,13 +118,27 @@ public class TopologyService {
      * @return A map of capability types defined in the given node types.
      */
     public Map<String, IndexedCapabilityType> getIndexedCapabilityTypes(Collection<IndexedNodeType> nodeTypes, Collection<CSARDependency> dependencies) {
+        TopologyTypesContext typesContext = new TopologyTypesContext(csarRepoSearchService, Sets.newHashSet(dependencies));
+        typesContext.preloadCapabilityTypes(nodeTypes);
+        return getIndexedCapabilityTypes(nodeTypes, typesContext);
+    }
+
+    /**
+     * Get a map of all capability types defined in the given node types.
+     *
+     * @param nodeTypes The collection of node types for which to get capabilities.
+     * @param typesContext The context from which to get the capability types.
+     * @return A map of capability types defined in the given node types.
+     */
+    public Map<String, IndexedCapabilityType> getIndexedCapabilityTypes(Collection<IndexedNodeType> nodeTypes, TopologyTypesContext typesContext) {
         Map<String, IndexedCapabilityType> capabilityTypes = Maps.newHashMap();
         for (IndexedNodeType nodeType : nodeTypes) {
             if (nodeType.getCapabilities() != null) {
                 for (CapabilityDefinition capabilityDefinition : nodeType.getCapabilities()) {
-                    IndexedCapabilityType capabilityType = csarRepoSearchService.getRequiredElementInDependencies(IndexedCapabilityType.class,
-                            capabilityDefinition.getType(), dependencies);
-                    capabilityTypes.put(capabilityDefinition.getType(), capabilityType);
+                    if (!capabilityTypes.containsKey(capabilityDefinition.getType())) {
+                        capabilityTypes.put(capabilityDefinition.getType(),
+                                typesContext.getRequiredElement(IndexedCapabilityType.class, capabilityDefinition.getType()));
+                    }
                 }
             }
         }
@@ -194,19 +210,17 @@ public class TopologyService {
         }
 
         // process the node template target of relationships
-        List<RelationshipTemplate> relTemplatesTargetRelated = topologyServiceCore.getTargetRelatedRelatonshipsTemplate(nodeTempEntry.getKey(),
-                topology.getNodeTemplates());
+        List<RelationshipTemplate> relTemplatesTargetRelated = topologyServiceCore.getTargetRelatedRelatonshipsTemplate(nodeTempEntry.getKey(), topology);
         for (RelationshipTemplate relationshipTemplate : relTemplatesTargetRelated) {
             addFilters(nodeTempEntry.getKey(), capabilityFilterKey, relationshipTemplate.getRequirementType(), nodeTemplatesToFilters);
         }
 
     }
 
-    private IndexedNodeType[] getIndexedNodeTypesFromSearchResponse(final GetMultipleDataResult searchResult, final IndexedNodeType toExcludeIndexedNodeType)
-            throws IOException {
+    private IndexedNodeType[] getIndexedNodeTypesFromSearchResponse(final GetMultipleDataResult<IndexedNodeType> searchResult,
+            final IndexedNodeType toExcludeIndexedNodeType) {
         IndexedNodeType[] toReturnArray = null;
-        for (int j = 0; j < searchResult.getData().length; j++) {
-            IndexedNodeType nodeType = JsonUtil.readObject(JsonUtil.toString(searchResult.getData()[j]), IndexedNodeType.class);
+        for (IndexedNodeType nodeType : searchResult.getData()) {
             if (toExcludeIndexedNodeType == null || !nodeType.getId().equals(toExcludeIndexedNodeType.getId())) {
                 toReturnArray = ArrayUtils.add(toReturnArray, nodeType);
             }
@@ -216,28 +230,40 @@ public class TopologyService {
 
     /**
      * Search for nodeTypes given some filters. Apply AND filter strategy when multiple values for a filter key.
+     *
+     * Node templates that share the same filters share the same search and all the searches are sent to elastic search in a single multi-search request.
      */
     public List<SuggestionsTask> searchForNodeTypes(Map<String, Map<String, Set<String>>> nodeTemplatesToFilters,
             Map<String, IndexedNodeType> toExcludeIndexedNodeTypes) throws IOException {
         if (nodeTemplatesToFilters == null || nodeTemplatesToFilters.isEmpty()) {
             return null;
         }
+        // build a single search for every distinct set of filters
+        Map<Map<String, Set<String>>, Integer> searchIndexes = Maps.newHashMap();
+        List<Map<String, String[]>> searchFilters = Lists.newArrayList();
+        Map<String, FilterValuesStrategy> filterValueStrategy = Maps.newHashMap();
+        for (Map<String, Set<String>> filters : nodeTemplatesToFilters.values()) {
+            if (filters == null || searchIndexes.containsKey(filters)) {
+                continue;
+            }
+            Map<String, String[]> formattedFilters = Maps.newHashMap();
+            for (Map.Entry<String, Set<String>> filterEntry : filters.entrySet()) {
+                formattedFilters.put(filterEntry.getKey(), filterEntry.getValue().toArray(new String[filterEntry.getValue().size()]));
+                // AND strategy if multiple values
+                filterValueStrategy.put(filterEntry.getKey(), FilterValuesStrategy.AND);
+            }
+            // retrieve only non abstract components
+            formattedFilters.put("abstract", ArrayUtils.toArray("false"));
+            searchIndexes.put(filters, searchFilters.size());
+            searchFilters.add(formattedFilters);
+        }
+        List<GetMultipleDataResult<IndexedNodeType>> searchResults = alienDAO.multiSearch(IndexedNodeType.class, searchFilters, filterValueStrategy, 20);
+
         List<SuggestionsTask> toReturnTasks = Lists.newArrayList();
         for (Map.Entry<String, Map<String, Set<String>>> nodeTemplatesToFiltersEntry : nodeTemplatesToFilters.entrySet()) {
-            Map<String, String[]> formattedFilters = Maps.newHashMap();
-            Map<String, FilterValuesStrategy> filterValueStrategy = Maps.newHashMap();
             IndexedNodeType[] data = null;
             if (nodeTemplatesToFiltersEntry.getValue() != null) {
-                for (Map.Entry<String, Set<String>> filterEntry : nodeTemplatesToFiltersEntry.getValue().entrySet()) {
-                    formattedFilters.put(filterEntry.getKey(), filterEntry.getValue().toArray(new String[filterEntry.getValue().size()]));
-                    // AND strategy if multiple values
-                    filterValueStrategy.put(filterEntry.getKey(), FilterValuesStrategy.AND);
-                }
-
-                // retrieve only non abstract components
-                formattedFilters.put("abstract", ArrayUtils.toArray("false"));
-
-                GetMultipleDataResult searchResult = alienDAO.search(IndexedNodeType.class, null, formattedFilters, filterValueStrategy, 20);
+                GetMultipleDataResult<IndexedNodeType> searchResult = searchResults.get(searchIndexes.get(nodeTemplatesToFiltersEntry.getValue()));
                 data = getIndexedNodeTypesFromSearchResponse(searchResult, toExcludeIndexedNodeTypes.get(nodeTemplatesToFiltersEntry.getKey()));
             }
             TaskCode taskCode = data == null || data.length < 1 ? TaskCode.IMPLEMENT : TaskCode.REPLACE;
@@ -308,9 +334,10 @@ public class TopologyService {
      * @return The {@link TopologyDTO} that contains the given topology
      */
     public TopologyDTO buildTopologyDTO(Topology topology) {
-        Map<String, IndexedNodeType> nodeTypes = topologyServiceCore.getIndexedNodeTypesFromTopology(topology, false, false);
-        Map<String, IndexedRelationshipType> relationshipTypes = topologyServiceCore.getIndexedRelationshipTypesFromTopology(topology);
-        Map<String, IndexedCapabilityType> capabilityTypes = getIndexedCapabilityTypes(nodeTypes.values(), topology.getDependencies());
+        TopologyTypesContext typesContext = TopologyTypesContext.load(csarRepoSearchService, topology);
+        Map<String, IndexedNodeType> nodeTypes = topologyServiceCore.getIndexedNodeTypesFromTopology(topology, false, false, typesContext);
+        Map<String, IndexedRelationshipType> relationshipTypes = topologyServiceCore.getIndexedRelationshipTypesFromTopology(topology, typesContext);
+        Map<String, IndexedCapabilityType> capabilityTypes = getIndexedCapabilityTypes(nodeTypes.values(), typesContext);
         String yaml = getYaml(topology);
         Map<String, Map<String, Set<String>>> outputCapabilityProperties = topology.getOutputCapabilityProperties();
         return new TopologyDTO(topology, nodeTypes, relationshipTypes, capabilityTypes, outputCapabilityProperties, yaml);
@@ -445,7 +472,35 @@ public class TopologyService {
         return topologyTemplate;
     }
 
+    /**
+     * Render a topology as a TOSCA YAML definition.
+     *
+     * @param topology The topology to render.
+     * @return The YAML definition of the topology or the stack trace of the error if the rendering failed.
+     */
     public String getYaml(Topology topology) {
+        try {
+            StringWriter writer = new StringWriter();
+            VelocityUtil.generate(TOPOLOGY_YAML_TEMPLATE, writer, buildYamlContext(topology));
+            return writer.toString();
+        } catch (Exception e) {
+            log.error("Exception while templating YAML for topology " + topology.getId(), e);
+            return ExceptionUtils.getFullStackTrace(e);
+        }
+    }
+
+    /**
+     * Render a topology as a TOSCA YAML definition directly into a stream (http response, zip entry...), the stream is not closed.
+     *
+     * @param topology The topology to render.
+     * @param outputStream The stream in which to write the YAML definition.
+     * @throws IOException In case the definition cannot be written.
+     */
+    public void writeYaml(Topology topology, OutputStream outputStream) throws IOException {
+        VelocityUtil.generate(TOPOLOGY_YAML_TEMPLATE, outputStream, buildYamlContext(topology));
+    }
+
+    private Map<String, Object> buildYamlContext(Topology topology) {
         Map<String, Object> velocityCtx = new HashMap<>();
         velocityCtx.put("topology", topology);
         velocityCtx.put("template_name", "template-id");
@@ -471,16 +526,7 @@ public class TopologyService {
                 velocityCtx.put("template_version", version.getVersion());
             }
         }
-
-        try {
-            StringWriter writer = new StringWriter();
-            VelocityUtil.generate("templates/topology-1_0_0_wd03.yml.vm", writer, velocityCtx);
-            return writer.toString();
-        } catch (Exception e) {
-            log.error("Exception while templating YAML for topology " + topology.getId(), e);
-            return ExceptionUtils.getFullStackTrace(e);
-        }
-
+        return velocityCtx;
     }
 
 }
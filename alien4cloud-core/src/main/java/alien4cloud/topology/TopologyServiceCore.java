@@ -9,11 +9,14 @@ import java.util.UUID;
 
 import javax.annotation.Resource;
 
+import lombok.Setter;
+
 import org.apache.commons.collections4.MapUtils;
 import org.elasticsearch.common.collect.Lists;
 import org.elasticsearch.common.collect.Sets;
 import org.springframework.stereotype.Service;
 
+import alien4cloud.application.TopologySubstitutionGraph;
 import alien4cloud.component.ICSARRepositoryIndexerService;
 import alien4cloud.component.ICSARRepositorySearchService;
 import alien4cloud.component.IToscaElementFinder;
@@ -66,6 +69,10 @@ public class TopologyServiceCore {
     @Resource
     private ICSARRepositoryIndexerService indexerService;
 
+    @Resource
+    @Setter
+    private TopologySubstitutionGraph topologySubstitutionGraph;
+
     /**
      * The default tosca element finder will search into repo.
      */
@@ -146,14 +153,29 @@ public class TopologyServiceCore {
      * @return A map of indexed node types.
      */
     public Map<String, IndexedNodeType> getIndexedNodeTypesFromTopology(Topology topology, boolean abstractOnly, boolean useTemplateNameAsKey) {
+        return getIndexedNodeTypesFromTopology(topology, abstractOnly, useTemplateNameAsKey, new TopologyTypesContext(csarRepoSearchService,
+                topology.getDependencies()));
+    }
+
+    /**
+     * Get the indexed node types used in a topology.
+     *
+     * @param topology The topology for which to get indexed node types.
+     * @param abstractOnly If true, only abstract types will be retrieved.
+     * @param useTemplateNameAsKey If true the name of the node template will be used as key for the type in the returned map, if not the type will be used as
+     *            key.
+     * @param typesContext The context from which to get the types of the topology.
+     * @return A map of indexed node types.
+     */
+    public Map<String, IndexedNodeType> getIndexedNodeTypesFromTopology(Topology topology, boolean abstractOnly, boolean useTemplateNameAsKey,
+            TopologyTypesContext typesContext) {
         Map<String, IndexedNodeType> nodeTypes = Maps.newHashMap();
         if (topology.getNodeTemplates() == null) {
             return nodeTypes;
         }
         for (Map.Entry<String, NodeTemplate> template : topology.getNodeTemplates().entrySet()) {
             if (!nodeTypes.containsKey(template.getValue().getType())) {
-                IndexedNodeType nodeType = csarRepoSearchService.getRequiredElementInDependencies(IndexedNodeType.class, template.getValue().getType(),
-                        topology.getDependencies());
+                IndexedNodeType nodeType = typesContext.getRequiredElement(IndexedNodeType.class, template.getValue().getType());
                 if (!abstractOnly || nodeType.isAbstract()) {
                     String key = useTemplateNameAsKey ? template.getKey() : template.getValue().getType();
                     nodeTypes.put(key, nodeType);
@@ -170,6 +192,17 @@ public class TopologyServiceCore {
      * @return the map containing rel
      */
     public Map<String, IndexedRelationshipType> getIndexedRelationshipTypesFromTopology(Topology topology) {
+        return getIndexedRelationshipTypesFromTopology(topology, new TopologyTypesContext(csarRepoSearchService, topology.getDependencies()));
+    }
+
+    /**
+     * Get IndexedRelationshipType in a topology
+     *
+     * @param topology the topology to find all relationship types
+     * @param typesContext The context from which to get the types of the topology.
+     * @return the map containing relationship types by id
+     */
+    public Map<String, IndexedRelationshipType> getIndexedRelationshipTypesFromTopology(Topology topology, TopologyTypesContext typesContext) {
         Map<String, IndexedRelationshipType> relationshipTypes = Maps.newHashMap();
         if (topology.getNodeTemplates() == null) {
             return relationshipTypes;
@@ -180,8 +213,7 @@ public class TopologyServiceCore {
                 for (Map.Entry<String, RelationshipTemplate> relationshipEntry : template.getRelationships().entrySet()) {
                     RelationshipTemplate relationship = relationshipEntry.getValue();
                     if (!relationshipTypes.containsKey(relationship.getType())) {
-                        IndexedRelationshipType relationshipType = csarRepoSearchService.getRequiredElementInDependencies(IndexedRelationshipType.class,
-                                relationship.getType(), topology.getDependencies());
+                        IndexedRelationshipType relationshipType = typesContext.getRequiredElement(IndexedRelationshipType.class, relationship.getType());
                         relationshipTypes.put(relationship.getType(), relationshipType);
                     }
                 }
@@ -197,6 +229,17 @@ public class TopologyServiceCore {
      * @return the map containing rel
      */
     public Map<String, IndexedCapabilityType> getIndexedCapabilityTypesFromTopology(Topology topology) {
+        return getIndexedCapabilityTypesFromTopology(topology, new TopologyTypesContext(csarRepoSearchService, topology.getDependencies()));
+    }
+
+    /**
+     * Get IndexedCapabilityType in a topology
+     *
+     * @param topology the topology to find all capability types
+     * @param typesContext The context from which to get the types of the topology.
+     * @return the map containing capability types by id
+     */
+    public Map<String, IndexedCapabilityType> getIndexedCapabilityTypesFromTopology(Topology topology, TopologyTypesContext typesContext) {
         Map<String, IndexedCapabilityType> capabilityTypes = Maps.newHashMap();
         if (topology.getNodeTemplates() == null) {
             return capabilityTypes;
@@ -207,8 +250,7 @@ public class TopologyServiceCore {
                 for (Map.Entry<String, Capability> capabilityEntry : template.getCapabilities().entrySet()) {
                     Capability capability = capabilityEntry.getValue();
                     if (!capabilityTypes.containsKey(capability.getType())) {
-                        IndexedCapabilityType capabilityType = csarRepoSearchService.getRequiredElementInDependencies(IndexedCapabilityType.class,
-                                capability.getType(), topology.getDependencies());
+                        IndexedCapabilityType capabilityType = typesContext.getRequiredElement(IndexedCapabilityType.class, capability.getType());
                         capabilityTypes.put(capability.getType(), capabilityType);
                     }
                 }
@@ -368,28 +410,11 @@ public class TopologyServiceCore {
      * Get all the relationships in which a given node template is a target
      *
      * @param nodeTemplateName the name of the node template which is target for relationship
-     * @param nodeTemplates all topology's node templates
+     * @param topology the topology, relationships are taken from its relationship index
      * @return all relationships which have nodeTemplateName as target
      */
-    public List<RelationshipTemplate> getTargetRelatedRelatonshipsTemplate(String nodeTemplateName, Map<String, NodeTemplate> nodeTemplates) {
-        List<RelationshipTemplate> toReturn = Lists.newArrayList();
-        for (String key : nodeTemplates.keySet()) {
-            NodeTemplate nodeTemp = nodeTemplates.get(key);
-            if (nodeTemp.getRelationships() == null) {
-                continue;
-            }
-            for (String key2 : nodeTemp.getRelationships().keySet()) {
-                RelationshipTemplate relTemp = nodeTemp.getRelationships().get(key2);
-                if (relTemp == null) {
-                    continue;
-                }
-                if (relTemp.getTarget() != null && relTemp.getTarget().equals(nodeTemplateName)) {
-                    toReturn.add(relTemp);
-                }
-            }
-        }
-
-        return toReturn;
+    public List<RelationshipTemplate> getTargetRelatedRelatonshipsTemplate(String nodeTemplateName, Topology topology) {
+        return topology.getRelationshipIndex().getIncomingRelationshipTemplates(nodeTemplateName);
     }
 
     public TopologyTemplate searchTopologyTemplateByName(String name) {
@@ -546,6 +571,8 @@ public class TopologyServiceCore {
             }
         }
         indexerService.indexInheritableElement(csar.getName(), csar.getVersion(), topologyTemplateType, inheritanceDependencies);
+        // the type may now be substituted by another topology (archive uploaded again)
+        topologySubstitutionGraph.invalidateAll();
     }
 
 }
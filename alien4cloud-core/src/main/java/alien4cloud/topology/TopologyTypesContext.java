@@ -0,0 +1,192 @@
+package alien4cloud.topology;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import lombok.Getter;
+
+import alien4cloud.component.ICSARRepositorySearchService;
+import alien4cloud.component.IToscaElementFinder;
+import alien4cloud.exception.NotFoundException;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.CapabilityDefinition;
+import alien4cloud.model.components.IndexedCapabilityType;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedRelationshipType;
+import alien4cloud.model.components.IndexedToscaElement;
+import alien4cloud.model.components.RequirementDefinition;
+import alien4cloud.model.topology.Capability;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.RelationshipTemplate;
+import alien4cloud.model.topology.Requirement;
+import alien4cloud.model.topology.Topology;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Resolves the TOSCA types referenced by a topology once and serves every later lookup from memory. A context is meant to be used for a single request (a
+ * validation or the build of a topology DTO) and may be shared by threads processing the same topology.
+ */
+public class TopologyTypesContext implements IToscaElementFinder {
+    /** Marker for elements that cannot be found in the dependencies. */
+    private static final Object NOT_FOUND = new Object();
+
+    private final ICSARRepositorySearchService searchService;
+    @Getter
+    private final Set<CSARDependency> dependencies;
+    private final ConcurrentMap<String, Object> elements = new ConcurrentHashMap<String, Object>();
+
+    public TopologyTypesContext(ICSARRepositorySearchService searchService, Set<CSARDependency> dependencies) {
+        this.searchService = searchService;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Create a context for a topology and resolve all node, relationship and capability types it references (including the capability types of the node
+     * types definitions) with one request per kind of type.
+     *
+     * @param searchService The search service used to resolve the types.
+     * @param topology The topology for which to create the context.
+     * @return The context with all referenced types loaded.
+     */
+    public static TopologyTypesContext load(ICSARRepositorySearchService searchService, Topology topology) {
+        TopologyTypesContext context = new TopologyTypesContext(searchService, topology.getDependencies());
+        if (topology.getNodeTemplates() == null) {
+            return context;
+        }
+        Set<String> nodeTypes = Sets.newHashSet();
+        Set<String> relationshipTypes = Sets.newHashSet();
+        Set<String> capabilityTypes = Sets.newHashSet();
+        for (NodeTemplate nodeTemplate : topology.getNodeTemplates().values()) {
+            nodeTypes.add(nodeTemplate.getType());
+            if (nodeTemplate.getRelationships() != null) {
+                for (RelationshipTemplate relationshipTemplate : nodeTemplate.getRelationships().values()) {
+                    relationshipTypes.add(relationshipTemplate.getType());
+                }
+            }
+            if (nodeTemplate.getCapabilities() != null) {
+                for (Capability capability : nodeTemplate.getCapabilities().values()) {
+                    capabilityTypes.add(capability.getType());
+                }
+            }
+            if (nodeTemplate.getRequirements() != null) {
+                for (Requirement requirement : nodeTemplate.getRequirements().values()) {
+                    capabilityTypes.add(requirement.getType());
+                }
+            }
+        }
+        context.preload(IndexedNodeType.class, nodeTypes);
+        context.preload(IndexedRelationshipType.class, relationshipTypes);
+        // capability types may also be referenced only by the definitions of the node types
+        for (String nodeType : nodeTypes) {
+            addDefinitionsCapabilityTypes(context.getElement(IndexedNodeType.class, nodeType), capabilityTypes);
+        }
+        context.preload(IndexedCapabilityType.class, capabilityTypes);
+        return context;
+    }
+
+    /**
+     * Resolve the capability types defined in the capabilities and requirements of the given node types.
+     *
+     * @param nodeTypes The node types for which to resolve capability types.
+     */
+    public void preloadCapabilityTypes(Collection<IndexedNodeType> nodeTypes) {
+        Set<String> capabilityTypes = Sets.newHashSet();
+        for (IndexedNodeType nodeType : nodeTypes) {
+            addDefinitionsCapabilityTypes(nodeType, capabilityTypes);
+        }
+        preload(IndexedCapabilityType.class, capabilityTypes);
+    }
+
+    private static void addDefinitionsCapabilityTypes(IndexedNodeType nodeType, Set<String> capabilityTypes) {
+        if (nodeType == null) {
+            return;
+        }
+        if (nodeType.getCapabilities() != null) {
+            for (CapabilityDefinition capabilityDefinition : nodeType.getCapabilities()) {
+                capabilityTypes.add(capabilityDefinition.getType());
+            }
+        }
+        if (nodeType.getRequirements() != null) {
+            for (RequirementDefinition requirementDefinition : nodeType.getRequirements()) {
+                capabilityTypes.add(requirementDefinition.getType());
+            }
+        }
+    }
+
+    /**
+     * Resolve the given elements in a single request if they are not already known by the context.
+     *
+     * @param elementClass The element class.
+     * @param elementIds The TOSCA element ids of the elements to resolve.
+     */
+    public <T extends IndexedToscaElement> void preload(Class<T> elementClass, Collection<String> elementIds) {
+        Set<String> missingIds = Sets.newHashSet();
+        for (String elementId : elementIds) {
+            if (elementId != null && !elements.containsKey(key(elementClass, elementId))) {
+                missingIds.add(elementId);
+            }
+        }
+        if (missingIds.isEmpty()) {
+            return;
+        }
+        Map<String, T> found = searchService.getElementsInDependencies(elementClass, missingIds, dependencies);
+        for (String elementId : missingIds) {
+            T element = found.get(elementId);
+            elements.putIfAbsent(key(elementClass, elementId), element == null ? NOT_FOUND : element);
+        }
+    }
+
+    /**
+     * Get an element from the topology dependencies, the element is resolved only if not already known by the context.
+     *
+     * @param elementClass The element class.
+     * @param elementId The TOSCA element id of the element (without archive version).
+     * @return The requested element or null if the element is not found.
+     */
+    public <T extends IndexedToscaElement> T getElement(Class<T> elementClass, String elementId) {
+        String key = key(elementClass, elementId);
+        Object element = elements.get(key);
+        if (element == null) {
+            element = searchService.getElementInDependencies(elementClass, elementId, dependencies);
+            Object previous = elements.putIfAbsent(key, element == null ? NOT_FOUND : element);
+            if (previous != null) {
+                element = previous;
+            }
+        }
+        return element == NOT_FOUND || element == null ? null : elementClass.cast(element);
+    }
+
+    /**
+     * Get an element from the topology dependencies, the element is resolved only if not already known by the context.
+     *
+     * @param elementClass The element class.
+     * @param elementId The TOSCA element id of the element (without archive version).
+     * @return The requested element.
+     * @throws NotFoundException in case the element cannot be found.
+     */
+    public <T extends IndexedToscaElement> T getRequiredElement(Class<T> elementClass, String elementId) throws NotFoundException {
+        T element = getElement(elementClass, elementId);
+        if (element == null) {
+            throw new NotFoundException("Element elementId: <" + elementId + "> of type <" + elementClass.getSimpleName() + "> cannot be found in dependencies "
+                    + dependencies);
+        }
+        return element;
+    }
+
+    @Override
+    public <T extends IndexedToscaElement> T getElementInDependencies(Class<T> elementClass, String elementId, Collection<CSARDependency> dependencies) {
+        if (this.dependencies != null && this.dependencies.equals(dependencies)) {
+            return getElement(elementClass, elementId);
+        }
+        // other dependencies than the topology ones, cannot use the context
+        return searchService.getElementInDependencies(elementClass, elementId, dependencies);
+    }
+
+    private String key(Class<?> elementClass, String elementId) {
+        return elementClass.getName() + ":" + elementId;
+    }
+}
@@ -1,6 +1,11 @@
 package alien4cloud.topology;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.annotation.Resource;
 
@@ -8,7 +13,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.MapUtils;
-import org.elasticsearch.common.collect.Lists;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
 import org.springframework.stereotype.Service;
 
 import alien4cloud.application.ApplicationEnvironmentService;
@@ -16,10 +22,13 @@ import alien4cloud.application.ApplicationService;
 import alien4cloud.cloud.CloudService;
 import alien4cloud.common.MetaPropertiesService;
 import alien4cloud.common.TagService;
+import alien4cloud.component.ICSARRepositorySearchService;
 import alien4cloud.model.application.DeploymentSetup;
 import alien4cloud.model.cloud.CloudResourceMatcherConfig;
+import alien4cloud.model.topology.NodeTemplate;
 import alien4cloud.model.topology.Topology;
 import alien4cloud.paas.wf.Workflow;
+import alien4cloud.paas.wf.validation.AbstractWorkflowError;
 import alien4cloud.paas.wf.validation.WorkflowValidator;
 import alien4cloud.topology.task.AbstractTask;
 import alien4cloud.topology.task.NodeFiltersTask;
@@ -28,15 +37,22 @@ import alien4cloud.topology.task.RequirementsTask;
 import alien4cloud.topology.task.SuggestionsTask;
 import alien4cloud.topology.task.TaskCode;
 import alien4cloud.topology.task.TaskLevel;
+import alien4cloud.topology.task.TopologyTask;
 import alien4cloud.topology.task.WorkflowTask;
 import alien4cloud.topology.validation.HAGroupPolicyValidationService;
 import alien4cloud.topology.validation.NodeFilterValidationService;
+import alien4cloud.topology.validation.NodeValidationResult;
 import alien4cloud.topology.validation.TopologyAbstractNodeValidationService;
 import alien4cloud.topology.validation.TopologyAbstractRelationshipValidationService;
 import alien4cloud.topology.validation.TopologyPropertiesValidationService;
 import alien4cloud.topology.validation.TopologyRequirementBoundsValidationServices;
+import alien4cloud.topology.validation.TopologyValidationCache;
 import alien4cloud.utils.services.ConstraintPropertyService;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
 @Service
 @Slf4j
 public class TopologyValidationService {
@@ -67,28 +83,103 @@ public class TopologyValidationService {
     private NodeFilterValidationService nodeFilterValidationService;
     @Resource
     private WorkflowValidator workflowValidator;
+    @Resource
+    private ICSARRepositorySearchService csarRepoSearchService;
+    @Resource
+    private TopologyValidationCache topologyValidationCache;
+    @Resource(name = "topology-validation-executor")
+    private ThreadPoolTaskExecutor topologyValidationExecutor;
 
     /**
-     * Validate if a topology is valid for deployment or not
+     * Validate if a topology is valid for deployment or not.
+     *
+     * The types of the topology are resolved once and shared by the validators that are run concurrently on the topology validation executor. Results of
+     * the node and workflow validations are cached by content so only the parts of the topology modified since the last validation are validated again.
      *
      * @param topology topology to be validated
      * @param deploymentSetup the deployment setup linked to topology
      * @return the validation result
      */
-    public TopologyValidationResult validateTopology(Topology topology, DeploymentSetup deploymentSetup, CloudResourceMatcherConfig matcherConfig) {
+    public TopologyValidationResult validateTopology(final Topology topology, final DeploymentSetup deploymentSetup,
+            final CloudResourceMatcherConfig matcherConfig) {
         TopologyValidationResult dto = new TopologyValidationResult();
         if (topology.getNodeTemplates() == null || topology.getNodeTemplates().size() < 1) {
             dto.setValid(false);
             return dto;
         }
 
+        final TopologyTypesContext typesContext = TopologyTypesContext.load(csarRepoSearchService, topology);
+
         // validate the workflows
+        Future<List<WorkflowTask>> workflowTasks = submit(new Callable<List<WorkflowTask>>() {
+            @Override
+            public List<WorkflowTask> call() {
+                return validateWorkflows(topology);
+            }
+        });
+
+        // validate abstract node types and find suggestions
+        Future<List<SuggestionsTask>> suggestionTasks = submit(new Callable<List<SuggestionsTask>>() {
+            @Override
+            public List<SuggestionsTask> call() {
+                return topologyAbstractNodeValidationService.findReplacementForAbstracts(topology, typesContext);
+            }
+        });
+
+        // Validate that HA groups are respected with current configuration
+        Future<List<TopologyTask>> haGroupTasks = null;
+        if (deploymentSetup != null && matcherConfig != null && MapUtils.isNotEmpty(deploymentSetup.getAvailabilityZoneMapping())) {
+            haGroupTasks = submit(new Callable<List<TopologyTask>>() {
+                @Override
+                public List<TopologyTask> call() {
+                    return haGroupPolicyValidationService.validateHAGroup(topology, deploymentSetup, matcherConfig);
+                }
+            });
+        }
+
+        // validate abstract relationships, requirements lowerBounds, node filters and required properties (properties of NodeTemplate, Relationship and
+        // Capability) node by node, only the nodes that changed since a previous validation are actually validated.
+        Map<String, NodeValidationResult> nodeResults = validateNodes(topology, typesContext);
+
+        // results are gathered in the validation order so the task list is the same as a sequential validation
+        dto.addToTaskList(get(workflowTasks));
+        List<TopologyTask> abstractRelationshipTasks = Lists.newArrayList();
+        List<RequirementsTask> requirementTasks = Lists.newArrayList();
+        List<NodeFiltersTask> nodeFilterTasks = Lists.newArrayList();
+        List<PropertiesTask> validateProperties = Lists.newArrayList();
+        for (NodeValidationResult nodeResult : nodeResults.values()) {
+            addAll(abstractRelationshipTasks, nodeResult.getAbstractRelationshipTasks());
+            addIfNotNull(requirementTasks, nodeResult.getRequirementsTask());
+            addIfNotNull(nodeFilterTasks, nodeResult.getNodeFiltersTask());
+            addAll(validateProperties, nodeResult.getPropertiesTasks());
+        }
+        dto.addToTaskList(abstractRelationshipTasks);
+        dto.addToTaskList(get(suggestionTasks));
+        dto.addToTaskList(requirementTasks);
+        dto.addToTaskList(nodeFilterTasks);
+        if (validateProperties.isEmpty()) {
+            validateProperties = null;
+        }
+        if (hasOnlyPropertiesWarnings(validateProperties)) {
+            dto.addToWarningList(validateProperties);
+        } else {
+            dto.addToTaskList(validateProperties);
+        }
+        if (haGroupTasks != null) {
+            dto.addToWarningList(get(haGroupTasks));
+        }
+
+        dto.setValid(isValidTaskList(dto.getTaskList()));
+
+        return dto;
+    }
+
+    private List<WorkflowTask> validateWorkflows(Topology topology) {
         List<WorkflowTask> tasks = Lists.newArrayList();
         if (topology.getWorkflows() != null) {
             for (Workflow workflow : topology.getWorkflows().values()) {
-                int errorCount = workflowValidator.validate(workflow);
+                int errorCount = validateWorkflow(workflow);
                 if (errorCount > 0) {
-                    dto.setValid(false);
                     WorkflowTask workflowTask = new WorkflowTask();
                     workflowTask.setCode(TaskCode.WORKFLOW_INVALID);
                     workflowTask.setWorkflowName(workflow.getName());
@@ -97,37 +188,103 @@ public class TopologyValidationService {
                 }
             }
         }
-        dto.addToTaskList(tasks);
+        return tasks;
+    }
 
-        // validate abstract relationships
-        dto.addToTaskList(topologyAbstractRelationshipValidationService.validateAbstractRelationships(topology));
+    private int validateWorkflow(Workflow workflow) {
+        workflow.clearErrors();
+        String key = topologyValidationCache.getWorkflowKey(workflow);
+        List<AbstractWorkflowError> errors = topologyValidationCache.getWorkflowResult(key);
+        if (errors != null) {
+            workflow.addErrors(errors);
+            return errors.size();
+        }
+        int errorCount = workflowValidator.validate(workflow);
+        topologyValidationCache.putWorkflowResult(key, workflow.getErrors() == null ? new ArrayList<AbstractWorkflowError>()
+                : new ArrayList<AbstractWorkflowError>(workflow.getErrors()));
+        return errorCount;
+    }
 
-        // validate abstract node types and find suggestions
-        dto.addToTaskList(topologyAbstractNodeValidationService.findReplacementForAbstracts(topology));
+    /**
+     * Get the validation result of every node of the topology, results are taken from the cache when the node (and the nodes it targets) did not change
+     * and the other nodes are validated concurrently.
+     *
+     * @return The validation results by node template name, in the order of the topology node templates.
+     */
+    private Map<String, NodeValidationResult> validateNodes(final Topology topology, final TopologyTypesContext typesContext) {
+        Map<String, NodeValidationResult> nodeResults = Maps.newLinkedHashMap();
+        final Map<String, String> nodeKeys = Maps.newHashMap();
+        List<String> invalidatedNodes = Lists.newArrayList();
+        for (Map.Entry<String, NodeTemplate> nodeTemplateEntry : topology.getNodeTemplates().entrySet()) {
+            String key = topologyValidationCache.getNodeKey(nodeTemplateEntry.getKey(), nodeTemplateEntry.getValue(), topology, typesContext);
+            NodeValidationResult nodeResult = topologyValidationCache.getNodeResult(key);
+            nodeKeys.put(nodeTemplateEntry.getKey(), key);
+            nodeResults.put(nodeTemplateEntry.getKey(), nodeResult);
+            if (nodeResult == null) {
+                invalidatedNodes.add(nodeTemplateEntry.getKey());
+            }
+        }
+        if (invalidatedNodes.isEmpty()) {
+            return nodeResults;
+        }
 
-        // validate requirements lowerBounds
-        dto.addToTaskList(topologyRequirementBoundsValidationServices.validateRequirementsLowerBounds(topology));
+        int partitionSize = (invalidatedNodes.size() + topologyValidationExecutor.getMaxPoolSize() - 1) / topologyValidationExecutor.getMaxPoolSize();
+        List<Future<Map<String, NodeValidationResult>>> futures = Lists.newArrayList();
+        for (final List<String> partition : Lists.partition(invalidatedNodes, partitionSize)) {
+            futures.add(submit(new Callable<Map<String, NodeValidationResult>>() {
+                @Override
+                public Map<String, NodeValidationResult> call() {
+                    Map<String, NodeValidationResult> partitionResults = Maps.newHashMap();
+                    for (String nodeTemplateName : partition) {
+                        NodeValidationResult nodeResult = validateNode(nodeTemplateName, topology.getNodeTemplates().get(nodeTemplateName), topology,
+                                typesContext);
+                        topologyValidationCache.putNodeResult(nodeKeys.get(nodeTemplateName), nodeResult);
+                        partitionResults.put(nodeTemplateName, nodeResult);
+                    }
+                    return partitionResults;
+                }
+            }));
+        }
+        for (Future<Map<String, NodeValidationResult>> future : futures) {
+            nodeResults.putAll(get(future));
+        }
+        return nodeResults;
+    }
 
-        // validate the node filters for all relationships
-        dto.addToTaskList(nodeFilterValidationService.validateRequirementFilters(topology));
+    private NodeValidationResult validateNode(String nodeTemplateName, NodeTemplate nodeTemplate, Topology topology, TopologyTypesContext typesContext) {
+        return new NodeValidationResult(topologyAbstractRelationshipValidationService.validateAbstractRelationships(nodeTemplateName, nodeTemplate,
+                typesContext), topologyRequirementBoundsValidationServices.validateRequirementsLowerBounds(nodeTemplateName, nodeTemplate, typesContext),
+                nodeFilterValidationService.validateRequirementFilters(nodeTemplateName, nodeTemplate, topology, typesContext),
+                topologyPropertiesValidationService.validateProperties(nodeTemplateName, nodeTemplate, typesContext));
+    }
 
-        // validate required properties (properties of NodeTemplate, Relationship and Capability)
-        // check also CLOUD / ENVIRONMENT meta properties
-        List<PropertiesTask> validateProperties = topologyPropertiesValidationService.validateProperties(topology);
-        if (hasOnlyPropertiesWarnings(validateProperties)) {
-            dto.addToWarningList(validateProperties);
-        } else {
-            dto.addToTaskList(validateProperties);
+    private <T> void addAll(List<T> target, List<? extends T> elements) {
+        if (elements != null) {
+            target.addAll(elements);
         }
+    }
 
-        // Validate that HA groups are respected with current configuration
-        if (deploymentSetup != null && matcherConfig != null && MapUtils.isNotEmpty(deploymentSetup.getAvailabilityZoneMapping())) {
-            dto.addToWarningList(haGroupPolicyValidationService.validateHAGroup(topology, deploymentSetup, matcherConfig));
+    private <T> void addIfNotNull(List<T> target, T element) {
+        if (element != null) {
+            target.add(element);
         }
+    }
 
-        dto.setValid(isValidTaskList(dto.getTaskList()));
+    private <T> Future<T> submit(Callable<T> validation) {
+        // validators may rely on the current user
+        return topologyValidationExecutor.submit(new DelegatingSecurityContextCallable<T>(validation));
+    }
 
-        return dto;
+    private <T> T get(Future<T> validation) {
+        try {
+            return validation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(e);
+        } catch (ExecutionException e) {
+            // validators don't throw checked exceptions, rethrow the validator failure as is
+            throw Throwables.propagate(e.getCause());
+        }
     }
 
     private boolean hasOnlyPropertiesWarnings(List<PropertiesTask> properties) {
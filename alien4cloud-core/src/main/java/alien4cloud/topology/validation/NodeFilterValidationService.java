@@ -23,7 +23,7 @@ import alien4cloud.model.topology.NodeTemplate;
 import alien4cloud.model.topology.RelationshipTemplate;
 import alien4cloud.model.topology.Topology;
 import alien4cloud.rest.model.RestErrorCode;
-import alien4cloud.topology.TopologyServiceCore;
+import alien4cloud.topology.TopologyTypesContext;
 import alien4cloud.topology.task.NodeFilterConstraintViolation;
 import alien4cloud.topology.task.NodeFilterToSatisfy;
 import alien4cloud.topology.task.NodeFiltersTask;
@@ -43,8 +43,6 @@ import com.google.common.collect.Maps;
 public class NodeFilterValidationService {
     @Resource
     private CSARRepositorySearchService csarRepoSearchService;
-    @Resource
-    private TopologyServiceCore topologyServiceCore;
 
     private Map<String, RequirementDefinition> getRequirementsAsMap(IndexedNodeType nodeType) {
         Map<String, RequirementDefinition> requirementDefinitionMap = Maps.newHashMap();
@@ -58,51 +56,74 @@ public class NodeFilterValidationService {
      * Performs validation of the node filters to check that relationships targets the filter requirements.
      */
     public List<NodeFiltersTask> validateRequirementFilters(Topology topology) {
+        return validateRequirementFilters(topology, new TopologyTypesContext(csarRepoSearchService, topology.getDependencies()));
+    }
+
+    /**
+     * Performs validation of the node filters to check that relationships targets the filter requirements.
+     *
+     * @param topology The topology to validate.
+     * @param typesContext The context from which to get the types of the topology.
+     */
+    public List<NodeFiltersTask> validateRequirementFilters(Topology topology, TopologyTypesContext typesContext) {
         List<NodeFiltersTask> toReturnTaskList = Lists.newArrayList();
         Map<String, NodeTemplate> nodeTemplates = topology.getNodeTemplates();
-        Map<String, IndexedNodeType> nodeTypes = topologyServiceCore.getIndexedNodeTypesFromTopology(topology, false, true);
-        Map<String, IndexedCapabilityType> capabilityTypes = topologyServiceCore.getIndexedCapabilityTypesFromTopology(topology);
         for (Map.Entry<String, NodeTemplate> nodeTempEntry : nodeTemplates.entrySet()) {
-            Map<String, RelationshipTemplate> relationshipsMap = nodeTempEntry.getValue().getRelationships();
-            if (relationshipsMap == null || relationshipsMap.isEmpty()) {
-                continue;
-            }
-            IndexedNodeType sourceNodeType = csarRepoSearchService.getRequiredElementInDependencies(IndexedNodeType.class, nodeTempEntry.getValue().getType(),
-                    topology.getDependencies());
-            if (sourceNodeType.isAbstract()) {
-                continue;
-            }
-
-            NodeFiltersTask task = new NodeFiltersTask();
-            task.setNodeTemplateName(nodeTempEntry.getKey());
-            task.setCode(TaskCode.NODE_FILTER_INVALID);
-            task.setComponent(sourceNodeType);
-            task.setNodeFiltersToSatisfy(Lists.<NodeFilterToSatisfy> newArrayList());
-
-            validateFiltersForNode(sourceNodeType, relationshipsMap, topology, nodeTypes, capabilityTypes, task);
-
-            if (!task.getNodeFiltersToSatisfy().isEmpty()) {
+            NodeFiltersTask task = validateRequirementFilters(nodeTempEntry.getKey(), nodeTempEntry.getValue(), topology, typesContext);
+            if (task != null) {
                 toReturnTaskList.add(task);
             }
         }
         return toReturnTaskList.isEmpty() ? null : toReturnTaskList;
     }
 
+    /**
+     * Performs validation of the node filters of the relationships of a single node template. The result depends only on the node template, the nodes it
+     * targets and their types.
+     *
+     * @param nodeTemplateName The name of the node template to validate.
+     * @param nodeTemplate The node template to validate.
+     * @param topology The topology in which to find the targets of the node relationships.
+     * @param typesContext The context from which to get the types of the topology.
+     * @return The task to satisfy the node filters or null if all the filters are satisfied.
+     */
+    public NodeFiltersTask validateRequirementFilters(String nodeTemplateName, NodeTemplate nodeTemplate, Topology topology,
+            TopologyTypesContext typesContext) {
+        Map<String, RelationshipTemplate> relationshipsMap = nodeTemplate.getRelationships();
+        if (relationshipsMap == null || relationshipsMap.isEmpty()) {
+            return null;
+        }
+        IndexedNodeType sourceNodeType = typesContext.getRequiredElement(IndexedNodeType.class, nodeTemplate.getType());
+        if (sourceNodeType.isAbstract()) {
+            return null;
+        }
+
+        NodeFiltersTask task = new NodeFiltersTask();
+        task.setNodeTemplateName(nodeTemplateName);
+        task.setCode(TaskCode.NODE_FILTER_INVALID);
+        task.setComponent(sourceNodeType);
+        task.setNodeFiltersToSatisfy(Lists.<NodeFilterToSatisfy> newArrayList());
+
+        validateFiltersForNode(sourceNodeType, relationshipsMap, topology, typesContext, task);
+
+        return task.getNodeFiltersToSatisfy().isEmpty() ? null : task;
+    }
+
     private void validateFiltersForNode(IndexedNodeType sourceNodeType, Map<String, RelationshipTemplate> relationshipsMap, Topology topology,
-            Map<String, IndexedNodeType> nodeTypes, Map<String, IndexedCapabilityType> capabilityTypes, NodeFiltersTask task) {
+            TopologyTypesContext typesContext, NodeFiltersTask task) {
         Map<String, RequirementDefinition> requirementDefinitionMap = getRequirementsAsMap(sourceNodeType);
         for (Map.Entry<String, RelationshipTemplate> relationshipEntry : relationshipsMap.entrySet()) {
             RequirementDefinition requirementDefinition = requirementDefinitionMap.get(relationshipEntry.getValue().getRequirementName());
             NodeFilter nodeFilter = requirementDefinition.getNodeFilter();
             if (nodeFilter != null) {
                 NodeTemplate targetNode = topology.getNodeTemplates().get(relationshipEntry.getValue().getTarget());
-                IndexedNodeType targetType = nodeTypes.get(relationshipEntry.getValue().getTarget());
+                IndexedNodeType targetType = typesContext.getRequiredElement(IndexedNodeType.class, targetNode.getType());
 
                 NodeFilterToSatisfy nodeFilterToSatisfy = new NodeFilterToSatisfy();
                 nodeFilterToSatisfy.setRelationshipName(relationshipEntry.getKey());
                 nodeFilterToSatisfy.setTargetName(targetNode.getName());
 
-                validateNodeFilter(nodeFilter, targetNode, targetType, capabilityTypes, nodeFilterToSatisfy);
+                validateNodeFilter(nodeFilter, targetNode, targetType, typesContext, nodeFilterToSatisfy);
 
                 if (!nodeFilterToSatisfy.getViolatedConstraints().isEmpty() || !nodeFilterToSatisfy.getMissingCapabilities().isEmpty()) {
                     task.getNodeFiltersToSatisfy().add(nodeFilterToSatisfy);
@@ -111,12 +132,12 @@ public class NodeFilterValidationService {
         }
     }
 
-    private void validateNodeFilter(NodeFilter nodeFilter, NodeTemplate target, IndexedNodeType targetType, Map<String, IndexedCapabilityType> capabilityTypes,
+    private void validateNodeFilter(NodeFilter nodeFilter, NodeTemplate target, IndexedNodeType targetType, TopologyTypesContext typesContext,
             NodeFilterToSatisfy nodeFilterToSatisfy) {
         Map<String, List<NodeFilterConstraintViolation>> violatedConstraints = validateNodeFilterProperties(nodeFilter, target, targetType);
         nodeFilterToSatisfy.setViolatedConstraints(violatedConstraints);
 
-        validateNodeFilterCapabilities(nodeFilter, target, targetType, capabilityTypes, nodeFilterToSatisfy);
+        validateNodeFilterCapabilities(nodeFilter, target, targetType, typesContext, nodeFilterToSatisfy);
     }
 
     private Map<String, List<NodeFilterConstraintViolation>> validateNodeFilterProperties(NodeFilter nodeFilter, NodeTemplate target, IndexedNodeType targetType) {
@@ -173,7 +194,7 @@ public class NodeFilterValidationService {
     }
 
     private void validateNodeFilterCapabilities(NodeFilter nodeFilter, NodeTemplate target, IndexedNodeType targetType,
-            Map<String, IndexedCapabilityType> capabilityTypes, NodeFilterToSatisfy nodeFilterToSatisfy) {
+            TopologyTypesContext typesContext, NodeFilterToSatisfy nodeFilterToSatisfy) {
         nodeFilterToSatisfy.setMissingCapabilities(Lists.<String> newArrayList());
         if (nodeFilter.getCapabilities() == null || nodeFilter.getCapabilities().isEmpty()) {
             return;
@@ -188,7 +209,7 @@ public class NodeFilterValidationService {
                 nodeFilterToSatisfy.getMissingCapabilities().add(capabilityName);
                 continue;
             }
-            IndexedCapabilityType capabilityType = capabilityTypes.get(definition.getType());
+            IndexedCapabilityType capabilityType = typesContext.getRequiredElement(IndexedCapabilityType.class, definition.getType());
 
             Map<String, List<NodeFilterConstraintViolation>> violations = validatePropertyFilters(filterDefinitionEntry.getValue().getProperties(), target
                     .getCapabilities().get(definition.getId()).getProperties(), capabilityType.getProperties());
@@ -0,0 +1,130 @@
+package alien4cloud.topology.validation;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import alien4cloud.topology.task.NodeFilterConstraintViolation;
+import alien4cloud.topology.task.NodeFilterToSatisfy;
+import alien4cloud.topology.task.NodeFiltersTask;
+import alien4cloud.topology.task.PropertiesTask;
+import alien4cloud.topology.task.RequirementToSatisfy;
+import alien4cloud.topology.task.RequirementsTask;
+import alien4cloud.topology.task.ScalableTask;
+import alien4cloud.topology.task.TaskLevel;
+import alien4cloud.topology.task.TopologyTask;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Result of the validations that depends only on a node template (and the nodes it targets), cached by the {@link TopologyValidationCache}.
+ */
+@Getter
+@AllArgsConstructor
+public class NodeValidationResult {
+    /** Tasks for the abstract relationships of the node, null if none. */
+    private final List<TopologyTask> abstractRelationshipTasks;
+    /** Requirements to satisfy for the node, null if none. */
+    private final RequirementsTask requirementsTask;
+    /** Node filters to satisfy for the node, null if none. */
+    private final NodeFiltersTask nodeFiltersTask;
+    /** Properties tasks for the node, null if none. */
+    private final List<PropertiesTask> propertiesTasks;
+
+    /**
+     * Copy the result and all its tasks. The components of the tasks are tosca types that are not modified and are not copied.
+     *
+     * @return A copy of the result.
+     */
+    public NodeValidationResult copy() {
+        List<TopologyTask> abstractRelationshipTasksCopy = null;
+        if (abstractRelationshipTasks != null) {
+            abstractRelationshipTasksCopy = Lists.newArrayListWithCapacity(abstractRelationshipTasks.size());
+            for (TopologyTask task : abstractRelationshipTasks) {
+                abstractRelationshipTasksCopy.add(copyTask(task, new TopologyTask()));
+            }
+        }
+        RequirementsTask requirementsTaskCopy = null;
+        if (requirementsTask != null) {
+            requirementsTaskCopy = copyTask(requirementsTask, new RequirementsTask(copyRequirements(requirementsTask.getRequirementsToImplement()),
+                    copyNodeFilters(requirementsTask.getNodeFiltersToSatisty())));
+        }
+        NodeFiltersTask nodeFiltersTaskCopy = null;
+        if (nodeFiltersTask != null) {
+            nodeFiltersTaskCopy = copyTask(nodeFiltersTask, new NodeFiltersTask(copyNodeFilters(nodeFiltersTask.getNodeFiltersToSatisfy())));
+        }
+        List<PropertiesTask> propertiesTasksCopy = null;
+        if (propertiesTasks != null) {
+            propertiesTasksCopy = Lists.newArrayListWithCapacity(propertiesTasks.size());
+            for (PropertiesTask task : propertiesTasks) {
+                PropertiesTask taskCopy = task instanceof ScalableTask ? new ScalableTask(task.getNodeTemplateName()) : new PropertiesTask();
+                taskCopy.setProperties(copyProperties(task.getProperties()));
+                propertiesTasksCopy.add(copyTask(task, taskCopy));
+            }
+        }
+        return new NodeValidationResult(abstractRelationshipTasksCopy, requirementsTaskCopy, nodeFiltersTaskCopy, propertiesTasksCopy);
+    }
+
+    private static <T extends TopologyTask> T copyTask(TopologyTask task, T taskCopy) {
+        taskCopy.setCode(task.getCode());
+        taskCopy.setNodeTemplateName(task.getNodeTemplateName());
+        taskCopy.setComponent(task.getComponent());
+        return taskCopy;
+    }
+
+    private static List<RequirementToSatisfy> copyRequirements(List<RequirementToSatisfy> requirements) {
+        if (requirements == null) {
+            return null;
+        }
+        List<RequirementToSatisfy> copies = Lists.newArrayListWithCapacity(requirements.size());
+        for (RequirementToSatisfy requirement : requirements) {
+            copies.add(new RequirementToSatisfy(requirement.getName(), requirement.getType(), requirement.getRemainingBound()));
+        }
+        return copies;
+    }
+
+    private static List<NodeFilterToSatisfy> copyNodeFilters(List<NodeFilterToSatisfy> nodeFilters) {
+        if (nodeFilters == null) {
+            return null;
+        }
+        List<NodeFilterToSatisfy> copies = Lists.newArrayListWithCapacity(nodeFilters.size());
+        for (NodeFilterToSatisfy nodeFilter : nodeFilters) {
+            Map<String, List<NodeFilterConstraintViolation>> violatedConstraints = null;
+            if (nodeFilter.getViolatedConstraints() != null) {
+                violatedConstraints = Maps.newLinkedHashMap();
+                for (Map.Entry<String, List<NodeFilterConstraintViolation>> violationsEntry : nodeFilter.getViolatedConstraints().entrySet()) {
+                    List<NodeFilterConstraintViolation> violations = null;
+                    if (violationsEntry.getValue() != null) {
+                        violations = Lists.newArrayListWithCapacity(violationsEntry.getValue().size());
+                        for (NodeFilterConstraintViolation violation : violationsEntry.getValue()) {
+                            violations.add(new NodeFilterConstraintViolation(violation.getErrorCode(), violation.getMessage(),
+                                    violation.getConstraintInformation()));
+                        }
+                    }
+                    violatedConstraints.put(violationsEntry.getKey(), violations);
+                }
+            }
+            copies.add(new NodeFilterToSatisfy(nodeFilter.getRelationshipName(), nodeFilter.getTargetName(), copyList(nodeFilter.getMissingCapabilities()),
+                    violatedConstraints));
+        }
+        return copies;
+    }
+
+    private static Map<TaskLevel, List<String>> copyProperties(Map<TaskLevel, List<String>> properties) {
+        if (properties == null) {
+            return null;
+        }
+        Map<TaskLevel, List<String>> copy = Maps.newLinkedHashMap();
+        for (Map.Entry<TaskLevel, List<String>> propertiesEntry : properties.entrySet()) {
+            copy.put(propertiesEntry.getKey(), copyList(propertiesEntry.getValue()));
+        }
+        return copy;
+    }
+
+    private static List<String> copyList(List<String> list) {
+        return list == null ? null : Lists.newArrayList(list);
+    }
+}
@@ -1,9 +1,11 @@
 package alien4cloud.topology.validation;
 
+import alien4cloud.component.CSARRepositorySearchService;
 import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.model.topology.Topology;
 import alien4cloud.topology.TopologyService;
 import alien4cloud.topology.TopologyServiceCore;
+import alien4cloud.topology.TopologyTypesContext;
 import alien4cloud.topology.task.SuggestionsTask;
 import com.google.common.collect.Maps;
 import lombok.SneakyThrows;
@@ -26,12 +28,26 @@ public class TopologyAbstractNodeValidationService {
     @Resource
     private TopologyService topologyService;
 
+    @Resource
+    private CSARRepositorySearchService csarRepoSearchService;
+
     /**
      * Find replacements components for abstract nodes in a Topology
      */
-    @SneakyThrows({ IOException.class })
     public List<SuggestionsTask> findReplacementForAbstracts(Topology topology) {
-        Map<String, IndexedNodeType> nodeTempNameToAbstractIndexedNodeTypes = topologyServiceCore.getIndexedNodeTypesFromTopology(topology, true, true);
+        return findReplacementForAbstracts(topology, new TopologyTypesContext(csarRepoSearchService, topology.getDependencies()));
+    }
+
+    /**
+     * Find replacements components for abstract nodes in a Topology
+     *
+     * @param topology The topology to validate.
+     * @param typesContext The context from which to get the types of the topology.
+     */
+    @SneakyThrows({ IOException.class })
+    public List<SuggestionsTask> findReplacementForAbstracts(Topology topology, TopologyTypesContext typesContext) {
+        Map<String, IndexedNodeType> nodeTempNameToAbstractIndexedNodeTypes = topologyServiceCore.getIndexedNodeTypesFromTopology(topology, true, true,
+                typesContext);
         Map<String, Map<String, Set<String>>> nodeTemplatesToFilters = Maps.newHashMap();
         for (Map.Entry<String, IndexedNodeType> idntEntry : nodeTempNameToAbstractIndexedNodeTypes.entrySet()) {
             topologyService.processNodeTemplate(topology, Maps.immutableEntry(idntEntry.getKey(), topology.getNodeTemplates().get(idntEntry.getKey())),
@@ -7,6 +7,7 @@ import alien4cloud.model.components.IndexedRelationshipType;
 import alien4cloud.model.topology.NodeTemplate;
 import alien4cloud.model.topology.RelationshipTemplate;
 import alien4cloud.model.topology.Topology;
+import alien4cloud.topology.TopologyTypesContext;
 import alien4cloud.topology.task.TaskCode;
 import alien4cloud.topology.task.TopologyTask;
 import com.google.common.collect.Maps;
@@ -34,46 +35,74 @@ public class TopologyAbstractRelationshipValidationService {
      * @return A list tasks to be done to make this topology valid.
      */
     public List<TopologyTask> validateAbstractRelationships(Topology topology) {
-        Map<String, IndexedRelationshipType[]> abstractIndexedRelationshipTypes = getIndexedRelationshipTypesFromTopology(topology, true);
+        return validateAbstractRelationships(topology, new TopologyTypesContext(csarRepoSearchService, topology.getDependencies()));
+    }
+
+    /**
+     * Checks that no relationships in a topology are abstract (and cannot be instanciated).
+     *
+     * @param topology The topology to validate.
+     * @param typesContext The context from which to get the types of the topology.
+     * @return A list tasks to be done to make this topology valid.
+     */
+    public List<TopologyTask> validateAbstractRelationships(Topology topology, TopologyTypesContext typesContext) {
+        Map<String, IndexedRelationshipType[]> abstractIndexedRelationshipTypes = Maps.newHashMap();
+        if (topology.getNodeTemplates() != null) {
+            for (Map.Entry<String, NodeTemplate> template : topology.getNodeTemplates().entrySet()) {
+                IndexedRelationshipType[] indexedRelationshipTypes = getIndexedRelationshipTypes(template.getValue(), true, typesContext);
+                if (indexedRelationshipTypes != null) {
+                    abstractIndexedRelationshipTypes.put(template.getKey(), indexedRelationshipTypes);
+                }
+            }
+        }
         return getTaskListFromMapArray(abstractIndexedRelationshipTypes, TaskCode.IMPLEMENT);
     }
 
     /**
-     * Get the relationships from a topology
+     * Checks that no relationships of a single node template are abstract.
      *
-     * @param topology topology to be validated
-     * @param abstractOnes if only abstract ones should be retrieved
-     * @return a map containing node template id --> list of relationship type that this node references
+     * @param nodeTemplateName The name of the node template to validate.
+     * @param nodeTemplate The node template to validate.
+     * @param typesContext The context from which to get the types of the topology.
+     * @return A list tasks to be done to make this node template valid or null if the node template is valid.
      */
-    private Map<String, IndexedRelationshipType[]> getIndexedRelationshipTypesFromTopology(Topology topology, Boolean abstractOnes) {
-        Map<String, IndexedRelationshipType[]> indexedRelationshipTypesMap = Maps.newHashMap();
-        if (topology.getNodeTemplates() == null) {
-            return indexedRelationshipTypesMap;
+    public List<TopologyTask> validateAbstractRelationships(String nodeTemplateName, NodeTemplate nodeTemplate, TopologyTypesContext typesContext) {
+        IndexedRelationshipType[] indexedRelationshipTypes = getIndexedRelationshipTypes(nodeTemplate, true, typesContext);
+        if (indexedRelationshipTypes == null) {
+            return null;
         }
-        for (Map.Entry<String, NodeTemplate> template : topology.getNodeTemplates().entrySet()) {
-            if (template.getValue().getRelationships() == null) {
-                continue;
-            }
+        Map<String, IndexedRelationshipType[]> abstractIndexedRelationshipTypes = Maps.newHashMap();
+        abstractIndexedRelationshipTypes.put(nodeTemplateName, indexedRelationshipTypes);
+        return getTaskListFromMapArray(abstractIndexedRelationshipTypes, TaskCode.IMPLEMENT);
+    }
 
-            Set<IndexedRelationshipType> indexedRelationshipTypes = Sets.newHashSet();
-            for (RelationshipTemplate relTemplate : template.getValue().getRelationships().values()) {
-                IndexedRelationshipType indexedRelationshipType = csarRepoSearchService.getElementInDependencies(IndexedRelationshipType.class,
-                        relTemplate.getType(), topology.getDependencies());
-                if (indexedRelationshipType != null) {
-                    if (abstractOnes == null || abstractOnes.equals(indexedRelationshipType.isAbstract())) {
-                        indexedRelationshipTypes.add(indexedRelationshipType);
-                    }
-                } else {
-                    throw new NotFoundException("Relationship Type [" + relTemplate.getType() + "] cannot be found");
+    /**
+     * Get the relationship types of a node template
+     *
+     * @param nodeTemplate node template to be validated
+     * @param abstractOnes if only abstract ones should be retrieved
+     * @param typesContext The context from which to get the types of the topology.
+     * @return the relationship types that this node references or null if there is none
+     */
+    private IndexedRelationshipType[] getIndexedRelationshipTypes(NodeTemplate nodeTemplate, Boolean abstractOnes, TopologyTypesContext typesContext) {
+        if (nodeTemplate.getRelationships() == null) {
+            return null;
+        }
+        Set<IndexedRelationshipType> indexedRelationshipTypes = Sets.newHashSet();
+        for (RelationshipTemplate relTemplate : nodeTemplate.getRelationships().values()) {
+            IndexedRelationshipType indexedRelationshipType = typesContext.getElement(IndexedRelationshipType.class, relTemplate.getType());
+            if (indexedRelationshipType != null) {
+                if (abstractOnes == null || abstractOnes.equals(indexedRelationshipType.isAbstract())) {
+                    indexedRelationshipTypes.add(indexedRelationshipType);
                 }
+            } else {
+                throw new NotFoundException("Relationship Type [" + relTemplate.getType() + "] cannot be found");
             }
-            if (indexedRelationshipTypes.size() > 0) {
-                indexedRelationshipTypesMap.put(template.getKey(),
-                        indexedRelationshipTypes.toArray(new IndexedRelationshipType[indexedRelationshipTypes.size()]));
-            }
-
         }
-        return indexedRelationshipTypesMap;
+        if (indexedRelationshipTypes.isEmpty()) {
+            return null;
+        }
+        return indexedRelationshipTypes.toArray(new IndexedRelationshipType[indexedRelationshipTypes.size()]);
     }
 
     /**
@@ -2,12 +2,12 @@ package alien4cloud.topology.validation;
 
 import alien4cloud.component.CSARRepositorySearchService;
 import alien4cloud.exception.NotFoundException;
-import alien4cloud.model.components.CSARDependency;
 import alien4cloud.model.components.CapabilityDefinition;
 import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.model.topology.Capability;
 import alien4cloud.model.topology.NodeTemplate;
 import alien4cloud.model.topology.RelationshipTemplate;
+import alien4cloud.model.topology.Topology;
 import alien4cloud.topology.TopologyServiceCore;
 import org.springframework.stereotype.Component;
 
@@ -15,7 +15,6 @@ import javax.annotation.Resource;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  *
@@ -28,11 +27,10 @@ public class TopologyCapabilityBoundsValidationServices {
     private TopologyServiceCore topologyServiceCore;
 
     //
-    public boolean isCapabilityUpperBoundReachedForTarget(String nodeTemplateName, Map<String, NodeTemplate> nodeTemplates, String capabilityName,
-            Set<CSARDependency> dependencies) {
-        NodeTemplate nodeTemplate = nodeTemplates.get(nodeTemplateName);
+    public boolean isCapabilityUpperBoundReachedForTarget(String nodeTemplateName, Topology topology, String capabilityName) {
+        NodeTemplate nodeTemplate = topology.getNodeTemplates().get(nodeTemplateName);
         IndexedNodeType relatedIndexedNodeType = csarRepoSearchService.getRequiredElementInDependencies(IndexedNodeType.class, nodeTemplate.getType(),
-                dependencies);
+                topology.getDependencies());
         chekCapability(nodeTemplateName, capabilityName, nodeTemplate);
 
         CapabilityDefinition capabilityDefinition = getCapabilityDefinition(relatedIndexedNodeType.getCapabilities(), capabilityName);
@@ -40,7 +38,7 @@ public class TopologyCapabilityBoundsValidationServices {
             return false;
         }
 
-        List<RelationshipTemplate> targetRelatedRelationships = topologyServiceCore.getTargetRelatedRelatonshipsTemplate(nodeTemplateName, nodeTemplates);
+        List<RelationshipTemplate> targetRelatedRelationships = topologyServiceCore.getTargetRelatedRelatonshipsTemplate(nodeTemplateName, topology);
         if (targetRelatedRelationships == null || targetRelatedRelationships.isEmpty()) {
             return false;
         }
@@ -20,6 +20,7 @@ import alien4cloud.model.topology.NodeTemplate;
 import alien4cloud.model.topology.RelationshipTemplate;
 import alien4cloud.model.topology.Topology;
 import alien4cloud.paas.function.FunctionEvaluator;
+import alien4cloud.topology.TopologyTypesContext;
 import alien4cloud.topology.task.PropertiesTask;
 import alien4cloud.topology.task.ScalableTask;
 import alien4cloud.topology.task.TaskCode;
@@ -45,74 +46,101 @@ public class TopologyPropertiesValidationService {
      * @return A list tasks to be done to make this topology valid.
      */
     public List<PropertiesTask> validateProperties(Topology topology) {
+        return validateProperties(topology, new TopologyTypesContext(csarRepoSearchService, topology.getDependencies()));
+    }
+
+    /**
+     * Validate that the properties values in the topology are matching the property definitions (required & constraints).
+     *
+     * @param topology The actual topology to validate.
+     * @param typesContext The context from which to get the types of the topology.
+     * @return A list tasks to be done to make this topology valid.
+     */
+    public List<PropertiesTask> validateProperties(Topology topology, TopologyTypesContext typesContext) {
         List<PropertiesTask> toReturnTaskList = Lists.newArrayList();
         Map<String, NodeTemplate> nodeTemplates = topology.getNodeTemplates();
 
         // create task by nodetemplate
         for (Map.Entry<String, NodeTemplate> nodeTempEntry : nodeTemplates.entrySet()) {
-            NodeTemplate nodeTemplate = nodeTempEntry.getValue();
-            if (nodeTemplate.getProperties() == null || nodeTemplate.getProperties().isEmpty()) {
-                continue;
-            }
-            IndexedNodeType relatedIndexedNodeType = csarRepoSearchService.getRequiredElementInDependencies(IndexedNodeType.class, nodeTemplate.getType(),
-                    topology.getDependencies());
-            // do pass if abstract node
-            if (relatedIndexedNodeType.isAbstract()) {
-                continue;
-            }
+            validateProperties(nodeTempEntry.getKey(), nodeTempEntry.getValue(), typesContext, toReturnTaskList);
+        }
+        return toReturnTaskList.isEmpty() ? null : toReturnTaskList;
+    }
 
-            // Define a task regarding properties
-            PropertiesTask task = new PropertiesTask();
-            task.setNodeTemplateName(nodeTempEntry.getKey());
-            task.setComponent(relatedIndexedNodeType);
-            task.setCode(TaskCode.PROPERTIES);
-            task.setProperties(Maps.<TaskLevel, List<String>> newHashMap());
-
-            // Check the properties of node template
-            addRequiredPropertyIdToTaskProperties(nodeTemplate.getProperties(), relatedIndexedNodeType.getProperties(), task);
-
-            // Check relationships PD
-            if (nodeTemplate.getRelationships() != null && !nodeTemplate.getRelationships().isEmpty()) {
-                Collection<RelationshipTemplate> relationships = nodeTemplate.getRelationships().values();
-                for (RelationshipTemplate relationship : relationships) {
-                    if (relationship.getProperties() == null || relationship.getProperties().isEmpty()) {
-                        continue;
-                    }
-                    addRequiredPropertyIdToTaskProperties(relationship.getProperties(), getRelationshipPropertyDefinition(topology, nodeTemplate), task);
+    /**
+     * Validate that the properties values of a single node template are matching the property definitions (required & constraints).
+     *
+     * @param nodeTemplateName The name of the node template to validate.
+     * @param nodeTemplate The node template to validate.
+     * @param typesContext The context from which to get the types of the topology.
+     * @return A list tasks to be done to make this node template valid or null if the node template is valid.
+     */
+    public List<PropertiesTask> validateProperties(String nodeTemplateName, NodeTemplate nodeTemplate, TopologyTypesContext typesContext) {
+        List<PropertiesTask> toReturnTaskList = Lists.newArrayList();
+        validateProperties(nodeTemplateName, nodeTemplate, typesContext, toReturnTaskList);
+        return toReturnTaskList.isEmpty() ? null : toReturnTaskList;
+    }
+
+    private void validateProperties(String nodeTemplateName, NodeTemplate nodeTemplate, TopologyTypesContext typesContext,
+            List<PropertiesTask> toReturnTaskList) {
+        if (nodeTemplate.getProperties() == null || nodeTemplate.getProperties().isEmpty()) {
+            return;
+        }
+        IndexedNodeType relatedIndexedNodeType = typesContext.getRequiredElement(IndexedNodeType.class, nodeTemplate.getType());
+        // do pass if abstract node
+        if (relatedIndexedNodeType.isAbstract()) {
+            return;
+        }
+
+        // Define a task regarding properties
+        PropertiesTask task = new PropertiesTask();
+        task.setNodeTemplateName(nodeTemplateName);
+        task.setComponent(relatedIndexedNodeType);
+        task.setCode(TaskCode.PROPERTIES);
+        task.setProperties(Maps.<TaskLevel, List<String>> newHashMap());
+
+        // Check the properties of node template
+        addRequiredPropertyIdToTaskProperties(nodeTemplate.getProperties(), relatedIndexedNodeType.getProperties(), task);
+
+        // Check relationships PD
+        if (nodeTemplate.getRelationships() != null && !nodeTemplate.getRelationships().isEmpty()) {
+            Collection<RelationshipTemplate> relationships = nodeTemplate.getRelationships().values();
+            for (RelationshipTemplate relationship : relationships) {
+                if (relationship.getProperties() == null || relationship.getProperties().isEmpty()) {
+                    continue;
                 }
+                addRequiredPropertyIdToTaskProperties(relationship.getProperties(), getRelationshipPropertyDefinition(nodeTemplate, typesContext), task);
             }
+        }
 
-            // Check capabilities PD
-            if (nodeTemplate.getCapabilities() != null && !nodeTemplate.getCapabilities().isEmpty()) {
-                Collection<Capability> capabilities = nodeTemplate.getCapabilities().values();
-                for (Capability capability : capabilities) {
-                    if (capability.getProperties() == null || capability.getProperties().isEmpty()) {
-                        continue;
-                    }
-                    addRequiredPropertyIdToTaskProperties(capability.getProperties(), getCapabilitiesPropertyDefinition(topology, nodeTemplate), task);
-                    if (capability.getType().equals(NormativeComputeConstants.SCALABLE_CAPABILITY_TYPE)) {
-                        Map<String, AbstractPropertyValue> scalableProperties = capability.getProperties();
-                        verifyScalableProperties(scalableProperties, toReturnTaskList, nodeTempEntry.getKey());
-                    }
+        // Check capabilities PD
+        if (nodeTemplate.getCapabilities() != null && !nodeTemplate.getCapabilities().isEmpty()) {
+            Collection<Capability> capabilities = nodeTemplate.getCapabilities().values();
+            for (Capability capability : capabilities) {
+                if (capability.getProperties() == null || capability.getProperties().isEmpty()) {
+                    continue;
+                }
+                addRequiredPropertyIdToTaskProperties(capability.getProperties(), getCapabilitiesPropertyDefinition(nodeTemplate, typesContext), task);
+                if (capability.getType().equals(NormativeComputeConstants.SCALABLE_CAPABILITY_TYPE)) {
+                    Map<String, AbstractPropertyValue> scalableProperties = capability.getProperties();
+                    verifyScalableProperties(scalableProperties, toReturnTaskList, nodeTemplateName);
                 }
             }
+        }
 
-            if (MapUtils.isNotEmpty(task.getProperties())) {
-                if (CollectionUtils.isNotEmpty(task.getProperties().get(TaskLevel.REQUIRED))
-                        || CollectionUtils.isNotEmpty(task.getProperties().get(TaskLevel.WARNING))) {
-                    toReturnTaskList.add(task);
-                }
+        if (MapUtils.isNotEmpty(task.getProperties())) {
+            if (CollectionUtils.isNotEmpty(task.getProperties().get(TaskLevel.REQUIRED))
+                    || CollectionUtils.isNotEmpty(task.getProperties().get(TaskLevel.WARNING))) {
+                toReturnTaskList.add(task);
             }
         }
-        return toReturnTaskList.isEmpty() ? null : toReturnTaskList;
     }
 
-    private Map<String, PropertyDefinition> getCapabilitiesPropertyDefinition(Topology topology, NodeTemplate nodeTemplate) {
+    private Map<String, PropertyDefinition> getCapabilitiesPropertyDefinition(NodeTemplate nodeTemplate, TopologyTypesContext typesContext) {
         Map<String, PropertyDefinition> relatedProperties = Maps.newTreeMap();
 
         for (Map.Entry<String, Capability> capabilityEntry : nodeTemplate.getCapabilities().entrySet()) {
-            IndexedCapabilityType indexedCapabilityType = csarRepoSearchService.getRequiredElementInDependencies(IndexedCapabilityType.class, capabilityEntry
-                    .getValue().getType(), topology.getDependencies());
+            IndexedCapabilityType indexedCapabilityType = typesContext.getRequiredElement(IndexedCapabilityType.class, capabilityEntry.getValue().getType());
             if (indexedCapabilityType.getProperties() != null && !indexedCapabilityType.getProperties().isEmpty()) {
                 relatedProperties.putAll(indexedCapabilityType.getProperties());
             }
@@ -121,12 +149,12 @@ public class TopologyPropertiesValidationService {
         return relatedProperties;
     }
 
-    private Map<String, PropertyDefinition> getRelationshipPropertyDefinition(Topology topology, NodeTemplate nodeTemplate) {
+    private Map<String, PropertyDefinition> getRelationshipPropertyDefinition(NodeTemplate nodeTemplate, TopologyTypesContext typesContext) {
         Map<String, PropertyDefinition> relatedProperties = Maps.newTreeMap();
 
         for (Map.Entry<String, RelationshipTemplate> relationshipTemplateEntry : nodeTemplate.getRelationships().entrySet()) {
-            IndexedRelationshipType indexedRelationshipType = csarRepoSearchService.getRequiredElementInDependencies(IndexedRelationshipType.class,
-                    relationshipTemplateEntry.getValue().getType(), topology.getDependencies());
+            IndexedRelationshipType indexedRelationshipType = typesContext.getRequiredElement(IndexedRelationshipType.class, relationshipTemplateEntry.getValue()
+                    .getType());
             if (indexedRelationshipType.getProperties() != null && !indexedRelationshipType.getProperties().isEmpty()) {
                 relatedProperties.putAll(indexedRelationshipType.getProperties());
             }
@@ -8,6 +8,7 @@ import alien4cloud.model.topology.RelationshipTemplate;
 import alien4cloud.model.topology.Requirement;
 import alien4cloud.model.topology.Topology;
 import alien4cloud.paas.function.FunctionEvaluator;
+import alien4cloud.topology.TopologyTypesContext;
 import alien4cloud.topology.task.RequirementToSatisfy;
 import alien4cloud.topology.task.RequirementsTask;
 import alien4cloud.topology.task.TaskCode;
@@ -67,40 +68,59 @@ public class TopologyRequirementBoundsValidationServices {
      * @return A list of validation errors (tasks to be done to make the topology compliant).
      */
     public List<RequirementsTask> validateRequirementsLowerBounds(Topology topology) {
+        return validateRequirementsLowerBounds(topology, new TopologyTypesContext(csarRepoSearchService, topology.getDependencies()));
+    }
+
+    /**
+     * Perform validation of requirements bounds/occurences for the given topology.
+     * 
+     * @param topology The topology to check
+     * @param typesContext The context from which to get the types of the topology.
+     * @return A list of validation errors (tasks to be done to make the topology compliant).
+     */
+    public List<RequirementsTask> validateRequirementsLowerBounds(Topology topology, TopologyTypesContext typesContext) {
         List<RequirementsTask> toReturnTaskList = Lists.newArrayList();
         Map<String, NodeTemplate> nodeTemplates = topology.getNodeTemplates();
         for (Map.Entry<String, NodeTemplate> nodeTempEntry : nodeTemplates.entrySet()) {
-            NodeTemplate nodeTemp = nodeTempEntry.getValue();
-            if (nodeTemp.getRequirements() == null) {
-                continue;
-            }
-            IndexedNodeType relatedIndexedNodeType = csarRepoSearchService.getRequiredElementInDependencies(IndexedNodeType.class, nodeTemp.getType(),
-                    topology.getDependencies());
-            // do pass if abstract node
-            if (relatedIndexedNodeType.isAbstract()) {
-                continue;
-            }
-            RequirementsTask task = new RequirementsTask();
-            task.setNodeTemplateName(nodeTempEntry.getKey());
-            task.setCode(TaskCode.SATISFY_LOWER_BOUND);
-            task.setComponent(relatedIndexedNodeType);
-            task.setRequirementsToImplement(Lists.<RequirementToSatisfy> newArrayList());
-            if (CollectionUtils.isNotEmpty(relatedIndexedNodeType.getRequirements())) {
-                for (RequirementDefinition reqDef : relatedIndexedNodeType.getRequirements()) {
-                    int count = countRelationshipsForRequirement(reqDef.getId(), reqDef.getType(), nodeTemp.getRelationships());
-                    if (count < reqDef.getLowerBound()) {
-                        task.getRequirementsToImplement().add(new RequirementToSatisfy(reqDef.getId(), reqDef.getType(), reqDef.getLowerBound() - count));
-                        continue;
-                    }
-                }
-                if (CollectionUtils.isNotEmpty(task.getRequirementsToImplement())) {
-                    toReturnTaskList.add(task);
-                }
+            RequirementsTask task = validateRequirementsLowerBounds(nodeTempEntry.getKey(), nodeTempEntry.getValue(), typesContext);
+            if (task != null) {
+                toReturnTaskList.add(task);
             }
         }
         return toReturnTaskList.isEmpty() ? null : toReturnTaskList;
     }
 
+    /**
+     * Perform validation of requirements bounds/occurences for a single node template.
+     *
+     * @param nodeTemplateName The name of the node template to check.
+     * @param nodeTemp The node template to check.
+     * @param typesContext The context from which to get the types of the topology.
+     * @return The requirements to satisfy to make the node template compliant or null if the node template is compliant.
+     */
+    public RequirementsTask validateRequirementsLowerBounds(String nodeTemplateName, NodeTemplate nodeTemp, TopologyTypesContext typesContext) {
+        if (nodeTemp.getRequirements() == null) {
+            return null;
+        }
+        IndexedNodeType relatedIndexedNodeType = typesContext.getRequiredElement(IndexedNodeType.class, nodeTemp.getType());
+        // do pass if abstract node
+        if (relatedIndexedNodeType.isAbstract() || CollectionUtils.isEmpty(relatedIndexedNodeType.getRequirements())) {
+            return null;
+        }
+        RequirementsTask task = new RequirementsTask();
+        task.setNodeTemplateName(nodeTemplateName);
+        task.setCode(TaskCode.SATISFY_LOWER_BOUND);
+        task.setComponent(relatedIndexedNodeType);
+        task.setRequirementsToImplement(Lists.<RequirementToSatisfy> newArrayList());
+        for (RequirementDefinition reqDef : relatedIndexedNodeType.getRequirements()) {
+            int count = countRelationshipsForRequirement(reqDef.getId(), reqDef.getType(), nodeTemp.getRelationships());
+            if (count < reqDef.getLowerBound()) {
+                task.getRequirementsToImplement().add(new RequirementToSatisfy(reqDef.getId(), reqDef.getType(), reqDef.getLowerBound() - count));
+            }
+        }
+        return CollectionUtils.isNotEmpty(task.getRequirementsToImplement()) ? task : null;
+    }
+
     /**
      * Get the number of relationships from a node template that are actually linked to the given requirement.
      * 
@@ -0,0 +1,234 @@
+package alien4cloud.topology.validation;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.IndexedCapabilityType;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedRelationshipType;
+import alien4cloud.model.components.IndexedToscaElement;
+import alien4cloud.model.components.RequirementDefinition;
+import alien4cloud.model.topology.Capability;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.RelationshipTemplate;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.paas.wf.Workflow;
+import alien4cloud.paas.wf.validation.AbstractWorkflowError;
+import alien4cloud.topology.TopologyTypesContext;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Cache of the per-node and per-workflow validation results.
+ *
+ * Results are keyed by a hash of everything the validation depends on: the node template (or workflow) content, the nodes targeted by the node
+ * relationships, the topology dependencies and the identity and last update date of the types involved (including the capability types of the
+ * requirements). Editing a node only changes the key of this node (and of the nodes that target it) so a validation after an edit only recomputes the
+ * results of the modified part of the topology. Keys are content based so entries are never explicitly invalidated, they are evicted on size or when
+ * unused. Cached results are never shared with the callers: they are copied when put in and read from the cache.
+ */
+@Slf4j
+@Component
+public class TopologyValidationCache {
+    @Value("${topology_validation.cache_size:10000}")
+    private int cacheSize = 10000;
+    @Value("${topology_validation.cache_expire_minutes:60}")
+    private int cacheExpireMinutes = 60;
+
+    private final ObjectMapper mapper;
+    private Cache<String, NodeValidationResult> nodeResults;
+    /** Workflow errors, serialized. */
+    private Cache<String, String> workflowResults;
+
+    public TopologyValidationCache() {
+        mapper = new ObjectMapper();
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    }
+
+    @PostConstruct
+    public void init() {
+        nodeResults = CacheBuilder.newBuilder().maximumSize(cacheSize).expireAfterAccess(cacheExpireMinutes, TimeUnit.MINUTES).build();
+        workflowResults = CacheBuilder.newBuilder().maximumSize(cacheSize).expireAfterAccess(cacheExpireMinutes, TimeUnit.MINUTES).build();
+    }
+
+    /**
+     * Compute the key of the validation result of a node template.
+     *
+     * @param nodeTemplateName The name of the node template.
+     * @param nodeTemplate The node template.
+     * @param topology The topology that contains the node template.
+     * @param typesContext The context from which to get the types of the topology.
+     * @return The key of the node validation result or null if the node content cannot be hashed (then the result must not be cached).
+     */
+    public String getNodeKey(String nodeTemplateName, NodeTemplate nodeTemplate, Topology topology, TopologyTypesContext typesContext) {
+        try {
+            Hasher hasher = Hashing.sha1().newHasher();
+            putDependencies(hasher, topology.getDependencies());
+            putNode(hasher, nodeTemplateName, nodeTemplate, typesContext);
+            if (nodeTemplate.getRelationships() != null) {
+                for (RelationshipTemplate relationshipTemplate : nodeTemplate.getRelationships().values()) {
+                    putType(hasher, typesContext.getElement(IndexedRelationshipType.class, relationshipTemplate.getType()));
+                    NodeTemplate target = topology.getNodeTemplates().get(relationshipTemplate.getTarget());
+                    if (target != null) {
+                        putNode(hasher, relationshipTemplate.getTarget(), target, typesContext);
+                    }
+                }
+            }
+            return hasher.hash().toString();
+        } catch (JsonProcessingException e) {
+            log.debug("Unable to compute validation key of node <" + nodeTemplateName + ">, result will not be cached.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Compute the key of the validation result of a workflow.
+     *
+     * @param workflow The workflow, errors must have been cleared.
+     * @return The key of the workflow validation result or null if the workflow content cannot be hashed (then the result must not be cached).
+     */
+    public String getWorkflowKey(Workflow workflow) {
+        try {
+            return Hashing.sha1().hashString(mapper.writeValueAsString(workflow), Charsets.UTF_8).toString();
+        } catch (JsonProcessingException e) {
+            log.debug("Unable to compute validation key of workflow <" + workflow.getName() + ">, result will not be cached.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Get a cached node validation result.
+     *
+     * @param key The key of the node validation result.
+     * @return A copy of the cached result, that the caller can modify, or null if there is no cached result.
+     */
+    public NodeValidationResult getNodeResult(String key) {
+        NodeValidationResult result = key == null ? null : nodeResults.getIfPresent(key);
+        return result == null ? null : result.copy();
+    }
+
+    /**
+     * Cache a node validation result. A copy is cached so the tasks of the given result can still be modified by the caller.
+     *
+     * @param key The key of the node validation result.
+     * @param result The result to cache.
+     */
+    public void putNodeResult(String key, NodeValidationResult result) {
+        if (key != null) {
+            nodeResults.put(key, result.copy());
+        }
+    }
+
+    /**
+     * Get cached workflow errors.
+     *
+     * @param key The key of the workflow validation result.
+     * @return New instances of the cached errors or null if there is no cached result.
+     */
+    public List<AbstractWorkflowError> getWorkflowResult(String key) {
+        String errors = key == null ? null : workflowResults.getIfPresent(key);
+        if (errors == null) {
+            return null;
+        }
+        try {
+            return Lists.newArrayList(mapper.readValue(errors, AbstractWorkflowError[].class));
+        } catch (IOException e) {
+            log.debug("Unable to read cached errors of workflow validation <" + key + ">.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Cache workflow errors, errors are stored serialized so the cached result cannot be modified.
+     *
+     * @param key The key of the workflow validation result.
+     * @param errors The errors of the workflow.
+     */
+    public void putWorkflowResult(String key, List<AbstractWorkflowError> errors) {
+        if (key != null) {
+            try {
+                workflowResults.put(key, mapper.writerWithType(AbstractWorkflowError[].class).writeValueAsString(
+                        errors.toArray(new AbstractWorkflowError[errors.size()])));
+            } catch (JsonProcessingException e) {
+                log.debug("Unable to write errors of workflow validation <" + key + ">, result will not be cached.", e);
+            }
+        }
+    }
+
+    /**
+     * Remove all cached results.
+     */
+    public void invalidateAll() {
+        nodeResults.invalidateAll();
+        workflowResults.invalidateAll();
+    }
+
+    private void putDependencies(Hasher hasher, Set<CSARDependency> dependencies) {
+        if (dependencies == null) {
+            return;
+        }
+        for (String dependency : Sets.newTreeSet(dependencyIds(dependencies))) {
+            hasher.putString(dependency, Charsets.UTF_8).putByte((byte) 0);
+        }
+    }
+
+    private Set<String> dependencyIds(Set<CSARDependency> dependencies) {
+        Set<String> ids = Sets.newHashSet();
+        for (CSARDependency dependency : dependencies) {
+            ids.add(dependency.getName() + ":" + dependency.getVersion());
+        }
+        return ids;
+    }
+
+    private void putNode(Hasher hasher, String nodeTemplateName, NodeTemplate nodeTemplate, TopologyTypesContext typesContext) throws JsonProcessingException {
+        hasher.putString(nodeTemplateName, Charsets.UTF_8).putByte((byte) 0);
+        hasher.putString(mapper.writeValueAsString(nodeTemplate), Charsets.UTF_8).putByte((byte) 0);
+        IndexedNodeType nodeType = typesContext.getElement(IndexedNodeType.class, nodeTemplate.getType());
+        putType(hasher, nodeType);
+        if (nodeType != null && nodeType.getRequirements() != null) {
+            // requirements are validated against the capability types they require
+            for (RequirementDefinition requirementDefinition : nodeType.getRequirements()) {
+                putType(hasher, typesContext.getElement(IndexedCapabilityType.class, requirementDefinition.getType()));
+            }
+        }
+        if (nodeTemplate.getCapabilities() != null) {
+            for (Map.Entry<String, Capability> capabilityEntry : nodeTemplate.getCapabilities().entrySet()) {
+                putType(hasher, typesContext.getElement(IndexedCapabilityType.class, capabilityEntry.getValue().getType()));
+            }
+        }
+    }
+
+    private void putType(Hasher hasher, IndexedToscaElement element) {
+        if (element == null) {
+            hasher.putByte((byte) 0);
+            return;
+        }
+        hasher.putString(element.getId(), Charsets.UTF_8);
+        if (element.getLastUpdateDate() != null) {
+            hasher.putLong(element.getLastUpdateDate().getTime());
+        }
+        hasher.putByte((byte) 0);
+    }
+}
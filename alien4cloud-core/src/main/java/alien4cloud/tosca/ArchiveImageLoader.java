@@ -34,24 +34,42 @@ public class ArchiveImageLoader {
     /**
      * Import all images from the artifacts types in an archive.
      * 
-     * @param archiveFile The path to the archive root.
+     * @param archiveFile The path to the archive root (zip file or directory).
      * @param archiveRoot The archive root object.
      */
-    @SuppressWarnings("unchecked")
     public void importImages(Path archiveFile, ParsingResult<ArchiveRoot> parsingResult) {
-        importImages(archiveFile, parsingResult, parsingResult.getResult().getNodeTypes());
-        importImages(archiveFile, parsingResult, parsingResult.getResult().getRelationshipTypes());
-        importImages(archiveFile, parsingResult, parsingResult.getResult().getCapabilityTypes());
-        importImages(archiveFile, parsingResult, parsingResult.getResult().getArtifactTypes());
+        try (VirtualArchive archive = VirtualArchive.open(archiveFile)) {
+            importImages(archive, parsingResult);
+        } catch (IOException e) {
+            parsingResult
+                    .getContext()
+                    .getParsingErrors()
+                    .add(new ParsingError(ParsingErrorLevel.WARNING, ErrorCode.FAILED_TO_READ_FILE, "Icon loading", null, "IO error while opening archive <"
+                            + archiveFile + ">", null, archiveFile.toString()));
+        }
+    }
+
+    /**
+     * Import all images from the artifacts types in an archive.
+     * 
+     * @param archive The archive from which to load the images.
+     * @param archiveRoot The archive root object.
+     */
+    @SuppressWarnings("unchecked")
+    public void importImages(VirtualArchive archive, ParsingResult<ArchiveRoot> parsingResult) {
+        importImages(archive, parsingResult, parsingResult.getResult().getNodeTypes());
+        importImages(archive, parsingResult, parsingResult.getResult().getRelationshipTypes());
+        importImages(archive, parsingResult, parsingResult.getResult().getCapabilityTypes());
+        importImages(archive, parsingResult, parsingResult.getResult().getArtifactTypes());
 
         for (ParsingResult<?> subResult : parsingResult.getContext().getSubResults()) {
             if (subResult.getResult() instanceof ArchiveRoot) {
-                importImages(archiveFile, (ParsingResult<ArchiveRoot>) subResult);
+                importImages(archive, (ParsingResult<ArchiveRoot>) subResult);
             }
         }
     }
 
-    private void importImages(Path archiveFile, ParsingResult<ArchiveRoot> parsingResult,
+    private void importImages(VirtualArchive archive, ParsingResult<ArchiveRoot> parsingResult,
             Map<String, ? extends IndexedInheritableToscaElement> toscaInheritableElement) {
         if (toscaInheritableElement == null) {
             return;
@@ -61,12 +79,10 @@ public class ArchiveImageLoader {
                 List<Tag> tags = element.getValue().getTags();
                 Tag iconTag = ArchiveImageLoader.getIconTag(tags);
                 if (iconTag != null) {
-                    FileSystem csarFS = null;
                     Path iconPath = null;
 
                     try {
-                        csarFS = FileSystems.newFileSystem(archiveFile, null);
-                        iconPath = csarFS.getPath(iconTag.getValue());
+                        iconPath = archive.resolve(iconTag.getValue());
                         if (!Files.isDirectory(iconPath)) {
                             String iconId = UUID.randomUUID().toString();
                             // Saving the image
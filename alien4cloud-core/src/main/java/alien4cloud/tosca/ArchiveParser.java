@@ -1,7 +1,6 @@
 package alien4cloud.tosca;
 
 import java.io.IOException;
-import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
@@ -47,10 +46,32 @@ public class ArchiveParser {
     @Resource
     private Validator validator;
 
+    /**
+     * Parse a TOSCA archive.
+     * 
+     * @param archiveFile The path of the archive, either a zip file or the root directory of an expanded archive.
+     * @return The parsing result of the archive.
+     * @throws ParsingException In case there is a blocking issue while parsing the archive.
+     */
     public ParsingResult<ArchiveRoot> parse(Path archiveFile) throws ParsingException {
-        FileSystem csarFS;
+        VirtualArchive archive = open(archiveFile);
         try {
-            csarFS = FileSystems.newFileSystem(archiveFile, null);
+            return parse(archive);
+        } finally {
+            close(archive);
+        }
+    }
+
+    /**
+     * Open a TOSCA archive so it can be parsed and processed without being opened again.
+     * 
+     * @param archiveFile The path of the archive, either a zip file or the root directory of an expanded archive.
+     * @return The opened archive, callers are responsible for closing it (see {@link #close(VirtualArchive)}).
+     * @throws ParsingException In case the archive cannot be read.
+     */
+    public VirtualArchive open(Path archiveFile) throws ParsingException {
+        try {
+            return VirtualArchive.open(archiveFile);
         } catch (IOException e) {
             log.error("Unable to read uploaded archive [" + archiveFile + "]", e);
             throw new ParsingException("Archive", new ParsingError(ErrorCode.FAILED_TO_READ_FILE, "Problem happened while accessing file", null, null, null,
@@ -60,20 +81,42 @@ public class ArchiveParser {
             throw new ParsingException("Archive", new ParsingError(ErrorCode.ERRONEOUS_ARCHIVE_FILE, "File is not in good format, only zip file is supported ",
                     null, e.getMessage(), null, null));
         }
+    }
+
+    /**
+     * Close an archive opened by {@link #open(Path)}.
+     * 
+     * @param archive The archive to close.
+     */
+    public void close(VirtualArchive archive) {
+        try {
+            archive.close();
+        } catch (IOException e) {
+            log.warn("Failed to close archive [" + archive.getArchivePath() + "]", e);
+        }
+    }
 
-        if (Files.exists(csarFS.getPath(TOSCA_META_FILE_LOCATION))) {
-            return parseFromToscaMeta(csarFS);
-        } else if (Files.exists(csarFS.getPath(ALIEN_META_FILE_LOCATION))) {
-            return parseFromAlienMeta(csarFS);
+    /**
+     * Parse a TOSCA archive that has already been opened.
+     * 
+     * @param archive The archive to parse.
+     * @return The parsing result of the archive.
+     * @throws ParsingException In case there is a blocking issue while parsing the archive.
+     */
+    public ParsingResult<ArchiveRoot> parse(VirtualArchive archive) throws ParsingException {
+        if (Files.exists(archive.resolve(TOSCA_META_FILE_LOCATION))) {
+            return parseFromToscaMeta(archive);
+        } else if (Files.exists(archive.resolve(ALIEN_META_FILE_LOCATION))) {
+            return parseFromAlienMeta(archive);
         }
-        return parseFromRootDefinitions(csarFS);
+        return parseFromRootDefinitions(archive);
     }
 
     @Deprecated
-    private ParsingResult<ArchiveRoot> parseFromAlienMeta(FileSystem csarFS) throws ParsingException {
+    private ParsingResult<ArchiveRoot> parseFromAlienMeta(VirtualArchive archive) throws ParsingException {
         // add deprecated warning.
         YamlSimpleParser<ToscaMeta> parser = new YamlSimpleParser<ToscaMeta>(new ValidatedNodeParser<ToscaMeta>(validator, csarMetaMapping.getParser()));
-        ParsingResult<ToscaMeta> parsingResult = parser.parseFile(csarFS.getPath(ALIEN_META_FILE_LOCATION));
+        ParsingResult<ToscaMeta> parsingResult = parser.parseFile(archive.resolve(ALIEN_META_FILE_LOCATION));
         if (parsingResult.getResult().getEntryDefinitions() == null && parsingResult.getResult().getDefinitions().size() == 1) {
             parsingResult.getResult().setEntryDefinitions(parsingResult.getResult().getDefinitions().get(0));
         } else if (parsingResult.getResult().getDefinitions().size() > 1) {
@@ -85,14 +128,14 @@ public class ArchiveParser {
         Csar csar = new Csar();
         csar.setDependencies(parsingResult.getResult().getDependencies());
         archiveRoot.setArchive(csar);
-        ParsingResult<ArchiveRoot> archiveResult = parseFromToscaMeta(csarFS, parsingResult.getResult(), ALIEN_META_FILE_LOCATION, archiveRoot);
+        ParsingResult<ArchiveRoot> archiveResult = parseFromToscaMeta(archive, parsingResult.getResult(), ALIEN_META_FILE_LOCATION, archiveRoot);
         return mergeWithToscaMeta(archiveResult, parsingResult);
     }
 
-    private ParsingResult<ArchiveRoot> parseFromToscaMeta(FileSystem csarFS) throws ParsingException {
+    private ParsingResult<ArchiveRoot> parseFromToscaMeta(VirtualArchive archive) throws ParsingException {
         YamlSimpleParser<ToscaMeta> parser = new YamlSimpleParser<ToscaMeta>(toscaMetaMapping.getParser());
-        ParsingResult<ToscaMeta> parsingResult = parser.parseFile(csarFS.getPath(TOSCA_META_FILE_LOCATION));
-        ParsingResult<ArchiveRoot> archiveResult = parseFromToscaMeta(csarFS, parsingResult.getResult(), TOSCA_META_FILE_LOCATION, null);
+        ParsingResult<ToscaMeta> parsingResult = parser.parseFile(archive.resolve(TOSCA_META_FILE_LOCATION));
+        ParsingResult<ArchiveRoot> archiveResult = parseFromToscaMeta(archive, parsingResult.getResult(), TOSCA_META_FILE_LOCATION, null);
         return mergeWithToscaMeta(archiveResult, parsingResult);
     }
 
@@ -106,20 +149,20 @@ public class ArchiveParser {
         return archiveResult;
     }
 
-    private ParsingResult<ArchiveRoot> parseFromToscaMeta(FileSystem csarFS, ToscaMeta toscaMeta, String metaFileName, ArchiveRoot instance)
+    private ParsingResult<ArchiveRoot> parseFromToscaMeta(VirtualArchive archive, ToscaMeta toscaMeta, String metaFileName, ArchiveRoot instance)
             throws ParsingException {
         if (toscaMeta.getEntryDefinitions() != null) {
-            return toscaParser.parseFile(csarFS.getPath(toscaMeta.getEntryDefinitions()), instance);
+            return toscaParser.parseFile(archive.resolve(toscaMeta.getEntryDefinitions()), instance);
         }
         throw new ParsingException(metaFileName, new ParsingError(ErrorCode.ENTRY_DEFINITION_NOT_FOUND, "No entry definitions found in the meta file.", null,
                 null, null, null));
     }
 
-    private ParsingResult<ArchiveRoot> parseFromRootDefinitions(FileSystem csarFS) throws ParsingException {
+    private ParsingResult<ArchiveRoot> parseFromRootDefinitions(VirtualArchive archive) throws ParsingException {
         // load definitions from the archive root
         try {
-            DefinitionVisitor visitor = new DefinitionVisitor(csarFS);
-            Files.walkFileTree(csarFS.getPath(csarFS.getSeparator()), EnumSet.noneOf(FileVisitOption.class), 1, visitor);
+            DefinitionVisitor visitor = new DefinitionVisitor(archive.getFileSystem());
+            Files.walkFileTree(archive.getRoot(), EnumSet.noneOf(FileVisitOption.class), 1, visitor);
             if (visitor.getDefinitionFiles().size() == 1) {
                 return toscaParser.parseFile(visitor.getDefinitionFiles().get(0));
             }
@@ -50,25 +50,34 @@ public class ArchiveUploadService {
     /**
      * Upload a TOSCA archive and index it's components.
      * 
-     * @param path The archive path.
+     * @param path The archive path, either a zip file or the root directory of an expanded archive.
      * @return The Csar object from the parsing.
      * @throws ParsingException
      * @throws CSARVersionAlreadyExistsException
      */
     public ParsingResult<Csar> upload(Path path) throws ParsingException, CSARVersionAlreadyExistsException {
+        VirtualArchive archive = parser.open(path);
+        try {
+            return upload(archive);
+        } finally {
+            parser.close(archive);
+        }
+    }
+
+    private ParsingResult<Csar> upload(VirtualArchive archive) throws ParsingException, CSARVersionAlreadyExistsException {
         // TODO issue tolerance should depends of the version (SNAPSHOT) ?
 
         // parse the archive.
-        ParsingResult<ArchiveRoot> parsingResult = parser.parse(path);
+        ParsingResult<ArchiveRoot> parsingResult = parser.parse(archive);
         postProcessor.postProcess(parsingResult);
 
         String archiveName = parsingResult.getResult().getArchive().getName();
         String archiveVersion = parsingResult.getResult().getArchive().getVersion();
 
         // check if the archive already exists
-        Csar archive = csarService.getIfExists(archiveName, archiveVersion);
-        if (archive != null) {
-            if (!VersionUtil.isSnapshot(archive.getVersion())) {
+        Csar existingArchive = csarService.getIfExists(archiveName, archiveVersion);
+        if (existingArchive != null) {
+            if (!VersionUtil.isSnapshot(existingArchive.getVersion())) {
                 // Cannot override RELEASED CSAR .
                 throw new CSARVersionAlreadyExistsException("CSAR: " + archiveName + ", Version: " + archiveVersion + " already exists in the repository.");
             }
@@ -98,11 +107,11 @@ public class ArchiveUploadService {
         // save the archive (before we index and save other data so we can cleanup if anything goes wrong).
         csarService.save(parsingResult.getResult().getArchive());
         // save the archive in the repository
-        archiveRepositry.storeCSAR(archiveName, archiveVersion, path);
+        archiveRepositry.storeCSAR(archiveName, archiveVersion, archive.getArchivePath());
         // manage images before archive storage in the repository
-        imageLoader.importImages(path, parsingResult);
+        imageLoader.importImages(archive, parsingResult);
         // index the archive content in elastic-search
-        archiveIndexer.indexArchive(archiveName, archiveVersion, parsingResult.getResult(), archive != null);
+        archiveIndexer.indexArchive(archiveName, archiveVersion, parsingResult.getResult(), existingArchive != null);
 
         // if a topology has been added we want to notify the user
         if (parsingResult.getResult().getTopology() != null && !parsingResult.getResult().getTopology().isEmpty()) {
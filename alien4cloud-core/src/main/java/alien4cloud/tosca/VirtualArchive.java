@@ -0,0 +1,85 @@
+package alien4cloud.tosca;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import lombok.Getter;
+
+/**
+ * Uniform view of a TOSCA archive that can either be a zip file or an expanded directory tree (for example a folder checked-out from a git repository).
+ * Entries are accessed through {@link #resolve(String)} whatever the underlying storage is so the archive never has to be zipped just to be read.
+ */
+@Getter
+public class VirtualArchive implements Closeable {
+    /** Path of the archive (zip file or directory). */
+    private final Path archivePath;
+    /** Root of the archive content. */
+    private final Path root;
+    /** Zip file system opened to read the archive, null when the archive is a directory. */
+    private final FileSystem zipFileSystem;
+
+    private VirtualArchive(Path archivePath, Path root, FileSystem zipFileSystem) {
+        this.archivePath = archivePath;
+        this.root = root;
+        this.zipFileSystem = zipFileSystem;
+    }
+
+    /**
+     * Open an archive from a zip file or a directory.
+     *
+     * @param archivePath The path of the archive zip file or of the archive root directory.
+     * @return A virtual archive to access the archive entries, it must be closed once processing is done.
+     * @throws IOException In case the zip file cannot be opened.
+     * @throws java.nio.file.ProviderNotFoundException In case the file is not a directory nor a zip file.
+     */
+    public static VirtualArchive open(Path archivePath) throws IOException {
+        if (Files.isDirectory(archivePath)) {
+            return new VirtualArchive(archivePath, archivePath, null);
+        }
+        FileSystem csarFS = FileSystems.newFileSystem(archivePath, null);
+        return new VirtualArchive(archivePath, csarFS.getPath(csarFS.getSeparator()), csarFS);
+    }
+
+    /**
+     * Check if the archive is an expanded directory tree.
+     *
+     * @return true if the archive is a directory, false if it is a zip file.
+     */
+    public boolean isExpanded() {
+        return zipFileSystem == null;
+    }
+
+    /**
+     * Get the file system in which the archive entries are located.
+     *
+     * @return The file system of the archive entries.
+     */
+    public FileSystem getFileSystem() {
+        return root.getFileSystem();
+    }
+
+    /**
+     * Resolve the path of an entry in the archive.
+     *
+     * @param entry The path of the entry relative to the archive root, leading separators are ignored.
+     * @return The path of the entry.
+     */
+    public Path resolve(String entry) {
+        String relativeEntry = entry;
+        while (relativeEntry.startsWith("/") || relativeEntry.startsWith(getFileSystem().getSeparator())) {
+            relativeEntry = relativeEntry.substring(1);
+        }
+        return root.resolve(relativeEntry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (zipFileSystem != null) {
+            zipFileSystem.close();
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package alien4cloud.tosca.serializer;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -14,6 +16,8 @@ import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.runtime.RuntimeConstants;
 import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
 
+import com.google.common.base.Charsets;
+
 /**
  * A velocity Util class
  */
@@ -21,6 +25,8 @@ import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
 public class VelocityUtil {
 
     private static final VelocityEngine VELOCITY_ENGINE;
+    // Stateless so can be shared by all renderings
+    private static final ToscaSerializerUtils TOSCA_SERIALIZER_UTILS = new ToscaSerializerUtils();
 
     static {
         // ThreadSafe so can be shared
@@ -34,19 +40,42 @@ public class VelocityUtil {
         VELOCITY_ENGINE.init();
     }
 
+    /**
+     * Render a template to a writer, the writer is closed once the template has been rendered.
+     *
+     * @param path The classpath of the template.
+     * @param outputWriter The writer in which to render the template.
+     * @param properties The properties to use in the template.
+     * @throws IOException In case the rendering fails to write.
+     */
     public static void generate(String path, Writer outputWriter, Map<String, ?> properties) throws IOException {
-        Template template = VELOCITY_ENGINE.getTemplate(path, "UTF-8");
-        VelocityContext context = new VelocityContext();
-
-        for (Entry<String, ?> contextEntry : properties.entrySet()) {
-            context.put(contextEntry.getKey(), contextEntry.getValue());
-        }
-        context.put("utils", new ToscaSerializerUtils());
-
         try {
-            template.merge(context, outputWriter);
+            merge(path, outputWriter, properties);
         } finally {
             outputWriter.close();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Render a template as UTF-8 to an output stream. The stream is flushed but not closed so it can be an http response or an entry of a zip.
+     *
+     * @param path The classpath of the template.
+     * @param outputStream The stream in which to render the template.
+     * @param properties The properties to use in the template.
+     * @throws IOException In case the rendering fails to write.
+     */
+    public static void generate(String path, OutputStream outputStream, Map<String, ?> properties) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, Charsets.UTF_8));
+        merge(path, writer, properties);
+        writer.flush();
+    }
+
+    private static void merge(String path, Writer writer, Map<String, ?> properties) {
+        // properties are wrapped rather than copied, variables set by the template (loop variables...) go to the outer context and leave them unchanged
+        VelocityContext context = new VelocityContext(new VelocityContext(properties));
+        context.put("utils", TOSCA_SERIALIZER_UTILS);
+        // parsed templates are cached by the classpath resource loader
+        Template template = VELOCITY_ENGINE.getTemplate(path, "UTF-8");
+        template.merge(context, writer);
+    }
+}
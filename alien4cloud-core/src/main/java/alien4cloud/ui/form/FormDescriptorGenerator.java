@@ -3,20 +3,27 @@ package alien4cloud.ui.form;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import javax.annotation.Resource;
 import javax.validation.constraints.NotNull;
 
+import lombok.AllArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.stereotype.Component;
 
 import alien4cloud.model.components.PropertyDefinition;
+import alien4cloud.plugin.IPluginLoadingCallback;
+import alien4cloud.plugin.model.ManagedPlugin;
+import alien4cloud.rest.utils.JsonUtil;
 import alien4cloud.ui.form.annotation.FormContentTypes;
 import alien4cloud.ui.form.annotation.FormCustomType;
 import alien4cloud.ui.form.annotation.FormLabel;
@@ -29,12 +36,19 @@ import alien4cloud.ui.form.annotation.FormValidValues;
 import alien4cloud.ui.form.exception.FormDescriptorGenerationException;
 import alien4cloud.utils.ReflectionUtil;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 @Slf4j
 @Component
-public class FormDescriptorGenerator {
+public class FormDescriptorGenerator implements IPluginLoadingCallback {
 
     private static final String SUGGESTION_KEY = "_suggestion";
     private static final String CONTENT_TYPE_KEY = "_contentType";
@@ -65,8 +79,70 @@ public class FormDescriptorGenerator {
     @Setter
     private PropertyDefinitionConverter propertyDefinitionConverter;
 
+    /** Descriptors per class, keys are weak so the classes of unloaded plugins are not retained. */
+    private final Cache<Class<?>, CachedDescriptor> descriptors = CacheBuilder.newBuilder().weakKeys().build();
+
+    /**
+     * Get the form descriptor of a class. Descriptors are generated once per class and shared, they are unmodifiable.
+     *
+     * @param clazz The class for which to get the descriptor.
+     * @return The form descriptor of the class.
+     */
     public Map<String, Object> generateDescriptor(Class<?> clazz) {
-        return buildComplexTypeDescriptor(clazz);
+        return getCachedDescriptor(clazz).descriptor;
+    }
+
+    /**
+     * Get a tag of the form descriptor of a class that changes only if the content of the descriptor changes, to be used as an http ETag.
+     *
+     * @param clazz The class for which to get the descriptor tag.
+     * @return The quoted tag of the descriptor.
+     */
+    public String getDescriptorETag(Class<?> clazz) {
+        return getCachedDescriptor(clazz).etag;
+    }
+
+    private CachedDescriptor getCachedDescriptor(final Class<?> clazz) {
+        try {
+            return descriptors.get(clazz, new Callable<CachedDescriptor>() {
+                @Override
+                public CachedDescriptor call() throws JsonProcessingException {
+                    Map<String, Object> descriptor = unmodifiableDescriptor(buildComplexTypeDescriptor(clazz));
+                    String hash = Hashing.sha1().hashString(JsonUtil.toString(descriptor), Charsets.UTF_8).toString();
+                    return new CachedDescriptor(descriptor, "\"" + hash + "\"");
+                }
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Wrap a descriptor and the descriptors it contains in unmodifiable maps so the shared cached descriptor cannot be altered by its users.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> unmodifiableDescriptor(Map<String, Object> descriptor) {
+        for (Map.Entry<String, Object> entry : descriptor.entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                entry.setValue(unmodifiableDescriptor((Map<String, Object>) entry.getValue()));
+            }
+        }
+        return Collections.unmodifiableMap(descriptor);
+    }
+
+    @Override
+    public void onPluginLoaded(ManagedPlugin managedPlugin) {
+        // descriptors of plugin classes are generated on demand.
+    }
+
+    @Override
+    public void onPluginClosed(ManagedPlugin managedPlugin) {
+        ClassLoader pluginClassLoader = managedPlugin.getPluginContext().getClassLoader();
+        for (Class<?> clazz : descriptors.asMap().keySet()) {
+            if (clazz.getClassLoader() == pluginClassLoader) {
+                descriptors.invalidate(clazz);
+            }
+        }
     }
 
     private Map<String, Object> buildComplexTypeDescriptor(Class<?> clazz) {
@@ -331,4 +407,9 @@ public class FormDescriptorGenerator {
         return ReflectionUtil.getAnnotation(clazz, NotNull.class, property) != null;
     }
 
+    @AllArgsConstructor
+    private static class CachedDescriptor {
+        private final Map<String, Object> descriptor;
+        private final String etag;
+    }
 }
@@ -1,5 +1,6 @@
 package alien4cloud.utils;
 
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import alien4cloud.utils.version.InvalidVersionException;
@@ -17,6 +18,11 @@ public final class VersionUtil {
      */
     public static final Pattern VERSION_PATTERN = Pattern.compile("\\d+(?:\\.\\d+)*(?:[\\.-]\\p{Alnum}+)*");
     private static final String SNAPSHOT_IDENTIFIER = "SNAPSHOT";
+    private static final Pattern VERSION_TOKEN_PATTERN = Pattern.compile("([\\.-]?)([^\\.-]+)");
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+");
+    private static final int MAX_KEY_NUMBER = 0xFFFF;
+    private static final int MAX_KEY_BUILD_NUMBER = 0x3FF;
+    private static final int RELEASE_RANK = 6;
 
     /**
      * Check if a version is a SNAPSHOT (development) version.
@@ -63,4 +69,65 @@ public final class VersionUtil {
     public static int compare(String versionLeft, String versionRight) {
         return parseVersion(versionLeft).compareTo(parseVersion(versionRight));
     }
+
+    /**
+     * Compute a numeric key that sorts versions as {@link #compare(String, String)} does. The key is built from the tokens of the version: the first three
+     * numbers separated by '.' (each capped to 65535), then a fourth number separated by '.' or a number following a '-' as build number (capped to 1023)
+     * and finally the first alphanumeric token as qualifier (alpha, beta, milestone, rc, SNAPSHOT, sp). Versions with more numbers or larger ones get the
+     * closest key so they can still be sorted but ties are possible.
+     *
+     * @param version The version text.
+     * @return A positive key, higher for more recent versions.
+     */
+    public static long toSortableKey(String version) {
+        long[] numbers = new long[3];
+        int numberCount = 0;
+        long buildNumber = 0;
+        String qualifier = null;
+        Matcher tokens = VERSION_TOKEN_PATTERN.matcher(version);
+        while (qualifier == null && tokens.find()) {
+            String token = tokens.group(2);
+            if (!NUMBER_PATTERN.matcher(token).matches()) {
+                qualifier = token;
+            } else if (numberCount < numbers.length && !"-".equals(tokens.group(1))) {
+                numbers[numberCount++] = toKeyNumber(token, MAX_KEY_NUMBER);
+            } else if (buildNumber == 0) {
+                buildNumber = toKeyNumber(token, MAX_KEY_BUILD_NUMBER);
+            }
+        }
+        long key = numbers[0];
+        key = (key << 16) | numbers[1];
+        key = (key << 16) | numbers[2];
+        key = (key << 10) | buildNumber;
+        return (key << 4) | getQualifierRank(qualifier);
+    }
+
+    private static long toKeyNumber(String token, int max) {
+        // don't parse numbers that would overflow, they are above the max anyway
+        return token.length() > 5 ? max : Math.min(Integer.parseInt(token), max);
+    }
+
+    private static int getQualifierRank(String qualifier) {
+        if (qualifier == null) {
+            return RELEASE_RANK;
+        }
+        String lowerQualifier = qualifier.toLowerCase();
+        // qualifiers ordered as maven does
+        if (lowerQualifier.contains("snapshot")) {
+            return 5;
+        } else if (lowerQualifier.startsWith("alpha")) {
+            return 1;
+        } else if (lowerQualifier.startsWith("beta")) {
+            return 2;
+        } else if (lowerQualifier.startsWith("milestone")) {
+            return 3;
+        } else if (lowerQualifier.startsWith("rc") || lowerQualifier.startsWith("cr")) {
+            return 4;
+        } else if (lowerQualifier.isEmpty() || lowerQualifier.equals("ga") || lowerQualifier.equals("final")) {
+            return RELEASE_RANK;
+        } else if (lowerQualifier.startsWith("sp")) {
+            return 7;
+        }
+        return 8;
+    }
 }
\ No newline at end of file
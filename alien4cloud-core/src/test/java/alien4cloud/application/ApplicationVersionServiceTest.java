@@ -12,6 +12,8 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.model.application.ApplicationVersion;
 import alien4cloud.model.application.DeploymentSetup;
 import alien4cloud.model.deployment.Deployment;
 import alien4cloud.model.deployment.DeploymentSourceType;
@@ -70,4 +72,24 @@ public class ApplicationVersionServiceTest {
         // this is supposed to find if a matching deployment object exists in ES.
         Assert.assertTrue(appVersionSrv.isApplicationVersionDeployed(versionId));
     }
+
+    @Test
+    public void versionsShouldBeSortedByVersionNumber() {
+        String applicationId = UUID.randomUUID().toString();
+        for (String version : new String[] { "1.0.0-SNAPSHOT", "0.10.0", "0.9.0", "1.0.0", "0.1.0-SNAPSHOT" }) {
+            ApplicationVersion applicationVersion = new ApplicationVersion();
+            applicationVersion.setId(UUID.randomUUID().toString());
+            applicationVersion.setApplicationId(applicationId);
+            applicationVersion.setVersion(version);
+            dao.save(applicationVersion);
+        }
+
+        Assert.assertEquals("1.0.0", appVersionSrv.getLatestVersion(applicationId).getVersion());
+        Assert.assertEquals("0.1.0-SNAPSHOT", appVersionSrv.getOldestVersion(applicationId).getVersion());
+        GetMultipleDataResult<ApplicationVersion> page = appVersionSrv.searchVersions(applicationId, null, 1, 3);
+        Assert.assertEquals(5, page.getTotalResults());
+        Assert.assertEquals("1.0.0-SNAPSHOT", page.getData()[0].getVersion());
+        Assert.assertEquals("0.10.0", page.getData()[1].getVersion());
+        Assert.assertEquals("0.9.0", page.getData()[2].getVersion());
+    }
 }
@@ -0,0 +1,63 @@
+package alien4cloud.application;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.application.ApplicationEnvironment;
+import alien4cloud.model.application.ApplicationVersion;
+import alien4cloud.model.application.DeploymentSetup;
+
+import com.google.common.collect.Lists;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeploymentSetupServiceTest {
+    @Mock
+    private IGenericSearchDAO alienDAO;
+    @Mock
+    private ApplicationVersionService applicationVersionService;
+    @Mock
+    private ApplicationEnvironmentService applicationEnvironmentService;
+    @InjectMocks
+    private DeploymentSetupService deploymentSetupService;
+
+    private ApplicationEnvironment environment(String id) {
+        ApplicationEnvironment environment = new ApplicationEnvironment();
+        environment.setId(id);
+        environment.setCurrentVersionId("version");
+        return environment;
+    }
+
+    @Test
+    public void setupsOfEveryEnvironmentShouldBeFetchedAtOnce() {
+        ApplicationVersion version = new ApplicationVersion();
+        version.setId("version");
+        Mockito.when(applicationVersionService.getByTopologyId("topology")).thenReturn(version);
+        Mockito.when(applicationEnvironmentService.getByVersionId("version")).thenReturn(
+                new ApplicationEnvironment[] { environment("dev"), environment("test"), environment("prod") });
+        DeploymentSetup devSetup = new DeploymentSetup();
+        devSetup.setId("version::dev");
+        DeploymentSetup prodSetup = new DeploymentSetup();
+        prodSetup.setId("version::prod");
+        // the test environment has no setup
+        Mockito.when(alienDAO.findByIds(DeploymentSetup.class, "version::dev", "version::test", "version::prod")).thenReturn(
+                Lists.newArrayList(devSetup, prodSetup));
+
+        DeploymentSetup[] deploymentSetups = deploymentSetupService.getByTopologyId("topology");
+
+        Assert.assertArrayEquals(new DeploymentSetup[] { devSetup, prodSetup }, deploymentSetups);
+        Mockito.verify(alienDAO, Mockito.never()).findById(Matchers.eq(DeploymentSetup.class), Matchers.anyString());
+    }
+
+    @Test
+    public void topologyWithoutVersionShouldHaveNoSetup() {
+        Assert.assertEquals(0, deploymentSetupService.getByTopologyId("topology").length);
+        Mockito.verify(alienDAO, Mockito.never()).findByIds(Matchers.eq(DeploymentSetup.class), Matchers.<String> anyVararg());
+    }
+}
@@ -0,0 +1,153 @@
+package alien4cloud.application;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.components.AbstractPropertyValue;
+import alien4cloud.model.topology.NodeGroup;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.RelationshipTemplate;
+import alien4cloud.model.topology.SubstitutionMapping;
+import alien4cloud.model.topology.SubstitutionTarget;
+import alien4cloud.model.topology.Topology;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class TopologyCompositionServiceTest {
+    private static final int CHILD_NODE_COUNT = 1000;
+
+    @Mock
+    private IGenericSearchDAO alienDAO;
+    @Mock
+    private TopologySubstitutionGraph topologySubstitutionGraph;
+    @InjectMocks
+    private TopologyCompositionService topologyCompositionService;
+
+    @Before
+    public void before() {
+        Mockito.when(topologySubstitutionGraph.getSubstitutedNodes(Matchers.any(Topology.class))).thenAnswer(new Answer<Map<String, String>>() {
+            @Override
+            public Map<String, String> answer(InvocationOnMock invocation) throws Throwable {
+                Map<String, String> substitutedNodes = Maps.newHashMap();
+                for (Map.Entry<String, NodeTemplate> nodeTemplateEntry : ((Topology) invocation.getArguments()[0]).getNodeTemplates().entrySet()) {
+                    if ("proxy.type".equals(nodeTemplateEntry.getValue().getType())) {
+                        substitutedNodes.put(nodeTemplateEntry.getKey(), "child");
+                    }
+                }
+                return substitutedNodes;
+            }
+        });
+    }
+
+    private NodeTemplate nodeTemplate(String type) {
+        NodeTemplate nodeTemplate = new NodeTemplate();
+        nodeTemplate.setType(type);
+        nodeTemplate.setProperties(Maps.<String, AbstractPropertyValue> newHashMap());
+        return nodeTemplate;
+    }
+
+    private RelationshipTemplate relationshipTemplate(String target, String targetedCapabilityName) {
+        RelationshipTemplate relationshipTemplate = new RelationshipTemplate();
+        relationshipTemplate.setType("relationship.type");
+        relationshipTemplate.setTarget(target);
+        relationshipTemplate.setTargetedCapabilityName(targetedCapabilityName);
+        return relationshipTemplate;
+    }
+
+    private Topology generateChild() {
+        Topology child = new Topology();
+        child.setId("child");
+        Map<String, NodeTemplate> nodeTemplates = Maps.newHashMap();
+        Set<String> members = Sets.newHashSet();
+        for (int i = 0; i < CHILD_NODE_COUNT; i++) {
+            NodeTemplate nodeTemplate = nodeTemplate("simple.type");
+            if (i > 0) {
+                Map<String, RelationshipTemplate> relationships = Maps.newHashMap();
+                relationships.put("dependsOn", relationshipTemplate("node_" + (i - 1), "feature"));
+                nodeTemplate.setRelationships(relationships);
+            }
+            nodeTemplates.put("node_" + i, nodeTemplate);
+            members.add("node_" + i);
+        }
+        child.setNodeTemplates(nodeTemplates);
+        NodeGroup group = new NodeGroup();
+        group.setName("group");
+        group.setMembers(members);
+        child.setGroups(Maps.newHashMap(Collections.singletonMap("group", group)));
+        child.setOutputAttributes(Maps.newHashMap(Collections.<String, Set<String>> singletonMap("node_1", Sets.newHashSet("ip_address"))));
+        SubstitutionMapping substitutionMapping = new SubstitutionMapping();
+        substitutionMapping.setCapabilities(Maps.newHashMap(Collections.singletonMap("host", new SubstitutionTarget("node_0", "host"))));
+        child.setSubstitutionMapping(substitutionMapping);
+        return child;
+    }
+
+    private Topology generateParent() {
+        Topology parent = new Topology();
+        Map<String, NodeTemplate> nodeTemplates = Maps.newHashMap();
+        nodeTemplates.put("compute", nodeTemplate("proxy.type"));
+        NodeTemplate server = nodeTemplate("simple.type");
+        Map<String, RelationshipTemplate> relationships = Maps.newHashMap();
+        relationships.put("hostedOn", relationshipTemplate("compute", "host"));
+        server.setRelationships(relationships);
+        nodeTemplates.put("server", server);
+        parent.setNodeTemplates(nodeTemplates);
+        return parent;
+    }
+
+    @Test
+    public void compositionShouldPrefixAndRedirectChildNodes() {
+        Topology parent = generateParent();
+        Mockito.when(alienDAO.findByIds(Topology.class, "child")).thenReturn(Lists.newArrayList(generateChild()));
+
+        long start = System.currentTimeMillis();
+        topologyCompositionService.processTopologyComposition(parent);
+        log.info("Composed a topology with <{}> substituted nodes in <{}> ms", CHILD_NODE_COUNT, System.currentTimeMillis() - start);
+
+        Assert.assertEquals(CHILD_NODE_COUNT + 1, parent.getNodeTemplates().size());
+        Assert.assertFalse(parent.getNodeTemplates().containsKey("compute"));
+        Assert.assertEquals("compute_node_0", parent.getNodeTemplates().get("server").getRelationships().get("hostedOn").getTarget());
+        for (int i = 1; i < CHILD_NODE_COUNT; i++) {
+            NodeTemplate nodeTemplate = parent.getNodeTemplates().get("compute_node_" + i);
+            Assert.assertNotNull(nodeTemplate);
+            Assert.assertEquals("compute_node_" + (i - 1), nodeTemplate.getRelationships().get("dependsOn").getTarget());
+        }
+        // the redirected relationship from the parent and the one from the next child node
+        Assert.assertEquals(2, parent.getRelationshipIndex().getIncomingRelationships("compute_node_0").size());
+    }
+
+    @Test
+    public void renamedChildShouldKeepGroupsOutputsAndSubstitutionTargetsConsistent() {
+        Topology child = generateChild();
+        Mockito.when(alienDAO.findByIds(Topology.class, "child")).thenReturn(Lists.newArrayList(child));
+
+        topologyCompositionService.processTopologyComposition(generateParent());
+
+        Set<String> members = child.getGroups().get("group").getMembers();
+        Assert.assertEquals(CHILD_NODE_COUNT, members.size());
+        for (String member : members) {
+            Assert.assertTrue(member.startsWith("compute_node_"));
+        }
+        Assert.assertTrue(child.getOutputAttributes().containsKey("compute_node_1"));
+        Assert.assertEquals("compute_node_0", child.getSubstitutionMapping().getCapabilities().get("host").getNodeTemplateName());
+    }
+}
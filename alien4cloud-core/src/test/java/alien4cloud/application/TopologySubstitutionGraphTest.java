@@ -0,0 +1,174 @@
+package alien4cloud.application;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import alien4cloud.component.ICSARRepositoryIndexerService;
+import alien4cloud.component.ICSARRepositorySearchService;
+import alien4cloud.csar.services.CsarService;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.components.Csar;
+import alien4cloud.model.components.IndexedInheritableToscaElement;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.templates.TopologyTemplate;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.SubstitutionMapping;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.topology.TopologyServiceCore;
+import alien4cloud.topology.TopologyTemplateVersionService;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TopologySubstitutionGraphTest {
+    @Mock
+    private ICSARRepositorySearchService csarRepoSearchService;
+    @Mock
+    private IGenericSearchDAO alienDAO;
+    @Mock
+    private TopologyTemplateVersionService topologyTemplateVersionService;
+    @Mock
+    private CsarService csarService;
+    @Mock
+    private ICSARRepositoryIndexerService indexerService;
+    @InjectMocks
+    private TopologySubstitutionGraph topologySubstitutionGraph;
+    @InjectMocks
+    private TopologyServiceCore topologyServiceCore;
+
+    /** Substitution topology ids of the types indexed by the tests. */
+    private final Map<String, String> indexedSubstitutions = Maps.newHashMap();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        topologySubstitutionGraph.init();
+        topologyServiceCore.setTopologySubstitutionGraph(topologySubstitutionGraph);
+        // types named "substitution.<id>" are substituted by the topology <id>
+        Mockito.when(csarRepoSearchService.getElementsInDependencies(Matchers.eq(IndexedNodeType.class), Matchers.anyCollection(), Matchers.anyCollection()))
+                .thenAnswer(new Answer<Map<String, IndexedNodeType>>() {
+                    @Override
+                    public Map<String, IndexedNodeType> answer(InvocationOnMock invocation) throws Throwable {
+                        Map<String, IndexedNodeType> types = Maps.newHashMap();
+                        for (String elementId : (Collection<String>) invocation.getArguments()[1]) {
+                            IndexedNodeType type = new IndexedNodeType();
+                            type.setElementId(elementId);
+                            if (indexedSubstitutions.containsKey(elementId)) {
+                                type.setSubstitutionTopologyId(indexedSubstitutions.get(elementId));
+                            } else if (elementId.startsWith("substitution.")) {
+                                type.setSubstitutionTopologyId(elementId.substring("substitution.".length()));
+                            }
+                            types.put(elementId, type);
+                        }
+                        return types;
+                    }
+                });
+    }
+
+    private Topology topology(String id, String... types) {
+        Topology topology = new Topology();
+        topology.setId(id);
+        Map<String, NodeTemplate> nodeTemplates = Maps.newHashMap();
+        for (int i = 0; i < types.length; i++) {
+            NodeTemplate nodeTemplate = new NodeTemplate();
+            nodeTemplate.setType(types[i]);
+            nodeTemplates.put("node_" + i, nodeTemplate);
+        }
+        topology.setNodeTemplates(nodeTemplates);
+        return topology;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void substitutedNodesShouldBeResolvedOnceWhileTypesDontChange() {
+        Topology topology = topology("parent", "simple.type", "substitution.child");
+        Assert.assertEquals("child", topologySubstitutionGraph.getSubstitutedNodes(topology).get("node_1"));
+        Assert.assertEquals("child", topologySubstitutionGraph.getSubstitutedNodes(topology("parent", "simple.type", "substitution.child")).get("node_1"));
+        Mockito.verify(csarRepoSearchService, Mockito.times(1)).getElementsInDependencies(Matchers.eq(IndexedNodeType.class), Matchers.anyCollection(),
+                Matchers.anyCollection());
+
+        // a node type changed, the edges are recomputed
+        Assert.assertTrue(topologySubstitutionGraph.getSubstitutedNodes(topology("parent", "simple.type", "simple.type")).isEmpty());
+        Mockito.verify(csarRepoSearchService, Mockito.times(2)).getElementsInDependencies(Matchers.eq(IndexedNodeType.class), Matchers.anyCollection(),
+                Matchers.anyCollection());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void reuploadedSubstitutionShouldBeComposed() {
+        // the topology template type is substituted by the topology of the first upload
+        indexedSubstitutions.put("child.template", "child_v1");
+        Topology parent = topology("parent", "simple.type", "child.template");
+        Assert.assertEquals("child_v1", topologySubstitutionGraph.getSubstitutedNodes(parent).get("node_1"));
+
+        // the archive is uploaded again, a new topology substitutes the type
+        IndexedNodeType baseType = new IndexedNodeType();
+        baseType.setElementId("tosca.nodes.Root");
+        baseType.setArchiveName("tosca-normative-types");
+        baseType.setArchiveVersion("1.0.0");
+        Mockito.when(csarRepoSearchService.getElementInDependencies(Matchers.eq(IndexedNodeType.class), Matchers.eq("tosca.nodes.Root"), Matchers.anyCollection()))
+                .thenReturn(baseType);
+        Mockito.when(csarService.getTopologySubstitutionCsar("child_v2")).thenReturn(new Csar("child.template", "1.0.0-SNAPSHOT"));
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                IndexedNodeType type = (IndexedNodeType) invocation.getArguments()[2];
+                indexedSubstitutions.put(type.getElementId(), type.getSubstitutionTopologyId());
+                return null;
+            }
+        }).when(indexerService).indexInheritableElement(Matchers.anyString(), Matchers.anyString(), Matchers.any(IndexedInheritableToscaElement.class),
+                Matchers.anyCollection());
+
+        Topology child = topology("child_v2", "simple.type");
+        child.setDelegateType(TopologyTemplate.class.getSimpleName().toLowerCase());
+        child.setSubstitutionMapping(new SubstitutionMapping());
+        child.getSubstitutionMapping().setSubstitutionType(baseType);
+        topologyServiceCore.updateSubstitutionType(child);
+
+        // composing the unchanged parent topology uses the new substitution topology
+        Assert.assertEquals("child_v2", topologySubstitutionGraph.getSubstitutedNodes(parent).get("node_1"));
+    }
+
+    @Test
+    public void descendantsShouldBeFoundThroughTheGraph() {
+        final Map<String, Topology> topologies = Maps.newHashMap();
+        topologies.put("a", topology("a", "substitution.b", "substitution.c"));
+        topologies.put("b", topology("b", "simple.type"));
+        topologies.put("c", topology("c", "substitution.d"));
+        topologies.put("d", topology("d", "simple.type"));
+        Mockito.when(alienDAO.findByIds(Matchers.eq(Topology.class), Matchers.<String> anyVararg())).thenAnswer(new Answer<List<Topology>>() {
+            @Override
+            public List<Topology> answer(InvocationOnMock invocation) throws Throwable {
+                List<Topology> found = Lists.newArrayList();
+                for (Object argument : invocation.getArguments()) {
+                    Object[] ids = argument instanceof Object[] ? (Object[]) argument : new Object[] { argument };
+                    for (Object id : ids) {
+                        if (topologies.containsKey(id)) {
+                            found.add(topologies.get(id));
+                        }
+                    }
+                }
+                return found;
+            }
+        });
+
+        Assert.assertTrue(topologySubstitutionGraph.hasDescendant("a", "d"));
+        Assert.assertFalse(topologySubstitutionGraph.hasDescendant("a", "e"));
+        // the graph is walked one depth at a time
+        Mockito.verify(alienDAO, Mockito.times(5)).findByIds(Matchers.eq(Topology.class), Matchers.<String> anyVararg());
+    }
+}
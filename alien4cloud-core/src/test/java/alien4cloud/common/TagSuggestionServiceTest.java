@@ -0,0 +1,91 @@
+package alien4cloud.common;
+
+import org.elasticsearch.index.query.FilterBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.model.application.Application;
+import alien4cloud.model.common.Tag;
+import alien4cloud.model.components.IndexedNodeType;
+
+import com.google.common.collect.Lists;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TagSuggestionServiceTest {
+    @Mock
+    private IGenericSearchDAO alienDAO;
+    @InjectMocks
+    private TagSuggestionService tagSuggestionService;
+
+    @Before
+    public void before() {
+        Application application = new Application();
+        application.setTags(Lists.newArrayList(new Tag("version", "1.0"), new Tag("vendor", "alien")));
+        IndexedNodeType nodeType = new IndexedNodeType();
+        nodeType.setTags(Lists.newArrayList(new Tag("icon", "icon.png"), new Tag("version_1", "2.0")));
+        GetMultipleDataResult<Object> result = new GetMultipleDataResult<Object>(new String[] { "application", "indexednodetype" }, new Object[] {
+                application, nodeType });
+        result.setTotalResults(2);
+        Mockito.when(
+                alienDAO.search(Matchers.any(String[].class), Matchers.any(Class[].class), Matchers.anyString(), Matchers.anyMap(),
+                        Matchers.any(FilterBuilder.class), Matchers.anyString(), Matchers.anyInt(), Matchers.anyInt())).thenReturn(result);
+    }
+
+    private void verifyLoads(int count) {
+        Mockito.verify(alienDAO, Mockito.times(count)).search(Matchers.any(String[].class), Matchers.any(Class[].class), Matchers.anyString(),
+                Matchers.anyMap(), Matchers.any(FilterBuilder.class), Matchers.anyString(), Matchers.anyInt(), Matchers.anyInt());
+    }
+
+    @Test
+    public void suggestionsShouldBeReadFromTheDictionary() {
+        Assert.assertArrayEquals(new String[] { "vendor", "version", "version_1" }, tagSuggestionService.suggest(TagSuggestionService.NAME_PATH, "ve", 10));
+        Assert.assertArrayEquals(new String[] { "vendor", "version" }, tagSuggestionService.suggest(TagSuggestionService.NAME_PATH, "ve", 2));
+        Assert.assertArrayEquals(new String[] { "1.0", "2.0", "alien", "icon.png" }, tagSuggestionService.suggest(TagSuggestionService.VALUE_PATH, "", 10));
+        Assert.assertEquals(0, tagSuggestionService.suggest(TagSuggestionService.NAME_PATH, "x", 10).length);
+        verifyLoads(1);
+    }
+
+    @Test
+    public void registeredTagsShouldBeSuggestedWithoutReload() {
+        tagSuggestionService.suggest(TagSuggestionService.NAME_PATH, "", 10);
+        Application application = new Application();
+        application.setTags(Lists.newArrayList(new Tag("owner", "me")));
+        tagSuggestionService.register(application);
+        Assert.assertArrayEquals(new String[] { "owner" }, tagSuggestionService.suggest(TagSuggestionService.NAME_PATH, "o", 10));
+        verifyLoads(1);
+
+        // removals reload the dictionary
+        tagSuggestionService.invalidate();
+        Assert.assertEquals(0, tagSuggestionService.suggest(TagSuggestionService.NAME_PATH, "o", 10).length);
+        verifyLoads(2);
+    }
+
+    @Test
+    public void replacedTagValuesShouldReloadTheDictionary() {
+        TagService tagService = new TagService();
+        ReflectionTestUtils.setField(tagService, "alienDAO", alienDAO);
+        ReflectionTestUtils.setField(tagService, "tagSuggestionService", tagSuggestionService);
+        Application application = new Application();
+        tagSuggestionService.suggest(TagSuggestionService.VALUE_PATH, "", 10);
+
+        // new tags are registered
+        tagService.upsertTag(application, "owner", "me");
+        Assert.assertArrayEquals(new String[] { "me" }, tagSuggestionService.suggest(TagSuggestionService.VALUE_PATH, "m", 10));
+        verifyLoads(1);
+
+        // the replaced value may not be used anymore
+        tagService.upsertTag(application, "owner", "you");
+        tagSuggestionService.suggest(TagSuggestionService.VALUE_PATH, "", 10);
+        verifyLoads(2);
+    }
+}
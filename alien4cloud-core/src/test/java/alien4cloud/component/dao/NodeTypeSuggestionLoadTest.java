@@ -0,0 +1,97 @@
+package alien4cloud.component.dao;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.annotation.Resource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import alien4cloud.component.NodeTypeSuggestionService;
+import alien4cloud.dao.ElasticSearchDAO;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.components.IndexedNodeType;
+
+/**
+ * Compare the latency of node type suggestions based on element id suffixes with the previous regexp based suggestions.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:application-context-test.xml")
+@Slf4j
+public class NodeTypeSuggestionLoadTest extends AbstractDAOTest {
+    private static final int NODE_TYPE_COUNT = 10000;
+    private static final int QUERY_COUNT = 200;
+    private static final int SUGGESTION_COUNT = 10;
+    private static final String[] WORDS = new String[] { "compute", "database", "server", "network", "storage", "apache", "mysql", "tomcat" };
+
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO dao;
+    @Resource
+    private NodeTypeSuggestionService nodeTypeSuggestionService;
+
+    @Before
+    public void before() throws Exception {
+        super.before();
+        IndexedNodeType[] nodeTypes = new IndexedNodeType[NODE_TYPE_COUNT];
+        for (int i = 0; i < NODE_TYPE_COUNT; i++) {
+            IndexedNodeType nodeType = new IndexedNodeType();
+            nodeType.setElementId("alien.nodes." + WORDS[i % WORDS.length] + ".Type" + i);
+            nodeType.setArchiveName("archive");
+            nodeType.setArchiveVersion("1.0");
+            nodeType.setHighestVersion(true);
+            nodeTypes[i] = nodeType;
+        }
+        dao.save(nodeTypes);
+        refresh();
+    }
+
+    @Test
+    public void prefixSuggestionsShouldMatchRegexpSuggestions() {
+        Random random = new Random(0);
+        String[] searchTexts = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            int start = random.nextInt(word.length() - 2);
+            searchTexts[i] = word.substring(start, start + 3) + (i % 2 == 0 ? "" : ".type" + random.nextInt(10));
+        }
+
+        long[] regexpLatencies = new long[QUERY_COUNT];
+        long[] prefixLatencies = new long[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            long start = System.nanoTime();
+            String[] regexpSuggestions = regexpSuggest(searchTexts[i]);
+            regexpLatencies[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            String[] prefixSuggestions = nodeTypeSuggestionService.suggestElementIds(searchTexts[i], SUGGESTION_COUNT);
+            prefixLatencies[i] = System.nanoTime() - start;
+
+            Assert.assertArrayEquals(regexpSuggestions, prefixSuggestions);
+        }
+        log.info("Node type suggestion p99 on <{}> types: regexp <{}> ms, prefix <{}> ms", NODE_TYPE_COUNT, p99(regexpLatencies), p99(prefixLatencies));
+    }
+
+    private String[] regexpSuggest(String searchText) {
+        // suggestion query used before element id suffixes were indexed, element ids are lower cased by the default analyzer
+        QueryBuilder queryOnText = QueryBuilders.regexpQuery("elementId", ".*?" + searchText.toLowerCase() + ".*");
+        QueryBuilder query = QueryBuilders.boolQuery().must(queryOnText).must(QueryBuilders.termQuery("highestVersion", true));
+        return dao.selectPath(ElasticSearchDAO.TOSCA_ELEMENT_INDEX, new String[] { "indexednodetype" }, query, SortOrder.ASC, "elementId", 0,
+                SUGGESTION_COUNT);
+    }
+
+    private double p99(long[] latencies) {
+        long[] sorted = Arrays.copyOf(latencies, latencies.length);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.99) - 1] / 1000000d;
+    }
+}
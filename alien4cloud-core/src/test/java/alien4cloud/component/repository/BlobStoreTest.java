@@ -0,0 +1,105 @@
+package alien4cloud.component.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import alien4cloud.utils.FileUtil;
+
+import com.google.common.base.Charsets;
+
+public class BlobStoreTest {
+    private final Path testPath = Paths.get("target/blob-store-test");
+    private BlobStore blobStore;
+
+    @Before
+    public void before() throws IOException {
+        cleanup();
+        blobStore = new BlobStore(testPath.resolve("blobs"));
+        blobStore.setGracePeriod(0);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        if (Files.exists(testPath)) {
+            FileUtil.delete(testPath);
+        }
+    }
+
+    @Test
+    public void identicalContentsShouldBeStoredOnce() throws IOException {
+        Path first = testPath.resolve("repo/first");
+        Path second = testPath.resolve("repo/second");
+        String firstHash = blobStore.store(new ByteArrayInputStream("content".getBytes(Charsets.UTF_8)), first);
+        String secondHash = blobStore.store(new ByteArrayInputStream("content".getBytes(Charsets.UTF_8)), second);
+
+        Assert.assertEquals(firstHash, secondHash);
+        Assert.assertEquals("content", FileUtil.readTextFile(first));
+        Assert.assertEquals("content", FileUtil.readTextFile(second));
+        int referenceCount = blobStore.getReferenceCount(firstHash);
+        if (referenceCount >= 0) {
+            Assert.assertEquals(2, referenceCount);
+        }
+    }
+
+    @Test
+    public void unreferencedContentsShouldBeCollected() throws IOException {
+        Path first = testPath.resolve("repo/first");
+        Path second = testPath.resolve("repo/second");
+        String hash = blobStore.store(new ByteArrayInputStream("content".getBytes(Charsets.UTF_8)), first);
+        blobStore.store(new ByteArrayInputStream("content".getBytes(Charsets.UTF_8)), second);
+        Assume.assumeTrue("file system does not support link count", blobStore.getReferenceCount(hash) >= 0);
+
+        Files.delete(first);
+        Assert.assertEquals(0, blobStore.collectGarbage());
+        Assert.assertTrue(Files.exists(blobStore.getBlobPath(hash)));
+        Assert.assertEquals("content", FileUtil.readTextFile(second));
+
+        Files.delete(second);
+        Assert.assertEquals(1, blobStore.collectGarbage());
+        Assert.assertFalse(Files.exists(blobStore.getBlobPath(hash)));
+    }
+
+    @Test
+    public void blobsShouldBeReadOnly() throws IOException {
+        String hash = blobStore.store(new ByteArrayInputStream("content".getBytes(Charsets.UTF_8)), testPath.resolve("repo/first"));
+        Path blobPath = blobStore.getBlobPath(hash);
+        Assume.assumeTrue("file system does not support posix permissions", Files.getFileStore(blobPath).supportsFileAttributeView(PosixFileAttributeView.class));
+        Assert.assertFalse(Files.getPosixFilePermissions(blobPath).contains(PosixFilePermission.OWNER_WRITE));
+    }
+
+    @Test
+    public void blobsShouldBeReusedWithoutBeingModified() throws IOException {
+        Path first = testPath.resolve("repo/first");
+        String hash = blobStore.store(new ByteArrayInputStream("content".getBytes(Charsets.UTF_8)), first);
+        Files.setLastModifiedTime(blobStore.getBlobPath(hash), FileTime.fromMillis(0));
+
+        blobStore.store(new ByteArrayInputStream("content".getBytes(Charsets.UTF_8)), testPath.resolve("repo/second"));
+        Assert.assertEquals(0, Files.getLastModifiedTime(blobStore.getBlobPath(hash)).toMillis());
+
+        // a file is updated by storing it again
+        blobStore.store(new ByteArrayInputStream("updated".getBytes(Charsets.UTF_8)), first);
+        Assert.assertEquals("updated", FileUtil.readTextFile(first));
+        Assert.assertEquals("content", FileUtil.readTextFile(testPath.resolve("repo/second")));
+    }
+
+    @Test
+    public void storeTreeShouldShareEntries() throws IOException {
+        Path source = Paths.get("src/test/resources/tosca/visitor");
+        blobStore.storeTree(source, testPath.resolve("repo/v1"));
+        blobStore.storeTree(source, testPath.resolve("repo/v2"));
+
+        Assert.assertEquals(FileUtil.readTextFile(source.resolve("file1.yml")), FileUtil.readTextFile(testPath.resolve("repo/v2/file1.yml")));
+    }
+}
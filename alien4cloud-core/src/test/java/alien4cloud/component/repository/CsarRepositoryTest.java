@@ -33,6 +33,7 @@ public class CsarRepositoryTest {
     @Resource
     private ICsarRepositry repo;
     private String tmpPath = "src/test/resources/data/test-file.zip";
+    private String expandedTmpPath = "src/test/resources/tosca/visitor";
     private String testFileName = "positive";
     private static final String ARCHIVE_EXTENSION = "csar";
     @Value("${directories.alien}/${directories.csar_repository}")
@@ -57,6 +58,17 @@ public class CsarRepositoryTest {
         testGetCSARSuccessul();
     }
 
+    @Test
+    public void storeExpandedCSARTest() throws CSARVersionNotFoundException, CSARVersionAlreadyExistsException {
+        cleanup();
+        storeTestCSAR(testFileName, "1.0", expandedTmpPath);
+        Path expandedPath = Paths.get(alienRepoDir).resolve(testFileName).resolve("1.0").resolve(CsarFileRepository.EXPANDED_DIRECTORY);
+        assertTrue(fileExists(expandedPath.resolve("file1.yml"), false));
+        // the csar zip is created on first access
+        testGetCSARSuccessul();
+        assertTrue(fileExists(repo.getCSAR(testFileName, "1.0"), false));
+    }
+
     @Test(expected = CSARStorageFailureException.class)
     public void testBadTmpPathToStore() throws CSARVersionAlreadyExistsException {
         cleanup();
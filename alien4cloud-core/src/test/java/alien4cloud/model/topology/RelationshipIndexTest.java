@@ -0,0 +1,88 @@
+package alien4cloud.model.topology;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import alien4cloud.model.topology.RelationshipIndex.RelationshipReference;
+
+import com.google.common.collect.Maps;
+
+public class RelationshipIndexTest {
+    private Topology topology;
+
+    @Before
+    public void before() {
+        topology = new Topology();
+        Map<String, NodeTemplate> nodeTemplates = Maps.newHashMap();
+        nodeTemplates.put("compute", new NodeTemplate());
+        nodeTemplates.put("java", nodeTemplate("hostedOnCompute", "compute"));
+        nodeTemplates.put("tomcat", nodeTemplate("hostedOnCompute", "compute"));
+        nodeTemplates.get("tomcat").getRelationships().put("dependsOnJava", relationship("java"));
+        topology.setNodeTemplates(nodeTemplates);
+    }
+
+    private NodeTemplate nodeTemplate(String relationshipName, String target) {
+        NodeTemplate nodeTemplate = new NodeTemplate();
+        Map<String, RelationshipTemplate> relationships = Maps.newHashMap();
+        relationships.put(relationshipName, relationship(target));
+        nodeTemplate.setRelationships(relationships);
+        return nodeTemplate;
+    }
+
+    private RelationshipTemplate relationship(String target) {
+        RelationshipTemplate relationshipTemplate = new RelationshipTemplate();
+        relationshipTemplate.setType("tosca.relationships.HostedOn");
+        relationshipTemplate.setTarget(target);
+        return relationshipTemplate;
+    }
+
+    @Test
+    public void indexShouldContainIncomingAndOutgoingRelationships() {
+        RelationshipIndex index = topology.getRelationshipIndex();
+        Assert.assertEquals(2, index.getIncomingRelationships("compute").size());
+        Assert.assertEquals(1, index.getIncomingRelationships("java").size());
+        Assert.assertEquals("tomcat", index.getIncomingRelationships("java").get(0).getSource());
+        Assert.assertEquals(2, index.getOutgoingRelationships("tomcat").size());
+        Assert.assertTrue(index.getIncomingRelationships("tomcat").isEmpty());
+        Assert.assertTrue(index.getOutgoingRelationships("compute").isEmpty());
+    }
+
+    @Test
+    public void removeShouldUpdateIndex() {
+        RelationshipIndex index = topology.getRelationshipIndex();
+        RelationshipReference removed = index.removeRelationship("tomcat", "dependsOnJava");
+        Assert.assertNotNull(removed);
+        Assert.assertTrue(index.getIncomingRelationships("java").isEmpty());
+
+        index.removeNode("java");
+        Assert.assertEquals(1, index.getIncomingRelationships("compute").size());
+        Assert.assertEquals("tomcat", index.getIncomingRelationships("compute").get(0).getSource());
+    }
+
+    @Test
+    public void renameShouldUpdateTargetsAndIndex() {
+        RelationshipIndex index = topology.getRelationshipIndex();
+        index.renameNode("compute", "server");
+        Assert.assertEquals("server", topology.getNodeTemplates().get("java").getRelationships().get("hostedOnCompute").getTarget());
+        Assert.assertEquals("server", topology.getNodeTemplates().get("tomcat").getRelationships().get("hostedOnCompute").getTarget());
+        Assert.assertTrue(index.getIncomingRelationships("compute").isEmpty());
+        Assert.assertEquals(2, index.getIncomingRelationships("server").size());
+
+        index.renameNode("tomcat", "webServer");
+        Assert.assertTrue(index.getOutgoingRelationships("tomcat").isEmpty());
+        Assert.assertEquals(2, index.getOutgoingRelationships("webServer").size());
+        Assert.assertEquals("webServer", index.getIncomingRelationships("java").get(0).getSource());
+    }
+
+    @Test
+    public void settingNodeTemplatesShouldResetIndex() {
+        RelationshipIndex index = topology.getRelationshipIndex();
+        Assert.assertSame(index, topology.getRelationshipIndex());
+        topology.setNodeTemplates(Maps.<String, NodeTemplate> newHashMap());
+        Assert.assertNotSame(index, topology.getRelationshipIndex());
+        Assert.assertTrue(topology.getRelationshipIndex().getIncomingRelationships("compute").isEmpty());
+    }
+}
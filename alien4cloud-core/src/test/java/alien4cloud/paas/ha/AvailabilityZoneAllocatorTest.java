@@ -1,7 +1,9 @@
 package alien4cloud.paas.ha;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import lombok.extern.slf4j.Slf4j;
@@ -87,20 +89,22 @@ public class AvailabilityZoneAllocatorTest {
             log.info("Normal that it fails", e);
             // Must have assertion failure
         }
-        Map<AvailabilityZone, Integer> repartitionMap = Maps.newHashMap();
-        for (AvailabilityZone zone : zones) {
-            repartitionMap.put(zone, 0);
-        }
-        AvailabilityZoneAllocator allocator = new AvailabilityZoneAllocator();
+        // volumes without an id don't constrain the allocation, place them in the zones allocated to their computes
         for (PaaSNodeTemplate volume : volumes.values()) {
-            AvailabilityZone zone = allocator.getLeastUsedAvailabilityZone(repartitionMap);
-            volume.getNodeTemplate().getProperties().put(NormativeBlockStorageConstants.VOLUME_ID, new ScalarPropertyValue(zone.getId() + "/abcde"));
+            volume.getNodeTemplate().getProperties().remove(NormativeBlockStorageConstants.VOLUME_ID);
+        }
+        Map<String, AvailabilityZone> allocated = new AvailabilityZoneAllocator().processAllocation(createTopology(computes, volumes),
+                createDeploymentSetup(zones), generateCloudResourceMatcherConfig(zones));
+        for (Map.Entry<String, PaaSNodeTemplate> volumeEntry : volumes.entrySet()) {
+            AvailabilityZone zone = allocated.get(volumeEntry.getKey());
+            volumeEntry.getValue().getNodeTemplate().getProperties()
+                    .put(NormativeBlockStorageConstants.VOLUME_ID, new ScalarPropertyValue(zone.getId() + "/abcde"));
         }
         // Must not have assertion failure
         doTest(computes, zones, volumes);
     }
 
-    public void doTest(List<PaaSNodeTemplate> computes, Set<AvailabilityZone> availableZones, Map<String, PaaSNodeTemplate> volumes) {
+    private PaaSTopology createTopology(List<PaaSNodeTemplate> computes, Map<String, PaaSNodeTemplate> volumes) {
         Map<String, List<PaaSNodeTemplate>> groups = Maps.newHashMap();
         groups.put(HA_GROUP, computes);
         PaaSTopology topology = new PaaSTopology();
@@ -108,10 +112,20 @@ public class AvailabilityZoneAllocatorTest {
         if (volumes != null) {
             topology.setVolumes(Lists.newArrayList(volumes.values()));
         }
+        return topology;
+    }
+
+    private DeploymentSetup createDeploymentSetup(Set<AvailabilityZone> availableZones) {
         DeploymentSetup deploymentSetup = new DeploymentSetup();
         Map<String, Set<AvailabilityZone>> availabilityZoneMapping = Maps.newHashMap();
         availabilityZoneMapping.put(HA_GROUP, availableZones);
         deploymentSetup.setAvailabilityZoneMapping(availabilityZoneMapping);
+        return deploymentSetup;
+    }
+
+    public void doTest(List<PaaSNodeTemplate> computes, Set<AvailabilityZone> availableZones, Map<String, PaaSNodeTemplate> volumes) {
+        PaaSTopology topology = createTopology(computes, volumes);
+        DeploymentSetup deploymentSetup = createDeploymentSetup(availableZones);
         AvailabilityZoneAllocator allocator = new AvailabilityZoneAllocator();
         Map<String, AvailabilityZone> allocated = allocator.processAllocation(topology, deploymentSetup, generateCloudResourceMatcherConfig(availableZones));
 
@@ -143,4 +157,93 @@ public class AvailabilityZoneAllocatorTest {
             throw new RuntimeException("Test failed as most used and min used difference is bigger than 1, zones are not distributed equally");
         }
     }
+
+    /**
+     * Property based check of the allocation: random topologies with many HA groups, some computes having a volume already created in a zone.
+     */
+    @Test
+    public void testBalanceInvariants() {
+        Random random = new Random(42);
+        for (int run = 0; run < 20; run++) {
+            int groupCount = 1 + random.nextInt(50);
+            Map<String, List<PaaSNodeTemplate>> groups = Maps.newHashMap();
+            Map<String, Set<AvailabilityZone>> availabilityZoneMapping = Maps.newHashMap();
+            Set<AvailabilityZone> allZones = Sets.newHashSet();
+            List<PaaSNodeTemplate> allComputes = Lists.newArrayList();
+            List<PaaSNodeTemplate> volumes = Lists.newArrayList();
+            Map<String, String> volumeZones = Maps.newHashMap();
+            for (int groupIndex = 0; groupIndex < groupCount; groupIndex++) {
+                String groupId = HA_GROUP + groupIndex;
+                Set<AvailabilityZone> zones = Sets.newHashSet();
+                int zoneCount = 1 + random.nextInt(5);
+                for (int i = 0; i < zoneCount; i++) {
+                    zones.add(new AvailabilityZone(groupId + "_zone" + i, null));
+                }
+                List<AvailabilityZone> zoneList = Lists.newArrayList(zones);
+                List<PaaSNodeTemplate> computes = Lists.newArrayList();
+                int computeCount = random.nextInt(200);
+                for (int i = 0; i < computeCount; i++) {
+                    PaaSNodeTemplate compute = new PaaSNodeTemplate(groupId + "_compute" + i, null);
+                    if (random.nextInt(10) == 0) {
+                        // the compute has a volume already created in a zone of the group
+                        String zoneId = zoneList.get(random.nextInt(zoneList.size())).getId();
+                        NodeTemplate wrappedVolume = new NodeTemplate(NormativeBlockStorageConstants.BLOCKSTORAGE_TYPE,
+                                Maps.<String, AbstractPropertyValue> newHashMap(), null, null, null, null, null);
+                        wrappedVolume.getProperties().put(NormativeBlockStorageConstants.VOLUME_ID, new ScalarPropertyValue(zoneId + "/abcde"));
+                        PaaSNodeTemplate volume = new PaaSNodeTemplate("volume_" + compute.getId(), wrappedVolume);
+                        volume.setParent(compute);
+                        compute.getStorageNodes().add(volume);
+                        volumes.add(volume);
+                        volumeZones.put(compute.getId(), zoneId);
+                    }
+                    computes.add(compute);
+                }
+                groups.put(groupId, computes);
+                availabilityZoneMapping.put(groupId, zones);
+                allZones.addAll(zones);
+                allComputes.addAll(computes);
+            }
+            PaaSTopology topology = new PaaSTopology();
+            topology.setGroups(groups);
+            topology.setComputes(allComputes);
+            topology.setVolumes(volumes);
+            DeploymentSetup deploymentSetup = new DeploymentSetup();
+            deploymentSetup.setAvailabilityZoneMapping(availabilityZoneMapping);
+            CloudResourceMatcherConfig config = generateCloudResourceMatcherConfig(allZones);
+
+            AvailabilityZoneAllocator allocator = new AvailabilityZoneAllocator();
+            Map<String, AvailabilityZone> allocated = allocator.processAllocation(topology, deploymentSetup, config);
+            Assert.assertEquals(allocated, allocator.processAllocation(topology, deploymentSetup, config));
+
+            for (Map.Entry<String, List<PaaSNodeTemplate>> groupEntry : groups.entrySet()) {
+                Set<AvailabilityZone> zones = availabilityZoneMapping.get(groupEntry.getKey());
+                Map<AvailabilityZone, Integer> volumeRepartition = Maps.newHashMap();
+                Map<AvailabilityZone, Integer> repartition = Maps.newHashMap();
+                for (AvailabilityZone zone : zones) {
+                    volumeRepartition.put(zone, 0);
+                    repartition.put(zone, 0);
+                }
+                for (PaaSNodeTemplate compute : groupEntry.getValue()) {
+                    AvailabilityZone zone = allocated.get(compute.getId());
+                    // every compute is allocated in a zone of its group and computes with a volume stay in the zone of the volume
+                    Assert.assertTrue(zones.contains(zone));
+                    repartition.put(zone, repartition.get(zone) + 1);
+                    String volumeZone = volumeZones.get(compute.getId());
+                    if (volumeZone != null) {
+                        Assert.assertEquals(volumeZone, zone.getId());
+                        volumeRepartition.put(zone, volumeRepartition.get(zone) + 1);
+                    }
+                }
+                // computes without volumes are spread so that zones are balanced, unless volumes already unbalanced them
+                int spread = Collections.max(repartition.values()) - Collections.min(repartition.values());
+                int volumeSpread = Collections.max(volumeRepartition.values()) - Collections.min(volumeRepartition.values());
+                Assert.assertTrue(spread <= Math.max(1, volumeSpread));
+            }
+            List<AllocationError> errors = allocator.validateAllocation(allocated, topology, deploymentSetup, config);
+            for (AllocationError error : errors) {
+                // only the repartition of groups unbalanced by their volumes can be reported
+                Assert.assertEquals(AllocationErrorCode.ZONES_NOT_DISTRIBUTED_EQUALLY, error.getCode());
+            }
+        }
+    }
 }
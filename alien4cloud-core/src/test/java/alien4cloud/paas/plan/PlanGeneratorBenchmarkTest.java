@@ -0,0 +1,168 @@
+package alien4cloud.paas.plan;
+
+import static alien4cloud.paas.plan.ToscaNodeLifecycleConstants.CONFIGURE;
+import static alien4cloud.paas.plan.ToscaNodeLifecycleConstants.CREATE;
+import static alien4cloud.paas.plan.ToscaNodeLifecycleConstants.CREATED;
+import static alien4cloud.paas.plan.ToscaNodeLifecycleConstants.STANDARD;
+import static alien4cloud.paas.plan.ToscaNodeLifecycleConstants.START;
+import static alien4cloud.paas.plan.ToscaNodeLifecycleConstants.STARTED;
+import static alien4cloud.tosca.normative.NormativeRelationshipConstants.DEPENDS_ON;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedRelationshipType;
+import alien4cloud.model.components.Interface;
+import alien4cloud.model.components.Operation;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.RelationshipTemplate;
+import alien4cloud.paas.model.PaaSNodeTemplate;
+import alien4cloud.paas.model.PaaSRelationshipTemplate;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Generate the build plan of a 500 nodes topology and check that the waits on relationships are the ones that walking back the synchronous steps gives.
+ */
+@Slf4j
+public class PlanGeneratorBenchmarkTest {
+    private static final int ROOT_COUNT = 50;
+    private static final int CHILDREN_PER_ROOT = 9;
+    private static final int ITERATIONS = 20;
+
+    private List<PaaSNodeTemplate> roots;
+    private Map<String, PaaSNodeTemplate> nodes;
+
+    private static PaaSNodeTemplate node(String id, IndexedNodeType type) {
+        PaaSNodeTemplate node = new PaaSNodeTemplate(id, new NodeTemplate());
+        node.setIndexedToscaElement(type);
+        return node;
+    }
+
+    private static void dependsOn(PaaSNodeTemplate source, PaaSNodeTemplate target, IndexedRelationshipType type) {
+        RelationshipTemplate relationshipTemplate = new RelationshipTemplate();
+        relationshipTemplate.setTarget(target.getId());
+        PaaSRelationshipTemplate relationship = new PaaSRelationshipTemplate(source.getId() + "_" + target.getId(), relationshipTemplate, source.getId());
+        relationship.setIndexedToscaElement(type);
+        source.getRelationshipTemplates().add(relationship);
+        target.getRelationshipTemplates().add(relationship);
+    }
+
+    @Before
+    public void before() {
+        Interface lifecycle = new Interface();
+        lifecycle.getOperations().put(CREATE, new Operation());
+        lifecycle.getOperations().put(CONFIGURE, new Operation());
+        lifecycle.getOperations().put(START, new Operation());
+        IndexedNodeType nodeType = new IndexedNodeType();
+        nodeType.setInterfaces(Maps.<String, Interface> newHashMap());
+        nodeType.getInterfaces().put(STANDARD, lifecycle);
+        IndexedRelationshipType dependsOnType = new IndexedRelationshipType();
+        dependsOnType.setElementId(DEPENDS_ON);
+
+        roots = Lists.newArrayList();
+        nodes = Maps.newHashMap();
+        for (int i = 0; i < ROOT_COUNT; i++) {
+            PaaSNodeTemplate root = node("compute_" + i, nodeType);
+            // children of half of the computes are created in sequence
+            root.setCreateChildrenSequence(i % 2 == 0);
+            roots.add(root);
+            nodes.put(root.getId(), root);
+            PaaSNodeTemplate previousChild = null;
+            for (int j = 0; j < CHILDREN_PER_ROOT; j++) {
+                PaaSNodeTemplate child = node("node_" + i + "_" + j, nodeType);
+                child.setParent(root);
+                root.getChildren().add(child);
+                nodes.put(child.getId(), child);
+                // wait for the host (always reached), the previous sibling (reached when in sequence) and a node of another compute (never reached)
+                dependsOn(child, root, dependsOnType);
+                if (previousChild != null) {
+                    dependsOn(child, previousChild, dependsOnType);
+                }
+                if (i > 0) {
+                    dependsOn(child, nodes.get("node_" + (i - 1) + "_" + j), dependsOnType);
+                }
+                previousChild = child;
+            }
+        }
+    }
+
+    @Test
+    public void waitsShouldMatchSynchronousSteps() {
+        long[] durations = new long[ITERATIONS];
+        StartEvent startEvent = null;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            startEvent = new BuildPlanGenerator().generate(roots);
+            durations[i] = System.nanoTime() - start;
+        }
+        long minDuration = Long.MAX_VALUE;
+        for (long duration : durations) {
+            minDuration = Math.min(minDuration, duration);
+        }
+        log.info("Build plan of <{}> nodes generated in <{}> ms", nodes.size(), minDuration / 1000000d);
+
+        List<StateUpdateEvent> createdEvents = Lists.newArrayList();
+        collectCreatedEvents(startEvent, createdEvents);
+        Assert.assertEquals(nodes.size(), createdEvents.size());
+        int waitCount = 0;
+        for (StateUpdateEvent createdEvent : createdEvents) {
+            PaaSNodeTemplate node = nodes.get(createdEvent.getElementId());
+            // the wait on relationships is generated right after the node is created
+            Set<String> waitedNodes = Sets.newHashSet();
+            if (createdEvent.getNextStep() instanceof ParallelJoinStateGateway) {
+                waitedNodes.addAll(((ParallelJoinStateGateway) createdEvent.getNextStep()).getValidStatesPerElementMap().keySet());
+            }
+            Set<String> expectedWaitedNodes = Sets.newHashSet();
+            for (PaaSRelationshipTemplate relationship : node.getRelationshipTemplates()) {
+                String target = relationship.getRelationshipTemplate().getTarget();
+                if (relationship.getSource().equals(node.getId()) && !isStateSyncPrevious(createdEvent, target, STARTED)) {
+                    expectedWaitedNodes.add(target);
+                }
+            }
+            Assert.assertEquals(expectedWaitedNodes, waitedNodes);
+            waitCount += waitedNodes.size();
+        }
+        log.info("Build plan of <{}> nodes waits for <{}> nodes", nodes.size(), waitCount);
+    }
+
+    private void collectCreatedEvents(WorkflowStep step, List<StateUpdateEvent> createdEvents) {
+        while (step != null) {
+            if (step instanceof StateUpdateEvent && CREATED.equals(((StateUpdateEvent) step).getState())) {
+                createdEvents.add((StateUpdateEvent) step);
+            }
+            if (step instanceof ParallelGateway) {
+                for (WorkflowStep parallelStep : ((ParallelGateway) step).getParallelSteps()) {
+                    collectCreatedEvents(parallelStep, createdEvents);
+                }
+            }
+            step = step.getNextStep();
+        }
+    }
+
+    /** Reference implementation that walks back the synchronous steps. */
+    private boolean isStateSyncPrevious(WorkflowStep lastStep, String nodeId, String... states) {
+        WorkflowStep previousStep = lastStep;
+        while (previousStep != null) {
+            if (previousStep instanceof StateUpdateEvent) {
+                StateUpdateEvent sue = (StateUpdateEvent) previousStep;
+                if (sue.getElementId().equals(nodeId) && ArrayUtils.contains(states, sue.getState())) {
+                    return true;
+                }
+            }
+            previousStep = previousStep.getPreviousStep();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,108 @@
+package alien4cloud.security;
+
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Resource;
+
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import alien4cloud.component.dao.AbstractDAOTest;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.application.Application;
+import alien4cloud.model.application.ApplicationEnvironment;
+import alien4cloud.security.model.ApplicationEnvironmentRole;
+import alien4cloud.security.model.ApplicationRole;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:application-context-test.xml")
+public class ResourceRoleServiceTest extends AbstractDAOTest {
+    private static final int RESOURCE_COUNT = 300;
+    private static final String DELETED_GROUP = "deletedGroup";
+    private static final String OTHER_GROUP = "otherGroup";
+    private static final String ENVIRONMENT_INDEX = ApplicationEnvironment.class.getSimpleName().toLowerCase();
+
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO alienDAO;
+    @Resource
+    private ResourceRoleService resourceRoleService;
+
+    private static Map<String, Set<String>> groupRoles(String role, String... groups) {
+        Map<String, Set<String>> groupRoles = Maps.newHashMap();
+        for (String group : groups) {
+            groupRoles.put(group, Sets.newHashSet(role));
+        }
+        return groupRoles;
+    }
+
+    @Before
+    public void before() throws Exception {
+        super.before();
+        Application[] applications = new Application[RESOURCE_COUNT];
+        ApplicationEnvironment[] environments = new ApplicationEnvironment[RESOURCE_COUNT];
+        for (int i = 0; i < RESOURCE_COUNT; i++) {
+            applications[i] = new Application();
+            applications[i].setId("application_" + i);
+            applications[i].setName("application_" + i);
+            environments[i] = new ApplicationEnvironment();
+            environments[i].setId("environment_" + i);
+            environments[i].setName("environment_" + i);
+            environments[i].setApplicationId(applications[i].getId());
+            if (i % 3 == 0) {
+                // only the group that is not deleted
+                applications[i].setGroupRoles(groupRoles(ApplicationRole.APPLICATION_USER.toString(), OTHER_GROUP));
+                environments[i].setGroupRoles(groupRoles(ApplicationEnvironmentRole.DEPLOYMENT_MANAGER.toString(), OTHER_GROUP));
+            } else if (i % 3 == 1) {
+                applications[i].setGroupRoles(groupRoles(ApplicationRole.APPLICATION_USER.toString(), DELETED_GROUP, OTHER_GROUP));
+                environments[i].setGroupRoles(groupRoles(ApplicationEnvironmentRole.DEPLOYMENT_MANAGER.toString(), DELETED_GROUP, OTHER_GROUP));
+            } else {
+                applications[i].setGroupRoles(groupRoles(ApplicationRole.APPLICATION_USER.toString(), DELETED_GROUP));
+                environments[i].setGroupRoles(groupRoles(ApplicationEnvironmentRole.DEPLOYMENT_MANAGER.toString(), DELETED_GROUP));
+            }
+        }
+        alienDAO.save(applications);
+        alienDAO.save(environments);
+        refresh();
+    }
+
+    @After
+    public void cleanEnvironments() {
+        nodeClient.prepareDeleteByQuery(ENVIRONMENT_INDEX).setQuery(QueryBuilders.matchAllQuery()).execute().actionGet();
+        nodeClient.admin().indices().prepareRefresh(ENVIRONMENT_INDEX).execute().actionGet();
+    }
+
+    private long countResourcesOfGroup(Class<?> clazz, String groupId) {
+        return alienDAO.search(clazz, null, null, FilterBuilders.nestedFilter("groupRoles", FilterBuilders.termFilter("groupRoles.key", groupId)), null,
+                0, 1).getTotalResults();
+    }
+
+    @Test
+    public void deletedGroupShouldBeRemovedFromEveryResource() {
+        Assert.assertEquals(2 * RESOURCE_COUNT / 3, countResourcesOfGroup(Application.class, DELETED_GROUP));
+        Assert.assertEquals(2 * RESOURCE_COUNT / 3, countResourcesOfGroup(ApplicationEnvironment.class, DELETED_GROUP));
+
+        resourceRoleService.deleteGroupRoles(DELETED_GROUP);
+        refresh();
+        nodeClient.admin().indices().prepareRefresh(ENVIRONMENT_INDEX).execute().actionGet();
+
+        Assert.assertEquals(0, countResourcesOfGroup(Application.class, DELETED_GROUP));
+        Assert.assertEquals(0, countResourcesOfGroup(ApplicationEnvironment.class, DELETED_GROUP));
+        Assert.assertEquals(2 * RESOURCE_COUNT / 3, countResourcesOfGroup(Application.class, OTHER_GROUP));
+        Assert.assertEquals(2 * RESOURCE_COUNT / 3, countResourcesOfGroup(ApplicationEnvironment.class, OTHER_GROUP));
+        // resources that had no other group have no group roles anymore
+        Assert.assertNull(alienDAO.findById(Application.class, "application_2").getGroupRoles());
+        Assert.assertNull(alienDAO.findById(ApplicationEnvironment.class, "environment_2").getGroupRoles());
+        Assert.assertEquals(RESOURCE_COUNT, alienDAO.count(Application.class, QueryBuilders.matchAllQuery()));
+    }
+}
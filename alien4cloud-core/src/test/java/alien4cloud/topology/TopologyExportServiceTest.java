@@ -0,0 +1,106 @@
+package alien4cloud.topology;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import alien4cloud.component.repository.ICsarRepositry;
+import alien4cloud.component.repository.exception.CSARVersionNotFoundException;
+import alien4cloud.exception.NotFoundException;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.utils.FileUtil;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TopologyExportServiceTest {
+    private static final String YAML = "tosca_definitions_version: tosca_simple_yaml_1_0_0_wd03\n";
+
+    @Mock
+    private TopologyService topologyService;
+    @Mock
+    private ICsarRepositry archiveRepositry;
+    @InjectMocks
+    private TopologyExportService topologyExportService;
+
+    private Path tempDirectory;
+    private Topology topology;
+
+    @Before
+    public void before() throws IOException, CSARVersionNotFoundException {
+        tempDirectory = Files.createTempDirectory("topology-export");
+        topology = new Topology();
+        topology.setId("topology");
+        topology.setDependencies(Sets.newHashSet(new CSARDependency("archive1", "1.0"), new CSARDependency("archive2", "2.0")));
+        for (CSARDependency dependency : topology.getDependencies()) {
+            Path archivePath = tempDirectory.resolve(dependency.getName() + "-" + dependency.getVersion() + ".csar");
+            Files.write(archivePath, (dependency.getName() + " content").getBytes(Charsets.UTF_8));
+            Mockito.when(archiveRepositry.getCSAR(dependency.getName(), dependency.getVersion())).thenReturn(archivePath);
+        }
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((OutputStream) invocation.getArguments()[1]).write(YAML.getBytes(Charsets.UTF_8));
+                return null;
+            }
+        }).when(topologyService).writeYaml(Matchers.eq(topology), Matchers.any(OutputStream.class));
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtil.delete(tempDirectory);
+    }
+
+    @Test
+    public void topologyAndArchivesShouldBeExported() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        topologyExportService.export(topology, outputStream);
+
+        Map<String, String> entries = Maps.newHashMap();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(ByteStreams.toByteArray(zipInputStream), Charsets.UTF_8));
+            }
+        }
+        Assert.assertEquals(3, entries.size());
+        Assert.assertEquals(YAML, entries.get(TopologyExportService.TOPOLOGY_ENTRY));
+        Assert.assertEquals("archive1 content", entries.get(TopologyExportService.ARCHIVES_DIRECTORY + "archive1-1.0.csar"));
+        Assert.assertEquals("archive2 content", entries.get(TopologyExportService.ARCHIVES_DIRECTORY + "archive2-2.0.csar"));
+    }
+
+    @Test
+    public void missingArchiveShouldFailBeforeWriting() throws IOException, CSARVersionNotFoundException {
+        Mockito.when(archiveRepositry.getCSAR("archive2", "2.0")).thenThrow(new CSARVersionNotFoundException("not found"));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            topologyExportService.export(topology, outputStream);
+            Assert.fail("Export should fail when an archive is missing");
+        } catch (NotFoundException e) {
+            Assert.assertEquals(0, outputStream.size());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package alien4cloud.topology;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import alien4cloud.component.ICSARRepositorySearchService;
+import alien4cloud.exception.NotFoundException;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.CapabilityDefinition;
+import alien4cloud.model.components.IndexedCapabilityType;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedRelationshipType;
+import alien4cloud.model.components.IndexedToscaElement;
+import alien4cloud.model.topology.Capability;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.RelationshipTemplate;
+import alien4cloud.model.topology.Requirement;
+import alien4cloud.model.topology.Topology;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+@Slf4j
+public class TopologyTypesContextTest {
+    private static final int NODE_COUNT = 2000;
+    private static final int TYPE_COUNT = 20;
+
+    private ICSARRepositorySearchService searchService;
+    private Topology topology;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        searchService = Mockito.mock(ICSARRepositorySearchService.class);
+        Mockito.when(searchService.getElementsInDependencies(Matchers.any(Class.class), Matchers.anyCollection(), Matchers.anyCollection())).thenAnswer(
+                new Answer<Map<String, IndexedToscaElement>>() {
+                    @Override
+                    public Map<String, IndexedToscaElement> answer(InvocationOnMock invocation) throws Throwable {
+                        Class<? extends IndexedToscaElement> elementClass = (Class<? extends IndexedToscaElement>) invocation.getArguments()[0];
+                        Map<String, IndexedToscaElement> elements = Maps.newHashMap();
+                        for (String elementId : (Collection<String>) invocation.getArguments()[1]) {
+                            if (!elementId.startsWith("unknown")) {
+                                IndexedToscaElement element = elementClass.newInstance();
+                                element.setElementId(elementId);
+                                if (element instanceof IndexedNodeType) {
+                                    CapabilityDefinition capabilityDefinition = new CapabilityDefinition();
+                                    capabilityDefinition.setType("defined." + elementId);
+                                    ((IndexedNodeType) element).setCapabilities(Lists.newArrayList(capabilityDefinition));
+                                }
+                                elements.put(elementId, element);
+                            }
+                        }
+                        return elements;
+                    }
+                });
+        topology = generateTopology();
+    }
+
+    private Topology generateTopology() {
+        Topology generated = new Topology();
+        Set<CSARDependency> dependencies = Sets.newHashSet(new CSARDependency("tosca-normative-types", "1.0.0"));
+        generated.setDependencies(dependencies);
+        Map<String, NodeTemplate> nodeTemplates = Maps.newHashMap();
+        for (int i = 0; i < NODE_COUNT; i++) {
+            NodeTemplate nodeTemplate = new NodeTemplate();
+            nodeTemplate.setName("node_" + i);
+            nodeTemplate.setType("node.type." + (i % TYPE_COUNT));
+            Capability capability = new Capability();
+            capability.setType("capability.type." + (i % TYPE_COUNT));
+            nodeTemplate.setCapabilities(Maps.newHashMap(Collections.singletonMap("capability", capability)));
+            Requirement requirement = new Requirement();
+            requirement.setType("capability.type." + ((i + 1) % TYPE_COUNT));
+            nodeTemplate.setRequirements(Maps.newHashMap(Collections.singletonMap("requirement", requirement)));
+            if (i > 0) {
+                RelationshipTemplate relationshipTemplate = new RelationshipTemplate();
+                relationshipTemplate.setType("relationship.type." + (i % TYPE_COUNT));
+                relationshipTemplate.setTarget("node_" + (i - 1));
+                nodeTemplate.setRelationships(Maps.newHashMap(Collections.singletonMap("relationship", relationshipTemplate)));
+            }
+            nodeTemplates.put(nodeTemplate.getName(), nodeTemplate);
+        }
+        generated.setNodeTemplates(nodeTemplates);
+        return generated;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void loadShouldResolveTypesWithOneRequestPerKind() {
+        long start = System.currentTimeMillis();
+        TopologyTypesContext context = TopologyTypesContext.load(searchService, topology);
+        for (NodeTemplate nodeTemplate : topology.getNodeTemplates().values()) {
+            Assert.assertEquals(nodeTemplate.getType(), context.getRequiredElement(IndexedNodeType.class, nodeTemplate.getType()).getElementId());
+            for (Capability capability : nodeTemplate.getCapabilities().values()) {
+                Assert.assertNotNull(context.getRequiredElement(IndexedCapabilityType.class, capability.getType()));
+            }
+            Assert.assertNotNull(context.getRequiredElement(IndexedCapabilityType.class, "defined." + nodeTemplate.getType()));
+            if (nodeTemplate.getRelationships() != null) {
+                for (RelationshipTemplate relationshipTemplate : nodeTemplate.getRelationships().values()) {
+                    Assert.assertNotNull(context.getElementInDependencies(IndexedRelationshipType.class, relationshipTemplate.getType(),
+                            topology.getDependencies()));
+                }
+            }
+        }
+        log.info("Resolved types of a topology with <{}> nodes in <{}> ms", NODE_COUNT, System.currentTimeMillis() - start);
+
+        Mockito.verify(searchService, Mockito.times(3)).getElementsInDependencies(Matchers.any(Class.class), Matchers.anyCollection(),
+                Matchers.anyCollection());
+        Mockito.verify(searchService, Mockito.never()).getElementInDependencies(Matchers.any(Class.class), Matchers.anyString(), Matchers.anyCollection());
+    }
+
+    @Test(expected = NotFoundException.class)
+    @SuppressWarnings("unchecked")
+    public void missingTypeShouldBeResolvedOnce() {
+        TopologyTypesContext context = TopologyTypesContext.load(searchService, topology);
+        context.preload(IndexedNodeType.class, Sets.newHashSet("unknown.type"));
+        Assert.assertNull(context.getElement(IndexedNodeType.class, "unknown.type"));
+        Mockito.verify(searchService, Mockito.never()).getElementInDependencies(Matchers.any(Class.class), Matchers.anyString(), Matchers.anyCollection());
+        context.getRequiredElement(IndexedNodeType.class, "unknown.type");
+    }
+}
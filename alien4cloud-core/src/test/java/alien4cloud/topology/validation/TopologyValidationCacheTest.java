@@ -0,0 +1,162 @@
+package alien4cloud.topology.validation;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import alien4cloud.component.ICSARRepositorySearchService;
+import alien4cloud.model.components.AbstractPropertyValue;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.IndexedCapabilityType;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.RequirementDefinition;
+import alien4cloud.model.components.ScalarPropertyValue;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.RelationshipTemplate;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.paas.wf.validation.AbstractWorkflowError;
+import alien4cloud.paas.wf.validation.BadStateSequenceError;
+import alien4cloud.topology.TopologyTypesContext;
+import alien4cloud.topology.task.PropertiesTask;
+import alien4cloud.topology.task.TaskLevel;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+public class TopologyValidationCacheTest {
+    private TopologyValidationCache cache;
+    private TopologyTypesContext typesContext;
+    private Topology topology;
+
+    @Before
+    public void before() {
+        cache = new TopologyValidationCache();
+        cache.init();
+        topology = new Topology();
+        topology.setDependencies(Sets.newHashSet(new CSARDependency("tosca-normative-types", "1.0.0")));
+        Map<String, NodeTemplate> nodeTemplates = Maps.newLinkedHashMap();
+        nodeTemplates.put("compute", nodeTemplate("tosca.nodes.Compute", "os_type", "linux"));
+        nodeTemplates.put("apache", nodeTemplate("tosca.nodes.WebServer", "port", "80"));
+        nodeTemplates.put("other", nodeTemplate("tosca.nodes.Compute", "os_type", "windows"));
+        RelationshipTemplate hostedOn = new RelationshipTemplate();
+        hostedOn.setType("tosca.relationships.HostedOn");
+        hostedOn.setTarget("compute");
+        Map<String, RelationshipTemplate> relationships = Maps.newHashMap();
+        relationships.put("hostedOnCompute", hostedOn);
+        nodeTemplates.get("apache").setRelationships(relationships);
+        topology.setNodeTemplates(nodeTemplates);
+        typesContext = new TopologyTypesContext(Mockito.mock(ICSARRepositorySearchService.class), topology.getDependencies());
+    }
+
+    private NodeTemplate nodeTemplate(String type, String property, String value) {
+        NodeTemplate nodeTemplate = new NodeTemplate();
+        nodeTemplate.setType(type);
+        Map<String, AbstractPropertyValue> properties = Maps.newHashMap();
+        properties.put(property, new ScalarPropertyValue(value));
+        nodeTemplate.setProperties(properties);
+        return nodeTemplate;
+    }
+
+    private String key(String nodeTemplateName) {
+        return cache.getNodeKey(nodeTemplateName, topology.getNodeTemplates().get(nodeTemplateName), topology, typesContext);
+    }
+
+    @Test
+    public void keyShouldChangeOnlyForModifiedNodes() {
+        String computeKey = key("compute");
+        String apacheKey = key("apache");
+        String otherKey = key("other");
+        Assert.assertNotNull(computeKey);
+        Assert.assertEquals(computeKey, key("compute"));
+
+        topology.getNodeTemplates().get("other").getProperties().put("os_type", new ScalarPropertyValue("linux"));
+        Assert.assertNotEquals(otherKey, key("other"));
+        Assert.assertEquals(computeKey, key("compute"));
+        Assert.assertEquals(apacheKey, key("apache"));
+    }
+
+    @Test
+    public void keyShouldChangeWhenTargetIsModified() {
+        String apacheKey = key("apache");
+        topology.getNodeTemplates().get("compute").getProperties().put("os_type", new ScalarPropertyValue("windows"));
+        Assert.assertNotEquals(apacheKey, key("apache"));
+    }
+
+    @Test
+    public void keyShouldChangeWithDependencies() {
+        String computeKey = key("compute");
+        topology.setDependencies(Sets.newHashSet(new CSARDependency("tosca-normative-types", "1.0.1")));
+        Assert.assertNotEquals(computeKey, key("compute"));
+    }
+
+    @Test
+    public void resultsShouldBeCachedByKey() {
+        String computeKey = key("compute");
+        Assert.assertNull(cache.getNodeResult(computeKey));
+        NodeValidationResult result = new NodeValidationResult(null, null, null, null);
+        cache.putNodeResult(computeKey, result);
+        Assert.assertNotNull(cache.getNodeResult(key("compute")));
+        cache.invalidateAll();
+        Assert.assertNull(cache.getNodeResult(computeKey));
+    }
+
+    @Test
+    public void keyShouldChangeWithRequiredCapabilityTypes() {
+        IndexedNodeType webServerType = new IndexedNodeType();
+        webServerType.setElementId("tosca.nodes.WebServer");
+        webServerType.setArchiveVersion("1.0.0");
+        webServerType.setRequirements(Lists.newArrayList(new RequirementDefinition("host", "tosca.capabilities.Container")));
+        IndexedCapabilityType containerType = new IndexedCapabilityType();
+        containerType.setElementId("tosca.capabilities.Container");
+        containerType.setArchiveVersion("1.0.0");
+        containerType.setLastUpdateDate(new Date(1));
+        ICSARRepositorySearchService searchService = Mockito.mock(ICSARRepositorySearchService.class);
+        Mockito.when(searchService.getElementInDependencies(Mockito.eq(IndexedNodeType.class), Mockito.eq("tosca.nodes.WebServer"), Mockito.anyCollection()))
+                .thenReturn(webServerType);
+        Mockito.when(
+                searchService.getElementInDependencies(Mockito.eq(IndexedCapabilityType.class), Mockito.eq("tosca.capabilities.Container"),
+                        Mockito.anyCollection())).thenReturn(containerType);
+
+        typesContext = new TopologyTypesContext(searchService, topology.getDependencies());
+        String apacheKey = key("apache");
+        containerType.setLastUpdateDate(new Date(2));
+        typesContext = new TopologyTypesContext(searchService, topology.getDependencies());
+        Assert.assertNotEquals(apacheKey, key("apache"));
+    }
+
+    @Test
+    public void cachedResultsShouldNotBeModifiedByCallers() {
+        String computeKey = key("compute");
+        PropertiesTask propertiesTask = new PropertiesTask();
+        propertiesTask.setNodeTemplateName("compute");
+        Map<TaskLevel, List<String>> properties = Maps.newHashMap();
+        properties.put(TaskLevel.REQUIRED, Lists.newArrayList("os_type"));
+        propertiesTask.setProperties(properties);
+        NodeValidationResult result = new NodeValidationResult(null, null, null, Lists.newArrayList(propertiesTask));
+        cache.putNodeResult(computeKey, result);
+        propertiesTask.getProperties().get(TaskLevel.REQUIRED).add("architecture");
+
+        NodeValidationResult cachedResult = cache.getNodeResult(computeKey);
+        Assert.assertEquals(Lists.newArrayList("os_type"), cachedResult.getPropertiesTasks().get(0).getProperties().get(TaskLevel.REQUIRED));
+        cachedResult.getPropertiesTasks().get(0).setNodeTemplateName("updated");
+        Assert.assertEquals("compute", cache.getNodeResult(computeKey).getPropertiesTasks().get(0).getNodeTemplateName());
+    }
+
+    @Test
+    public void cachedWorkflowErrorsShouldBeNewInstances() {
+        BadStateSequenceError error = new BadStateSequenceError("a", "b");
+        cache.putWorkflowResult("workflow", Lists.<AbstractWorkflowError> newArrayList(error));
+        error.setFrom("updated");
+
+        List<AbstractWorkflowError> errors = cache.getWorkflowResult("workflow");
+        Assert.assertEquals(1, errors.size());
+        Assert.assertEquals("a", ((BadStateSequenceError) errors.get(0)).getFrom());
+        Assert.assertNotSame(errors.get(0), cache.getWorkflowResult("workflow").get(0));
+    }
+}
@@ -47,6 +47,19 @@ public class ArchiveParserTest {
         Assert.assertFalse(ArchiveUploadService.hasError(parsingResult, ParsingErrorLevel.ERROR));
     }
 
+    @Test
+    public void parseNormativeTypesWd03FromDirectory() throws ParsingException, IOException {
+        String localName = "tosca-normative-types";
+        repositoryManager.cloneOrCheckout(artifactsDirectory, "https://github.com/alien4cloud/tosca-normative-types.git", "master", localName);
+
+        // parse the checked-out folder directly without zipping it
+        ParsingResult<ArchiveRoot> parsingResult = archiveParser.parse(artifactsDirectory.resolve(localName));
+
+        displayErrors(parsingResult);
+
+        Assert.assertFalse(ArchiveUploadService.hasError(parsingResult, ParsingErrorLevel.ERROR));
+    }
+
     private void displayErrors(ParsingResult<?> parsingResult) {
         System.out.println("\n\nERRORS: \n");
         for (int i = 0; i < parsingResult.getContext().getParsingErrors().size(); i++) {
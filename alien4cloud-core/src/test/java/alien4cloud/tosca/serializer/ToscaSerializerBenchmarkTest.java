@@ -0,0 +1,144 @@
+package alien4cloud.tosca.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import alien4cloud.model.components.AbstractPropertyValue;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.ScalarPropertyValue;
+import alien4cloud.model.topology.Capability;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.RelationshipTemplate;
+import alien4cloud.model.topology.Topology;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Render the topology YAML template of a large topology and log the time and the memory allocated per rendering.
+ */
+@Slf4j
+public class ToscaSerializerBenchmarkTest {
+    private static final String TEMPLATE = "templates/topology-1_0_0_wd03.yml.vm";
+    private static final int NODE_COUNT = 2000;
+    private static final int PROPERTY_COUNT = 5;
+    private static final int ITERATIONS = 10;
+
+    private Map<String, Object> velocityCtx;
+
+    private interface IRendering {
+        void render() throws IOException;
+    }
+
+    private static Map<String, AbstractPropertyValue> properties(String prefix) {
+        Map<String, AbstractPropertyValue> properties = Maps.newLinkedHashMap();
+        for (int i = 0; i < PROPERTY_COUNT; i++) {
+            properties.put("prop" + i, new ScalarPropertyValue(prefix + " value: " + i));
+        }
+        return properties;
+    }
+
+    @Before
+    public void before() {
+        Topology topology = new Topology();
+        topology.setDependencies(Sets.newHashSet(new CSARDependency("tosca-normative-types", "1.0.0.wd03")));
+        topology.setNodeTemplates(Maps.<String, NodeTemplate> newLinkedHashMap());
+        for (int i = 0; i < NODE_COUNT; i++) {
+            NodeTemplate nodeTemplate = new NodeTemplate();
+            nodeTemplate.setType("tosca.nodes.SoftwareComponent");
+            nodeTemplate.setProperties(properties("node_" + i));
+            Capability capability = new Capability();
+            capability.setType("tosca.capabilities.Container");
+            capability.setProperties(properties("capability_" + i));
+            nodeTemplate.setCapabilities(Maps.<String, Capability> newHashMap());
+            nodeTemplate.getCapabilities().put("host", capability);
+            if (i > 0) {
+                // each node is hosted on the previous one
+                RelationshipTemplate relationship = new RelationshipTemplate();
+                relationship.setTarget("node_" + (i - 1));
+                relationship.setRequirementName("host");
+                relationship.setTargetedCapabilityName("host");
+                relationship.setType("tosca.relationships.HostedOn");
+                relationship.setProperties(properties("relationship_" + i));
+                nodeTemplate.setRelationships(Maps.<String, RelationshipTemplate> newHashMap());
+                nodeTemplate.getRelationships().put("hostedOnNode_" + (i - 1), relationship);
+            }
+            topology.getNodeTemplates().put("node_" + i, nodeTemplate);
+        }
+
+        velocityCtx = Maps.newHashMap();
+        velocityCtx.put("topology", topology);
+        velocityCtx.put("template_name", "template-id");
+        velocityCtx.put("template_version", "1.0.0-SNAPSHOT");
+        velocityCtx.put("template_author", "Foo Bar");
+        velocityCtx.put("application_description", "Here is a \nmultiline description");
+    }
+
+    @Test
+    public void streamedRenderingShouldMatchWriterRendering() throws IOException {
+        StringWriter writer = new StringWriter();
+        VelocityUtil.generate(TEMPLATE, writer, velocityCtx);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        VelocityUtil.generate(TEMPLATE, outputStream, velocityCtx);
+
+        Assert.assertEquals(writer.toString(), new String(outputStream.toByteArray(), Charsets.UTF_8));
+        Assert.assertTrue(writer.toString().contains("node_" + (NODE_COUNT - 1) + ":"));
+        // variables set while rendering are not added to the given properties
+        Assert.assertEquals(5, velocityCtx.size());
+    }
+
+    @Test
+    public void benchmarkRendering() throws IOException {
+        benchmark("String", new IRendering() {
+            @Override
+            public void render() throws IOException {
+                StringWriter writer = new StringWriter();
+                VelocityUtil.generate(TEMPLATE, writer, velocityCtx);
+                writer.toString();
+            }
+        });
+        final OutputStream outputStream = ByteStreams.nullOutputStream();
+        benchmark("Streamed", new IRendering() {
+            @Override
+            public void render() throws IOException {
+                VelocityUtil.generate(TEMPLATE, outputStream, velocityCtx);
+            }
+        });
+    }
+
+    private void benchmark(String name, IRendering rendering) throws IOException {
+        // warm up (template parsing and introspection cache)
+        rendering.render();
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            rendering.render();
+        }
+        long duration = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        log.info("{} rendering of <{}> nodes took <{}> ms and allocated <{}> KB per render", name, NODE_COUNT, duration / ITERATIONS / 1000000d, allocated
+                / ITERATIONS / 1024);
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        // allocations are not measured on this jvm
+        return 0;
+    }
+}
@@ -1,16 +1,22 @@
 package alien4cloud.ui.form;
 
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.file.Paths;
 import java.util.Map;
 
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
 import alien4cloud.rest.utils.JsonUtil;
 import alien4cloud.test.utils.YamlJsonAssert;
 import alien4cloud.test.utils.YamlJsonAssert.DocumentType;
 import alien4cloud.model.components.PropertyDefinition;
+import alien4cloud.plugin.Plugin;
+import alien4cloud.plugin.model.ManagedPlugin;
 import alien4cloud.utils.FileUtil;
 
 public class FormDescriptorTest {
@@ -69,4 +75,41 @@ public class FormDescriptorTest {
         String expected = FileUtil.readTextFile(Paths.get("./src/test/resources/alien/ui/form/FormToscaTypeExampleObject.json"));
         YamlJsonAssert.assertEquals(expected, actual, DocumentType.JSON);
     }
+
+    private ManagedPlugin plugin(ClassLoader classLoader) {
+        AnnotationConfigApplicationContext pluginContext = new AnnotationConfigApplicationContext();
+        pluginContext.setClassLoader(classLoader);
+        return new ManagedPlugin(pluginContext, new Plugin(), null, null);
+    }
+
+    @Test
+    public void testDescriptorCache() {
+        Map<String, Object> metaModel = generator.generateDescriptor(FormExampleObject.class);
+        String etag = generator.getDescriptorETag(FormExampleObject.class);
+        Assert.assertSame(metaModel, generator.generateDescriptor(FormExampleObject.class));
+
+        // closing a plugin doesn't evict classes of other class loaders
+        generator.onPluginClosed(plugin(new URLClassLoader(new URL[0])));
+        Assert.assertSame(metaModel, generator.generateDescriptor(FormExampleObject.class));
+
+        generator.onPluginClosed(plugin(FormExampleObject.class.getClassLoader()));
+        Assert.assertNotSame(metaModel, generator.generateDescriptor(FormExampleObject.class));
+        // same content gives the same tag
+        Assert.assertEquals(etag, generator.getDescriptorETag(FormExampleObject.class));
+        Assert.assertNotEquals(etag, generator.getDescriptorETag(FormPropertiesExampleObject.class));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void cachedDescriptorShouldBeUnmodifiable() {
+        Map<String, Object> metaModel = generator.generateDescriptor(FormExampleObject.class);
+        metaModel.put("_type", "updated");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(expected = UnsupportedOperationException.class)
+    public void nestedCachedDescriptorsShouldBeUnmodifiable() {
+        Map<String, Object> metaModel = generator.generateDescriptor(FormExampleObject.class);
+        Map<String, Object> properties = (Map<String, Object>) metaModel.get("_propertyType");
+        properties.clear();
+    }
 }
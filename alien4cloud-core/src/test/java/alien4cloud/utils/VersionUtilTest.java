@@ -41,5 +41,27 @@ public class VersionUtilTest {
     	Assert.assertTrue(VersionUtil.compare("10.0.10", "10.0.11-SNAPSHOT") < 0);
     	Assert.assertTrue(VersionUtil.compare("10.0.11", "10.0.11") == 0);
     }
+
+    @Test
+    public void sortableKeysShouldSortAsVersions() {
+        String[] versions = new String[] { "0.1.0-SNAPSHOT", "0.1.0", "0.2-alpha1", "0.2-rc1", "0.2-SNAPSHOT", "0.2", "1.0.0-SNAPSHOT", "1.0", "1.0-1", "1.0.1",
+                "1.10", "2", "10.0.11-SNAPSHOT", "10.0.11" };
+        for (int i = 1; i < versions.length; i++) {
+            Assert.assertTrue(versions[i - 1] + " < " + versions[i], VersionUtil.compare(versions[i - 1], versions[i]) < 0);
+            Assert.assertTrue(versions[i - 1] + " key < " + versions[i] + " key", VersionUtil.toSortableKey(versions[i - 1]) < VersionUtil.toSortableKey(versions[i]));
+        }
+        Assert.assertEquals(VersionUtil.toSortableKey("1.0"), VersionUtil.toSortableKey("1.0.0"));
+    }
+
+    @Test
+    public void sortableKeysShouldUseNumbersOfVersionsWithMoreTokens() {
+        // versions that don't split into major, minor and incremental versions
+        String[] versions = new String[] { "0.1.0", "1.0.0.SNAPSHOT", "1.0.0", "1.2.3", "1.2.3.4-SNAPSHOT", "1.2.3.4", "1.2.3.5", "1.2.4" };
+        for (int i = 1; i < versions.length; i++) {
+            Assert.assertTrue(versions[i - 1] + " < " + versions[i], VersionUtil.compare(versions[i - 1], versions[i]) < 0);
+            Assert.assertTrue(versions[i - 1] + " key < " + versions[i] + " key", VersionUtil.toSortableKey(versions[i - 1]) < VersionUtil.toSortableKey(versions[i]));
+        }
+        Assert.assertEquals(VersionUtil.toSortableKey("1.0.0-SNAPSHOT"), VersionUtil.toSortableKey("1.0.0.SNAPSHOT"));
+    }
     
 }
@@ -87,9 +87,8 @@ public class ApplicationVersionController {
     public RestResponse<GetMultipleDataResult<ApplicationVersion>> search(@PathVariable String applicationId, @RequestBody SearchRequest searchRequest) {
         Application application = applicationService.getOrFail(applicationId);
         AuthorizationUtil.checkAuthorizationForApplication(application, ApplicationRole.values());
-        GetMultipleDataResult<ApplicationVersion> searchResult = alienDAO.search(ApplicationVersion.class, null,
-                appVersionService.getVersionsFilters(applicationId, searchRequest.getQuery()), searchRequest.getFrom(), searchRequest.getSize());
-        searchResult.setData(appVersionService.sortArrayOfVersion(searchResult.getData()));
+        GetMultipleDataResult<ApplicationVersion> searchResult = appVersionService.searchVersions(applicationId, searchRequest.getQuery(),
+                searchRequest.getFrom(), searchRequest.getSize());
         return RestResponseBuilder.<GetMultipleDataResult<ApplicationVersion>> builder().data(searchResult).build();
     }
 
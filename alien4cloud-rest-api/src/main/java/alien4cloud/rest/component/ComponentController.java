@@ -19,6 +19,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import alien4cloud.Constants;
 import alien4cloud.audit.annotation.Audit;
+import alien4cloud.common.TagService;
+import alien4cloud.common.TagSuggestionService;
 import alien4cloud.component.ICSARRepositorySearchService;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.FacetedSearchResult;
@@ -32,7 +34,6 @@ import alien4cloud.rest.model.RestErrorCode;
 import alien4cloud.rest.model.RestResponse;
 import alien4cloud.rest.model.RestResponseBuilder;
 
-import com.google.common.collect.Lists;
 import com.wordnik.swagger.annotations.ApiOperation;
 
 /**
@@ -50,6 +51,10 @@ public class ComponentController {
 
     @Resource
     private ICSARRepositorySearchService searchService;
+    @Resource
+    private TagService tagService;
+    @Resource
+    private TagSuggestionService tagSuggestionService;
 
     /**
      * Get details for a component.
@@ -188,15 +193,7 @@ public class ComponentController {
         if (component != null) {
             if (!updateTagRequest.getTagKey().equals(Constants.ALIEN_INTERNAL_TAG)) {
                 // Put the updated tag (will override the old tag or add it to the tag map)
-                if (component.getTags() == null) {
-                    component.setTags(Lists.<Tag> newArrayList());
-                }
-                Tag newTag = new Tag(updateTagRequest.getTagKey(), updateTagRequest.getTagValue());
-                if (component.getTags().contains(newTag)) {
-                    component.getTags().remove(newTag);
-                }
-                component.getTags().add(newTag);
-                dao.save(component);
+                tagService.upsertTag(component, updateTagRequest.getTagKey(), updateTagRequest.getTagValue());
             } else {
                 updateComponantTagError = RestErrorBuilder.builder(RestErrorCode.COMPONENT_INTERNALTAG_ERROR)
                         .message("Tag update operation failed. Could not update internal alien tag  <" + Constants.ALIEN_INTERNAL_TAG + ">.").build();
@@ -224,6 +221,7 @@ public class ComponentController {
                 }
                 component.getTags().remove(new Tag(tagId, null));
                 dao.save(component);
+                tagSuggestionService.invalidate();
             } else {
                 deleteComponantTagError = RestErrorBuilder.builder(RestErrorCode.COMPONENT_INTERNALTAG_ERROR)
                         .message("Tag delete operation failed. Could not delete internal alien tag  <" + Constants.ALIEN_INTERNAL_TAG + ">.").build();
@@ -1,9 +1,12 @@
 package alien4cloud.rest.deployment;
 
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 import javax.annotation.Resource;
 
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.lang3.StringUtils;
@@ -30,11 +33,23 @@ import alien4cloud.topology.TopologyServiceCore;
 import alien4cloud.tosca.normative.NormativeBlockStorageConstants;
 import alien4cloud.tosca.normative.ToscaFunctionConstants;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Sets;
-
+import com.google.common.util.concurrent.Striped;
+
+/**
+ * Store the ids of the volumes created for block storages in the runtime topology and in the application topology (or deployment setup).
+ *
+ * Updates are read-modify-write of the whole topology (or deployment setup) so events of a same deployment are processed one at a time, when many volumes
+ * are attached at once concurrent events would otherwise overwrite each other volume ids.
+ */
 @Slf4j
 @Component
 public class BlockStorageEventHandler extends DeploymentEventHandler {
+    private static final int DEPLOYMENT_LOCK_STRIPES = 64;
+    private static final int DEPLOYMENT_CACHE_SIZE = 100;
+    private static final int DEPLOYMENT_CACHE_EXPIRE_MINUTES = 30;
 
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
@@ -51,9 +66,20 @@ public class BlockStorageEventHandler extends DeploymentEventHandler {
     @Resource
     private DeploymentSetupService deploymentSetupService;
 
+    private final Striped<Lock> deploymentLocks = Striped.lock(DEPLOYMENT_LOCK_STRIPES);
+    /** Environment and version of the deployments, they don't change while a deployment is running. */
+    private final Cache<String, DeploymentSource> deploymentSources = CacheBuilder.newBuilder().maximumSize(DEPLOYMENT_CACHE_SIZE)
+            .expireAfterAccess(DEPLOYMENT_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES).build();
+
     @Override
     public void eventHappened(AbstractMonitorEvent event) {
-        processBlockStorageEvent((PaaSInstanceStorageMonitorEvent) event);
+        Lock deploymentLock = deploymentLocks.get(event.getDeploymentId());
+        deploymentLock.lock();
+        try {
+            processBlockStorageEvent((PaaSInstanceStorageMonitorEvent) event);
+        } finally {
+            deploymentLock.unlock();
+        }
     }
 
     private void processBlockStorageEvent(PaaSInstanceStorageMonitorEvent storageEvent) {
@@ -79,9 +105,9 @@ public class BlockStorageEventHandler extends DeploymentEventHandler {
             return;
         }
 
-        Deployment deployment = deploymentService.getDeployment(storageEvent.getDeploymentId());
-        ApplicationEnvironment applicationEnvironment = applicationEnvironmentService.getOrFail(deployment.getDeploymentSetup().getEnvironmentId());
-        ApplicationVersion applicationVersion = applicationVersionService.getOrFail(applicationEnvironment.getCurrentVersionId());
+        DeploymentSource deploymentSource = getDeploymentSource(storageEvent.getDeploymentId());
+        ApplicationEnvironment applicationEnvironment = deploymentSource.applicationEnvironment;
+        ApplicationVersion applicationVersion = deploymentSource.applicationVersion;
         Topology topology = topoServiceCore.getMandatoryTopology(applicationVersion.getTopologyId());
 
         NodeTemplate nodeTemplate;
@@ -114,6 +140,18 @@ public class BlockStorageEventHandler extends DeploymentEventHandler {
         }
     }
 
+    private DeploymentSource getDeploymentSource(String deploymentId) {
+        DeploymentSource deploymentSource = deploymentSources.getIfPresent(deploymentId);
+        if (deploymentSource == null) {
+            Deployment deployment = deploymentService.getDeployment(deploymentId);
+            ApplicationEnvironment applicationEnvironment = applicationEnvironmentService.getOrFail(deployment.getDeploymentSetup().getEnvironmentId());
+            ApplicationVersion applicationVersion = applicationVersionService.getOrFail(applicationEnvironment.getCurrentVersionId());
+            deploymentSource = new DeploymentSource(applicationEnvironment, applicationVersion);
+            deploymentSources.put(deploymentId, deploymentSource);
+        }
+        return deploymentSource;
+    }
+
     private void updateRuntimeTopology(Topology runtimeTopo, PaaSInstanceStorageMonitorEvent storageEvent, String volumeIds) {
         NodeTemplate nodeTemplate = topoServiceCore.getNodeTemplate(runtimeTopo, storageEvent.getNodeTemplateId());
         log.info("Updating Runtime topology: Storage NodeTemplate <{}.{}> to add a new volumeId", runtimeTopo.getId(), storageEvent.getNodeTemplateId());
@@ -159,4 +197,10 @@ public class BlockStorageEventHandler extends DeploymentEventHandler {
     public boolean canHandle(AbstractMonitorEvent event) {
         return event instanceof PaaSInstanceStorageMonitorEvent;
     }
+
+    @AllArgsConstructor
+    private static class DeploymentSource {
+        private final ApplicationEnvironment applicationEnvironment;
+        private final ApplicationVersion applicationVersion;
+    }
 }
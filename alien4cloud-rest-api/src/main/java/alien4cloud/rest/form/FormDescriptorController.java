@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import alien4cloud.cloud.CloudService;
 import alien4cloud.model.components.IndexedNodeType;
@@ -37,34 +38,42 @@ public class FormDescriptorController {
     @ApiIgnore
     @RequestMapping(value = "/nodetype", method = RequestMethod.GET, produces = "application/json")
     @PreAuthorize("hasAnyAuthority('ADMIN', 'COMPONENTS_MANAGER', 'COMPONENTS_BROWSER')")
-    public RestResponse<Map<String, Object>> getNodeTypeFormDescriptor() throws IntrospectionException {
-        return RestResponseBuilder.<Map<String, Object>> builder().data(formDescriptorGenerator.generateDescriptor(IndexedNodeType.class)).build();
+    public RestResponse<Map<String, Object>> getNodeTypeFormDescriptor(WebRequest request) throws IntrospectionException {
+        return getFormDescriptor(IndexedNodeType.class, request);
     }
 
     @RequestMapping(value = "/tagconfiguration", method = RequestMethod.GET, produces = "application/json")
     @PreAuthorize("hasAnyAuthority('ADMIN')")
-    public RestResponse<Map<String, Object>> getTagConfigurationFormDescriptor() throws IntrospectionException {
-        return RestResponseBuilder.<Map<String, Object>> builder().data(formDescriptorGenerator.generateDescriptor(MetaPropConfiguration.class)).build();
+    public RestResponse<Map<String, Object>> getTagConfigurationFormDescriptor(WebRequest request) throws IntrospectionException {
+        return getFormDescriptor(MetaPropConfiguration.class, request);
     }
 
     @RequestMapping(value = "/pluginConfig/{pluginId:.+}", method = RequestMethod.GET, produces = "application/json")
     @PreAuthorize("hasAnyAuthority('ADMIN')")
-    public RestResponse<Map<String, Object>> getPluginConfigurationFormDescriptor(@PathVariable String pluginId) throws IntrospectionException {
+    public RestResponse<Map<String, Object>> getPluginConfigurationFormDescriptor(@PathVariable String pluginId, WebRequest request) throws IntrospectionException {
         if (pluginManager.isPluginConfigurable(pluginId)) {
             Class<?> configType = pluginManager.getConfigurationType(pluginId);
-            return RestResponseBuilder.<Map<String, Object>> builder().data(formDescriptorGenerator.generateDescriptor(configType)).build();
+            return getFormDescriptor(configType, request);
         }
         return RestResponseBuilder.<Map<String, Object>> builder().build();
     }
 
     @RequestMapping(value = "/cloudConfig/{cloudId:.+}", method = RequestMethod.GET, produces = "application/json")
     @PreAuthorize("hasAnyAuthority('ADMIN')")
-    public RestResponse<Map<String, Object>> getCloudConfigurationFormDescriptor(@PathVariable String cloudId) throws IntrospectionException {
+    public RestResponse<Map<String, Object>> getCloudConfigurationFormDescriptor(@PathVariable String cloudId, WebRequest request) throws IntrospectionException {
         Class<?> configurationClass = cloudService.getConfigurationType(cloudId);
 
         if (configurationClass != null) {
-            return RestResponseBuilder.<Map<String, Object>> builder().data(formDescriptorGenerator.generateDescriptor(configurationClass)).build();
+            return getFormDescriptor(configurationClass, request);
         }
         return RestResponseBuilder.<Map<String, Object>> builder().build();
     }
+
+    private RestResponse<Map<String, Object>> getFormDescriptor(Class<?> clazz, WebRequest request) {
+        if (request.checkNotModified(formDescriptorGenerator.getDescriptorETag(clazz))) {
+            // the client already has this descriptor, answer not modified without body.
+            return null;
+        }
+        return RestResponseBuilder.<Map<String, Object>> builder().data(formDescriptorGenerator.generateDescriptor(clazz)).build();
+    }
 }
@@ -1,14 +1,25 @@
 package alien4cloud.rest.quicksearch;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.elasticsearch.index.query.FilterBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -18,6 +29,7 @@ import alien4cloud.dao.ElasticSearchDAO;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.FetchContext;
 import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.exception.IndexingServiceException;
 import alien4cloud.model.application.Application;
 import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.rest.model.BasicSearchRequest;
@@ -26,6 +38,9 @@ import alien4cloud.rest.model.RestResponseBuilder;
 import alien4cloud.security.AuthorizationUtil;
 import alien4cloud.security.model.Role;
 
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Sets;
 import com.wordnik.swagger.annotations.ApiOperation;
 
@@ -39,43 +54,88 @@ import com.wordnik.swagger.annotations.ApiOperation;
 public class QuickSearchController {
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
+    @Resource(name = "quick-search-executor")
+    private ThreadPoolTaskExecutor quickSearchExecutor;
+    @Value("${quick_search.cache_size:1000}")
+    private int cacheSize = 1000;
+    @Value("${quick_search.cache_expire_seconds:10}")
+    private int cacheExpireSeconds = 10;
+
+    /** Application authorization filter of the users (absent for users that can see every application). */
+    private Cache<String, Optional<FilterBuilder>> authorizationFilters;
+    /** Results of the last searches of the users, the header search sends the same query again on every key stroke that doesn't change the text. */
+    private Cache<List<Object>, GetMultipleDataResult> searchResults;
+
+    @PostConstruct
+    public void init() {
+        authorizationFilters = CacheBuilder.newBuilder().maximumSize(cacheSize).expireAfterWrite(cacheExpireSeconds, TimeUnit.SECONDS).build();
+        searchResults = CacheBuilder.newBuilder().maximumSize(cacheSize).expireAfterWrite(cacheExpireSeconds, TimeUnit.SECONDS).build();
+    }
 
     @ApiOperation(value = "Search for applications or tosca elements in ALIEN's repository.")
     @RequestMapping(method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public RestResponse<GetMultipleDataResult> search(@RequestBody BasicSearchRequest requestObject) {
-
-        Set<String> authoIndexes = Sets.newHashSet();
-        Set<Class<?>> classes = Sets.newHashSet();
+    public RestResponse<GetMultipleDataResult> search(@RequestBody final BasicSearchRequest requestObject) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        // results depends on the user roles so they are part of the key
+        List<Object> searchKey = Arrays.<Object> asList(auth.getName(), Sets.newHashSet(auth.getAuthorities()), requestObject.getQuery(),
+                requestObject.getFrom(), requestObject.getSize());
+        GetMultipleDataResult searchResult = searchResults.getIfPresent(searchKey);
+        if (searchResult == null) {
+            searchResult = doSearch(requestObject, auth);
+            searchResults.put(searchKey, searchResult);
+        }
+        return RestResponseBuilder.<GetMultipleDataResult> builder().data(searchResult).build();
+    }
 
-        // First phase : COMPONENTS search, needed role Role.COMPONENTS_BROWSER or Role.ADMIN
+    private GetMultipleDataResult doSearch(final BasicSearchRequest requestObject, Authentication auth) {
+        // First phase : COMPONENTS search, needed role Role.COMPONENTS_BROWSER or Role.ADMIN, run concurrently with the applications search
+        Future<GetMultipleDataResult> componentsSearch = null;
         if (AuthorizationUtil.hasOneRoleIn(Role.COMPONENTS_BROWSER)) {
-            authoIndexes.add(ElasticSearchDAO.TOSCA_ELEMENT_INDEX);
-            classes.add(IndexedNodeType.class);
+            componentsSearch = quickSearchExecutor.submit(new Callable<GetMultipleDataResult>() {
+                @Override
+                public GetMultipleDataResult call() throws Exception {
+                    return searchByType(requestObject, Sets.newHashSet(ElasticSearchDAO.TOSCA_ELEMENT_INDEX),
+                            Sets.<Class<?>> newHashSet(IndexedNodeType.class), null, null);
+                }
+            });
         }
 
-        GetMultipleDataResult searchResultComponents = searchByType(requestObject, authoIndexes, classes, null, null);
-
         // Second phase : APPLICATION search (with rights filter) or with the Role.ADMIN
-        authoIndexes.clear();
-        classes.clear();
-        authoIndexes.add(Application.class.getSimpleName().toLowerCase());
-        classes.add(Application.class);
-
         // Adding filters to get only authorized applications
         // only filter on users roles on the application if the current user is not an ADMIN
-        FilterBuilder authorizationFilter = AuthorizationUtil.getResourceAuthorizationFilters();
+        Optional<FilterBuilder> authorizationFilter = authorizationFilters.getIfPresent(auth.getName());
+        if (authorizationFilter == null) {
+            authorizationFilter = Optional.fromNullable(AuthorizationUtil.getResourceAuthorizationFilters());
+            authorizationFilters.put(auth.getName(), authorizationFilter);
+        }
+        GetMultipleDataResult<?> searchResultApplications = searchByType(requestObject,
+                Sets.newHashSet(Application.class.getSimpleName().toLowerCase()), Sets.<Class<?>> newHashSet(Application.class), null,
+                authorizationFilter.orNull());
 
-        GetMultipleDataResult<?> searchResultApplications = searchByType(requestObject, authoIndexes, classes, null, authorizationFilter);
+        GetMultipleDataResult searchResultComponents = componentsSearch == null ? new GetMultipleDataResult() : get(componentsSearch);
 
         // Final merge result : COMPONENTS + APPLICATIONS
         GetMultipleDataResult searchResult = new GetMultipleDataResult();
-        searchResult.setQueryDuration(searchResultComponents.getQueryDuration() + searchResultApplications.getQueryDuration());
+        searchResult.setQueryDuration(Math.max(searchResultComponents.getQueryDuration(), searchResultApplications.getQueryDuration()));
         searchResult.setTypes(ArrayUtils.addAll(searchResultComponents.getTypes(), searchResultApplications.getTypes()));
         searchResult.setData(ArrayUtils.addAll(searchResultComponents.getData(), searchResultApplications.getData()));
         searchResult.setTotalResults(searchResultComponents.getTotalResults() + searchResultApplications.getTotalResults());
+        return searchResult;
+    }
 
-        return RestResponseBuilder.<GetMultipleDataResult> builder().data(searchResult).build();
+    private GetMultipleDataResult get(Future<GetMultipleDataResult> search) {
+        try {
+            return search.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexingServiceException("Quick search has been interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IndexingServiceException("Quick search failed.", e.getCause());
+        }
     }
 
     private GetMultipleDataResult searchByType(BasicSearchRequest requestObject, Set<String> authoIndexes, Set<Class<?>> classes,
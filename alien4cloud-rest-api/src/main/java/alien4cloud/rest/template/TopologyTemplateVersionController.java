@@ -79,9 +79,8 @@ public class TopologyTemplateVersionController {
     @ApiOperation(value = "Search topology template versions", notes = "Returns a search result with that contains application versions matching the request.")
     @RequestMapping(value = "/search", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     public RestResponse<GetMultipleDataResult<TopologyTemplateVersion>> search(@PathVariable String topologyTemplateId, @RequestBody SearchRequest searchRequest) {
-        GetMultipleDataResult<TopologyTemplateVersion> searchResult = alienDAO.search(TopologyTemplateVersion.class, null,
-                versionService.getVersionsFilters(topologyTemplateId, searchRequest.getQuery()), searchRequest.getFrom(), searchRequest.getSize());
-        searchResult.setData(versionService.sortArrayOfVersion(searchResult.getData()));
+        GetMultipleDataResult<TopologyTemplateVersion> searchResult = versionService.searchVersions(topologyTemplateId, searchRequest.getQuery(),
+                searchRequest.getFrom(), searchRequest.getSize());
         return RestResponseBuilder.<GetMultipleDataResult<TopologyTemplateVersion>> builder().data(searchResult).build();
     }
 
@@ -13,6 +13,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import lombok.extern.slf4j.Slf4j;
@@ -58,6 +59,8 @@ import alien4cloud.model.topology.Capability;
 import alien4cloud.model.topology.HaPolicy;
 import alien4cloud.model.topology.NodeGroup;
 import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.RelationshipIndex;
+import alien4cloud.model.topology.RelationshipIndex.RelationshipReference;
 import alien4cloud.model.topology.RelationshipTemplate;
 import alien4cloud.model.topology.SubstitutionTarget;
 import alien4cloud.model.topology.Topology;
@@ -72,6 +75,7 @@ import alien4cloud.rest.model.RestResponse;
 import alien4cloud.rest.model.RestResponseBuilder;
 import alien4cloud.security.model.ApplicationRole;
 import alien4cloud.topology.TopologyDTO;
+import alien4cloud.topology.TopologyExportService;
 import alien4cloud.topology.TopologyService;
 import alien4cloud.topology.TopologyServiceCore;
 import alien4cloud.topology.TopologyTemplateVersionService;
@@ -109,6 +113,9 @@ public class TopologyController {
     @Resource
     private TopologyService topologyService;
 
+    @Resource
+    private TopologyExportService topologyExportService;
+
     @Resource
     private TopologyValidationService topologyValidationService;
     @Resource
@@ -179,6 +186,43 @@ public class TopologyController {
         return RestResponseBuilder.<String> builder().data(yaml).build();
     }
 
+    /**
+     * Download an existing {@link alien4cloud.model.topology.Topology} as a TOSCA YAML definition, the definition is streamed to the response.
+     *
+     * @param topologyId The id of the topology to download.
+     * @param response The http response in which to write the definition.
+     * @throws IOException In case the definition cannot be written to the response.
+     */
+    @RequestMapping(value = "/{topologyId}/yaml/download", method = RequestMethod.GET, produces = "text/yaml")
+    @PreAuthorize("isAuthenticated()")
+    public void downloadYaml(@PathVariable String topologyId, HttpServletResponse response) throws IOException {
+        Topology topology = topologyServiceCore.getMandatoryTopology(topologyId);
+        topologyService
+                .checkAuthorizations(topology, ApplicationRole.APPLICATION_MANAGER, ApplicationRole.APPLICATION_DEVOPS, ApplicationRole.APPLICATION_USER);
+        response.setContentType("text/yaml");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"topology.yml\"");
+        topologyService.writeYaml(topology, response.getOutputStream());
+    }
+
+    /**
+     * Download an existing {@link alien4cloud.model.topology.Topology} together with the archives it depends on as a zip streamed to the response.
+     *
+     * @param topologyId The id of the topology to export.
+     * @param response The http response in which to write the zip.
+     * @throws IOException In case the zip cannot be written to the response.
+     */
+    @RequestMapping(value = "/{topologyId}/export", method = RequestMethod.GET, produces = "application/zip")
+    @PreAuthorize("isAuthenticated()")
+    public void export(@PathVariable String topologyId, HttpServletResponse response) throws IOException {
+        Topology topology = topologyServiceCore.getMandatoryTopology(topologyId);
+        topologyService
+                .checkAuthorizations(topology, ApplicationRole.APPLICATION_MANAGER, ApplicationRole.APPLICATION_DEVOPS, ApplicationRole.APPLICATION_USER);
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition", "attachment; filename=\"topology-" + topologyId + ".zip\"");
+        topologyExportService.export(topology, response.getOutputStream());
+    }
+
     /**
      * Add a node template to a topology based on a node type
      *
@@ -257,7 +301,7 @@ public class TopologyController {
 
         nodeTemplates.put(newNodeTemplateName, nodeTemplate);
         nodeTemplates.remove(nodeTemplateName);
-        refreshNodeTempNameInRelationships(nodeTemplateName, newNodeTemplateName, nodeTemplates);
+        refreshNodeTempNameInRelationships(nodeTemplateName, newNodeTemplateName, topology);
         updateOnNodeTemplateNameChange(nodeTemplateName, newNodeTemplateName, topology);
         updateGroupMembers(topology, nodeTemplate, nodeTemplateName, newNodeTemplateName);
         workflowBuilderService.renameNode(topology, nodeTemplate, nodeTemplateName, newNodeTemplateName);
@@ -308,47 +352,32 @@ public class TopologyController {
      *
      * @param oldNodeTemplateName Name of the node template that changes.
      * @param newNodeTemplateName New name for the node template.
-     * @param nodeTemplates Map of all node templates in the topology.
+     * @param topology The topology, only the relationships that target the node (from its relationship index) are visited.
      */
-    private void refreshNodeTempNameInRelationships(String oldNodeTemplateName, String newNodeTemplateName, Map<String, NodeTemplate> nodeTemplates) {
-        // node templates copy
-        for (NodeTemplate nodeTemplate : nodeTemplates.values()) {
-            if (nodeTemplate.getRelationships() != null) {
-                refreshNodeTemplateNameInRelationships(oldNodeTemplateName, newNodeTemplateName, nodeTemplate.getRelationships());
-            }
-        }
-    }
-
-    private void refreshNodeTemplateNameInRelationships(String oldNodeTemplateName, String newNodeTemplateName,
-            Map<String, RelationshipTemplate> relationshipTemplates) {
-        Map<String, String> updatedKeys = Maps.newHashMap();
-        for (Entry<String, RelationshipTemplate> relationshipTemplateEntry : relationshipTemplates.entrySet()) {
-            String relationshipTemplateId = relationshipTemplateEntry.getKey();
-            RelationshipTemplate relationshipTemplate = relationshipTemplateEntry.getValue();
-
-            if (relationshipTemplate.getTarget().equals(oldNodeTemplateName)) {
-                relationshipTemplate.setTarget(newNodeTemplateName);
-                String formatedOldNodeName = topologyService.getRelationShipName(relationshipTemplate.getType(), oldNodeTemplateName);
-                // if the id/name of the relationship is auto-generated we should update it also as auto-generation is <typeName+targetId>
-                if (relationshipTemplateId.equals(formatedOldNodeName)) {
-                    String newRelationshipTemplateId = topologyService.getRelationShipName(relationshipTemplate.getType(), newNodeTemplateName);
-                    // check that the new name is not already used (so we won't override another relationship)...
-                    String validNewRelationshipTemplateId = newRelationshipTemplateId;
-                    int counter = 0;
-                    while (relationshipTemplates.containsKey(validNewRelationshipTemplateId)) {
-                        validNewRelationshipTemplateId = newRelationshipTemplateId + counter;
-                        counter++;
-                    }
-                    updatedKeys.put(relationshipTemplateId, validNewRelationshipTemplateId);
+    private void refreshNodeTempNameInRelationships(String oldNodeTemplateName, String newNodeTemplateName, Topology topology) {
+        RelationshipIndex relationshipIndex = topology.getRelationshipIndex();
+        List<RelationshipReference> targetingRelationships = Lists.newArrayList(relationshipIndex.getIncomingRelationships(oldNodeTemplateName));
+        // rename the target node of the relationships
+        relationshipIndex.renameNode(oldNodeTemplateName, newNodeTemplateName);
+        for (RelationshipReference reference : targetingRelationships) {
+            String source = reference.getSource().equals(oldNodeTemplateName) ? newNodeTemplateName : reference.getSource();
+            Map<String, RelationshipTemplate> relationshipTemplates = topology.getNodeTemplates().get(source).getRelationships();
+            RelationshipTemplate relationshipTemplate = reference.getTemplate();
+            String formatedOldNodeName = topologyService.getRelationShipName(relationshipTemplate.getType(), oldNodeTemplateName);
+            // if the id/name of the relationship is auto-generated we should update it also as auto-generation is <typeName+targetId>
+            if (reference.getName().equals(formatedOldNodeName)) {
+                String newRelationshipTemplateId = topologyService.getRelationShipName(relationshipTemplate.getType(), newNodeTemplateName);
+                // check that the new name is not already used (so we won't override another relationship)...
+                String validNewRelationshipTemplateId = newRelationshipTemplateId;
+                int counter = 0;
+                while (relationshipTemplates.containsKey(validNewRelationshipTemplateId)) {
+                    validNewRelationshipTemplateId = newRelationshipTemplateId + counter;
+                    counter++;
                 }
+                relationshipTemplates.put(validNewRelationshipTemplateId, relationshipTemplates.remove(reference.getName()));
+                relationshipIndex.renameRelationship(source, reference.getName(), validNewRelationshipTemplateId);
             }
         }
-
-        // update the relationship keys if any has been impacted
-        for (Entry<String, String> updateKeyEntry : updatedKeys.entrySet()) {
-            RelationshipTemplate relationshipTemplate = relationshipTemplates.remove(updateKeyEntry.getKey());
-            relationshipTemplates.put(updateKeyEntry.getValue(), relationshipTemplate);
-        }
     }
 
     private void isUniqueNodeTemplateName(String topologyId, String newNodeTemplateName, Map<String, NodeTemplate> nodeTemplates) {
@@ -408,8 +437,7 @@ public class TopologyController {
         }
 
         boolean upperBoundReachedTarget = topologyCapabilityBoundsValidationServices.isCapabilityUpperBoundReachedForTarget(relationshipTemplateRequest
-                .getRelationshipTemplate().getTarget(), nodeTemplates, relationshipTemplateRequest.getRelationshipTemplate().getTargetedCapabilityName(),
-                topology.getDependencies());
+                .getRelationshipTemplate().getTarget(), topology, relationshipTemplateRequest.getRelationshipTemplate().getTargetedCapabilityName());
         // return with a rest response error
         if (upperBoundReachedTarget) {
             return RestResponseBuilder
@@ -432,6 +460,7 @@ public class TopologyController {
         TopologyServiceCore.fillProperties(properties, indexedRelationshipType.getProperties(), null);
         relationship.setProperties(properties);
         relationships.put(relationshipName, relationship);
+        topology.getRelationshipIndex().addRelationship(nodeTemplateName, relationshipName, relationship);
         workflowBuilderService.addRelationship(topology, nodeTemplateName, relationshipName);
         alienDAO.save(topology);
         log.info("Added relationship to the topology [" + topologyId + "], node name [" + nodeTemplateName + "], relationship name [" + relationshipName + "]");
@@ -491,6 +520,7 @@ public class TopologyController {
         topologyService.unloadType(topology, typesTobeUnloaded.toArray(new String[typesTobeUnloaded.size()]));
         removeRelationShipReferences(nodeTemplateName, topology);
         nodeTemplates.remove(nodeTemplateName);
+        topology.getRelationshipIndex().removeNode(nodeTemplateName);
         removeOutputs(nodeTemplateName, topology);
         if (topology.getSubstitutionMapping() != null) {
             removeNodeTemplateSubstitutionTargetMapEntry(nodeTemplateName, topology.getSubstitutionMapping().getCapabilities());
@@ -953,26 +983,12 @@ public class TopologyController {
     private Map<String, NodeTemplate> removeRelationShipReferences(String nodeTemplateName, Topology topology) {
         Map<String, NodeTemplate> nodeTemplates = topology.getNodeTemplates();
         Map<String, NodeTemplate> impactedNodeTemplates = Maps.newHashMap();
-        List<String> keysToRemove = Lists.newArrayList();
-        for (String key : nodeTemplates.keySet()) {
-            NodeTemplate nodeTemp = nodeTemplates.get(key);
-            if (nodeTemp.getRelationships() == null) {
-                continue;
-            }
-            keysToRemove.clear();
-            for (String key2 : nodeTemp.getRelationships().keySet()) {
-                RelationshipTemplate relTemp = nodeTemp.getRelationships().get(key2);
-                if (relTemp == null) {
-                    continue;
-                }
-                if (relTemp.getTarget() != null && relTemp.getTarget().equals(nodeTemplateName)) {
-                    keysToRemove.add(key2);
-                }
-            }
-            for (String relName : keysToRemove) {
-                nodeTemplates.get(key).getRelationships().remove(relName);
-                impactedNodeTemplates.put(key, nodeTemplates.get(key));
-            }
+        RelationshipIndex relationshipIndex = topology.getRelationshipIndex();
+        for (RelationshipReference reference : Lists.newArrayList(relationshipIndex.getIncomingRelationships(nodeTemplateName))) {
+            NodeTemplate source = nodeTemplates.get(reference.getSource());
+            source.getRelationships().remove(reference.getName());
+            relationshipIndex.removeRelationship(reference.getSource(), reference.getName());
+            impactedNodeTemplates.put(reference.getSource(), source);
         }
         return impactedNodeTemplates.isEmpty() ? null : impactedNodeTemplates;
     }
@@ -1011,6 +1027,7 @@ public class TopologyController {
         if (relationshipTemplate != null) {
             topologyService.unloadType(topology, relationshipTemplate.getType());
             template.getRelationships().remove(relationshipName);
+            topology.getRelationshipIndex().removeRelationship(nodeTemplateName, relationshipName);
         } else {
             throw new NotFoundException("The relationship with name [" + relationshipName + "] do not exist for the node [" + nodeTemplateName
                     + "] of the topology [" + topologyId + "]");
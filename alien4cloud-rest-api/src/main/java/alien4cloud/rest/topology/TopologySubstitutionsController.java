@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import alien4cloud.application.TopologySubstitutionGraph;
 import alien4cloud.audit.annotation.Audit;
 import alien4cloud.component.ICSARRepositorySearchService;
 import alien4cloud.csar.services.CsarService;
@@ -68,6 +69,9 @@ public class TopologySubstitutionsController {
     @Resource
     private CsarService csarService;
 
+    @Resource
+    private TopologySubstitutionGraph topologySubstitutionGraph;
+
     @ApiOperation(value = "Define the type this topology can substitute. When this method is called, a new type is created : it is derived from this one.", notes = "Returns a topology with it's details. Role required [ ARCHITECT ]")
     @RequestMapping(value = "/{topologyId}/substitutions/type", method = RequestMethod.PUT, produces = MediaType.APPLICATION_JSON_VALUE)
     @Audit
@@ -101,6 +105,7 @@ public class TopologySubstitutionsController {
         }
         topology.getSubstitutionMapping().setSubstitutionType(nodeType);
         alienDAO.save(topology);
+        topologySubstitutionGraph.update(topology);
         topologyServiceCore.updateSubstitutionType(topology);
         return RestResponseBuilder.<TopologyDTO> builder().data(topologyService.buildTopologyDTO(topology)).build();
     }
@@ -138,6 +143,8 @@ public class TopologySubstitutionsController {
         alienDAO.save(csar);
         // delete the CSAR and the type
         csarService.deleteCsar(csar.getId());
+        // the type does not substitute the topology anymore
+        topologySubstitutionGraph.invalidateAll();
         return RestResponseBuilder.<TopologyDTO> builder().data(topologyService.buildTopologyDTO(topology)).build();
     }
 
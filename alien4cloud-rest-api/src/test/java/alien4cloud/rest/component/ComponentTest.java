@@ -1,5 +1,6 @@
 package alien4cloud.rest.component;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
@@ -28,6 +29,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import alien4cloud.Constants;
+import alien4cloud.common.TagSuggestionService;
 import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.model.common.Tag;
 import alien4cloud.dao.ElasticSearchDAO;
@@ -51,6 +53,8 @@ public class ComponentTest {
     IGenericSearchDAO dao;
     @Resource
     ComponentController componentController;
+    @Resource
+    TagSuggestionService tagSuggestionService;
 
     private static final List<Tag> rootTags;
     private static final Map<String, CapabilityDefinition> capabilities;
@@ -100,6 +104,20 @@ public class ComponentTest {
 
     }
 
+    @Test
+    public void replacedComponentTagValueShouldNotBeSuggested() {
+        UpdateTagRequest updateComponentRequest = new UpdateTagRequest();
+        updateComponentRequest.setTagKey("replaced");
+        updateComponentRequest.setTagValue("old replaced value");
+        componentController.upsertTag(indexedNodeType.getId(), updateComponentRequest);
+        assertArrayEquals(new String[] { "old replaced value" }, tagSuggestionService.suggest(TagSuggestionService.VALUE_PATH, "old", 10));
+
+        updateComponentRequest.setTagValue("new replaced value");
+        componentController.upsertTag(indexedNodeType.getId(), updateComponentRequest);
+        assertArrayEquals(new String[0], tagSuggestionService.suggest(TagSuggestionService.VALUE_PATH, "old", 10));
+        assertArrayEquals(new String[] { "new replaced value" }, tagSuggestionService.suggest(TagSuggestionService.VALUE_PATH, "new", 10));
+    }
+
     @Test
     public void updateComponentTagWithBadComponentId() {
 
@@ -0,0 +1,169 @@
+package alien4cloud.rest.deployment;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import alien4cloud.application.ApplicationEnvironmentService;
+import alien4cloud.application.ApplicationVersionService;
+import alien4cloud.application.DeploymentSetupService;
+import alien4cloud.cloud.DeploymentService;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.application.ApplicationEnvironment;
+import alien4cloud.model.application.ApplicationVersion;
+import alien4cloud.model.application.DeploymentSetup;
+import alien4cloud.model.components.AbstractPropertyValue;
+import alien4cloud.model.components.ScalarPropertyValue;
+import alien4cloud.model.deployment.Deployment;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.paas.model.PaaSInstanceStorageMonitorEvent;
+import alien4cloud.topology.TopologyServiceCore;
+import alien4cloud.tosca.normative.NormativeBlockStorageConstants;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BlockStorageEventHandlerTest {
+    private static final int EVENT_COUNT = 50;
+    private static final String DEPLOYMENT_ID = "deployment";
+    private static final String STORAGE_NODE = "storage";
+
+    @Mock
+    private IGenericSearchDAO alienDAO;
+    @Mock
+    private IGenericSearchDAO alienMonitorDao;
+    @Mock
+    private TopologyServiceCore topoServiceCore;
+    @Mock
+    private DeploymentService deploymentService;
+    @Mock
+    private ApplicationVersionService applicationVersionService;
+    @Mock
+    private ApplicationEnvironmentService applicationEnvironmentService;
+    @Mock
+    private DeploymentSetupService deploymentSetupService;
+    @InjectMocks
+    private BlockStorageEventHandler blockStorageEventHandler;
+
+    /** Volume ids of the stored runtime and application topologies, topologies are read and saved as copies as they would be from elasticsearch. */
+    private volatile String runtimeVolumeIds;
+    private volatile String applicationVolumeIds;
+
+    private static Topology topology(String id, String volumeIds) {
+        NodeTemplate storage = new NodeTemplate();
+        storage.setProperties(Maps.<String, AbstractPropertyValue> newHashMap());
+        if (volumeIds != null) {
+            storage.getProperties().put(NormativeBlockStorageConstants.VOLUME_ID, new ScalarPropertyValue(volumeIds));
+        }
+        Map<String, NodeTemplate> nodeTemplates = Maps.newHashMap();
+        nodeTemplates.put(STORAGE_NODE, storage);
+        Topology topology = new Topology();
+        topology.setId(id);
+        topology.setNodeTemplates(nodeTemplates);
+        return topology;
+    }
+
+    private static String getVolumeIds(Object topology) {
+        NodeTemplate storage = ((Topology) topology).getNodeTemplates().get(STORAGE_NODE);
+        return ((ScalarPropertyValue) storage.getProperties().get(NormativeBlockStorageConstants.VOLUME_ID)).getValue();
+    }
+
+    @Before
+    public void before() {
+        Mockito.when(alienMonitorDao.findById(Topology.class, DEPLOYMENT_ID)).thenAnswer(new Answer<Topology>() {
+            @Override
+            public Topology answer(InvocationOnMock invocation) throws Throwable {
+                Topology topology = topology(DEPLOYMENT_ID, runtimeVolumeIds);
+                // leave time to other events to read the same topology
+                Thread.sleep(1);
+                return topology;
+            }
+        });
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                runtimeVolumeIds = getVolumeIds(invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(alienMonitorDao).save(Matchers.any(Topology.class));
+        Mockito.when(topoServiceCore.getMandatoryTopology("topology")).thenAnswer(new Answer<Topology>() {
+            @Override
+            public Topology answer(InvocationOnMock invocation) throws Throwable {
+                return topology("topology", applicationVolumeIds);
+            }
+        });
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                applicationVolumeIds = getVolumeIds(invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(alienDAO).save(Matchers.any(Topology.class));
+        Mockito.when(topoServiceCore.getNodeTemplate(Matchers.any(Topology.class), Matchers.eq(STORAGE_NODE))).thenAnswer(new Answer<NodeTemplate>() {
+            @Override
+            public NodeTemplate answer(InvocationOnMock invocation) throws Throwable {
+                return ((Topology) invocation.getArguments()[0]).getNodeTemplates().get(STORAGE_NODE);
+            }
+        });
+
+        Deployment deployment = new Deployment();
+        DeploymentSetup deploymentSetup = new DeploymentSetup();
+        deploymentSetup.setEnvironmentId("environment");
+        deployment.setDeploymentSetup(deploymentSetup);
+        Mockito.when(deploymentService.getDeployment(DEPLOYMENT_ID)).thenReturn(deployment);
+        ApplicationEnvironment environment = new ApplicationEnvironment();
+        environment.setCurrentVersionId("version");
+        Mockito.when(applicationEnvironmentService.getOrFail("environment")).thenReturn(environment);
+        ApplicationVersion version = new ApplicationVersion();
+        version.setTopologyId("topology");
+        Mockito.when(applicationVersionService.getOrFail("version")).thenReturn(version);
+    }
+
+    @Test
+    public void concurrentStorageEventsShouldKeepEveryVolumeId() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<Void>> futures = Lists.newArrayList();
+        Set<String> expectedVolumeIds = Sets.newHashSet();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            final PaaSInstanceStorageMonitorEvent event = new PaaSInstanceStorageMonitorEvent("volume_" + i, false);
+            event.setDeploymentId(DEPLOYMENT_ID);
+            event.setNodeTemplateId(STORAGE_NODE);
+            expectedVolumeIds.add(event.getVolumeId());
+            futures.add(executorService.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    blockStorageEventHandler.eventHappened(event);
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+
+        Assert.assertEquals(expectedVolumeIds, Sets.newHashSet(runtimeVolumeIds.split(",")));
+        Assert.assertEquals(expectedVolumeIds, Sets.newHashSet(applicationVolumeIds.split(",")));
+        // the environment and version of the deployment are looked up once
+        Mockito.verify(deploymentService, Mockito.times(1)).getDeployment(DEPLOYMENT_ID);
+    }
+}
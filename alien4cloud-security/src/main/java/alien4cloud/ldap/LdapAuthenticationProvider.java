@@ -2,14 +2,20 @@ package alien4cloud.ldap;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Conditional;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -21,8 +27,11 @@ import alien4cloud.security.users.IAlienUserDao;
 import alien4cloud.security.model.Role;
 import alien4cloud.security.model.User;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  * Provider responsible to authenticate agains LDAP.
@@ -45,10 +54,21 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
     private String[] defaultRoles;
     @Value("${ldap.mapping.roles.mapping:}")
     private String[] roleMappings;
+    @Value("${ldap.mapping.roles.cacheTtlSeconds:60}")
+    private int roleCacheTtlSeconds;
+    @Value("${ldap.sync.pageSize:500}")
+    private int syncPageSize;
     private Map<String, String> parsedRoleMappings;
+    /** LDAP roles of the users that recently logged in, so successive logins don't read the user entry from LDAP again. */
+    private Cache<String, String[]> ldapRolesCache;
+
+    private ExecutorService syncExecutor;
+    /** Progress of the LDAP users synchronization. */
+    @Getter
+    private final LdapUserSyncStatus syncStatus = new LdapUserSyncStatus();
 
     @PostConstruct
-    public void importLdapUsers() {
+    public void init() {
         // parse role mappings
         for (String roleMapping : roleMappings) {
             String[] mapping = roleMapping.split("=");
@@ -64,26 +84,87 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
             parsedRoleMappings.put(mapping[0], mapping[1]);
         }
 
+        checkRoles();
+        ldapRolesCache = CacheBuilder.newBuilder().expireAfterWrite(roleCacheTtlSeconds, TimeUnit.SECONDS).build();
+
         if (ldapUserDao.getLdapTemplate().getContextSource() != null) {
-            List<User> users = ldapUserDao.getUsers();
-            checkRoles();
-            for (User user : users) {
-                // refresh roles based on ldap.
-                User alienUser = alienUserDao.find(user.getUsername());
-                if (alienUser == null) {
-                    // eventually update if a mapping exists for this user.
-                    mapLdapRoles(user, user);
-                    if(user.getRoles() == null || user.getRoles().length == 0) {
-                        // initialize the user with default roles.
-                        user.setRoles(defaultRoles);
-                    }
-                    alienUserDao.save(user);
-                } else {
-                    mapLdapRoles(user, alienUser);
-                    alienUserDao.save(alienUser);
+            // import users in background so the application doesn't wait for the whole directory to be synchronized to start
+            syncExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("ldap-user-sync-"));
+            syncExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    importLdapUsers();
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (syncExecutor != null) {
+            syncExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Import the LDAP users in alien's user store. Users are read from LDAP page by page, for every page the existing users are read at once and only the
+     * new users and the users whose roles changed are saved with a single bulk request.
+     */
+    public void importLdapUsers() {
+        log.info("Synchronizing LDAP users");
+        syncStatus.start();
+        try {
+            ldapUserDao.getUsers(syncPageSize, new LdapUserDao.IUserPageCallback() {
+                @Override
+                public void onPage(List<User> users) {
+                    importLdapUsers(users);
                 }
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to synchronize LDAP users", e);
+            syncStatus.end(e.getMessage());
+            return;
+        }
+        syncStatus.end(null);
+        log.info("Synchronized <{}> LDAP users in <{}> ms, <{}> created and <{}> updated", syncStatus.getProcessedUsers(),
+                syncStatus.getEndDate() - syncStatus.getStartDate(), syncStatus.getCreatedUsers(), syncStatus.getUpdatedUsers());
+    }
+
+    private void importLdapUsers(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        String[] usernames = new String[users.size()];
+        for (int i = 0; i < usernames.length; i++) {
+            usernames[i] = users.get(i).getUsername();
+        }
+        Map<String, User> alienUsers = Maps.newHashMap();
+        List<User> foundUsers = alienUserDao.find(usernames);
+        if (foundUsers != null) {
+            for (User alienUser : foundUsers) {
+                alienUsers.put(alienUser.getUsername(), alienUser);
+            }
+        }
+
+        List<User> changedUsers = Lists.newArrayList();
+        for (User user : users) {
+            // refresh roles based on ldap.
+            User alienUser = alienUsers.get(user.getUsername());
+            if (alienUser == null) {
+                initLdapUserRoles(user);
+                changedUsers.add(user);
+                syncStatus.getCreatedUsers().incrementAndGet();
+            } else if (mapLdapRoles(user.getRoles(), alienUser)) {
+                changedUsers.add(alienUser);
+                syncStatus.getUpdatedUsers().incrementAndGet();
             }
         }
+        if (!changedUsers.isEmpty()) {
+            alienUserDao.save(changedUsers.toArray(new User[changedUsers.size()]));
+        }
+        syncStatus.getPages().incrementAndGet();
+        syncStatus.getProcessedUsers().addAndGet(users.size());
+        log.debug("Synchronized <{}> LDAP users", syncStatus.getProcessedUsers());
     }
 
     @Override
@@ -91,44 +172,93 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
         String login = authentication.getName();
         String password = authentication.getCredentials().toString();
 
-        if (ldapUserDao.authenticate(login, password)) {
+        boolean authenticated;
+        if (parsedRoleMappings == null) {
+            // roles are managed in alien, nothing to refresh
+            authenticated = ldapUserDao.authenticate(login, password);
+        } else {
+            authenticated = authenticateAndUpdateRoles(login, password);
+        }
+        if (authenticated) {
             List<? extends GrantedAuthority> emptyList = Lists.newArrayList();
-            Authentication auth = new UsernamePasswordAuthenticationToken(login, password, emptyList);
-            updateLdapUserRoles(login, auth);
-            return auth;
+            return new UsernamePasswordAuthenticationToken(login, password, emptyList);
         } else {
             log.debug("Wrong password for user <" + login + ">");
             throw new BadCredentialsException("Incorrect password for user <" + login + ">");
         }
     }
 
-    private void updateLdapUserRoles(String login, Authentication auth) {
-        if (auth.isAuthenticated() && parsedRoleMappings != null) {
-            // refresh roles if loaded from mapping
-            User ldapUser = ldapUserDao.getById(login);
-            User user = alienUserDao.find(login);
+    private boolean authenticateAndUpdateRoles(String login, String password) {
+        User ldapUser = null;
+        String[] ldapRoles = ldapRolesCache.getIfPresent(login);
+        if (ldapRoles == null) {
+            // read the user entry using the connection bound for authentication rather than with another search
+            ldapUser = ldapUserDao.authenticateAndGet(login, password);
+            if (ldapUser == null) {
+                return false;
+            }
+            // users without roles in LDAP are cached with an empty array as the cache doesn't support null values
+            ldapRoles = ldapUser.getRoles() == null ? new String[0] : ldapUser.getRoles();
+            ldapRolesCache.put(login, ldapRoles);
+        } else if (!ldapUserDao.authenticate(login, password)) {
+            return false;
+        }
 
-            if (ldapUser != null) {
-                mapLdapRoles(ldapUser, user);
+        // refresh roles if loaded from mapping
+        User user = alienUserDao.find(login);
+        if (user == null) {
+            // the user logs in before being synchronized
+            user = ldapUser == null ? ldapUserDao.getById(login) : ldapUser;
+            if (user != null) {
+                initLdapUserRoles(user);
+                alienUserDao.save(user);
             }
+        } else if (mapLdapRoles(ldapRoles, user)) {
             alienUserDao.save(user);
         }
+        return true;
     }
 
-    private void mapLdapRoles(User ldapUser, User user) {
-        if(ldapUser.getRoles() == null || parsedRoleMappings == null) {
-            return;
+    /**
+     * Set the roles of a LDAP user that is not yet in alien's user store.
+     *
+     * @param user The LDAP user.
+     */
+    private void initLdapUserRoles(User user) {
+        // eventually update if a mapping exists for this user.
+        mapLdapRoles(user.getRoles(), user);
+        if (user.getRoles() == null || user.getRoles().length == 0) {
+            // initialize the user with default roles.
+            user.setRoles(defaultRoles);
+        }
+    }
+
+    /**
+     * Set the alien roles mapped from LDAP roles to a user.
+     *
+     * @param ldapRoles The roles of the user in LDAP.
+     * @param user The user to update.
+     * @return True if the roles of the user changed and the user has to be saved, false if not.
+     */
+    private boolean mapLdapRoles(String[] ldapRoles, User user) {
+        if (ldapRoles == null || ldapRoles.length == 0 || parsedRoleMappings == null) {
+            // no roles defined in LDAP for this user
+            return false;
         }
 
         List<String> userRoles = Lists.newArrayList();
-        for (String role : ldapUser.getRoles()) {
+        for (String role : ldapRoles) {
             String alienRole = parsedRoleMappings.get(role);
             if (alienRole != null) {
                 userRoles.add(alienRole);
             }
         }
+        String[] previousRoles = user.getRoles();
         user.setRoles(userRoles.toArray(new String[userRoles.size()]));
-
+        if (previousRoles == null) {
+            return true;
+        }
+        return !Sets.newHashSet(previousRoles).equals(Sets.newHashSet(userRoles));
     }
 
     @Override
@@ -1,22 +1,47 @@
 package alien4cloud.ldap;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import javax.naming.NamingException;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.SearchControls;
 
 import lombok.Getter;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Conditional;
+import org.springframework.ldap.control.PagedResultsDirContextProcessor;
+import org.springframework.ldap.core.AuthenticatedLdapEntryContextCallback;
+import org.springframework.ldap.core.LdapEntryIdentification;
+import org.springframework.ldap.core.LdapOperations;
 import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.LdapOperationsCallback;
+import org.springframework.ldap.core.support.SingleContextSource;
+import org.springframework.ldap.support.LdapUtils;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import alien4cloud.security.model.User;
 
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 /**
  * Manage connection with LDAP for security management.
  */
+@Slf4j
 @Getter
 @Setter
 @Component
@@ -34,6 +59,36 @@ public class LdapUserDao {
     @Value("${ldap.mapping.id}")
     private String userIdKey;
 
+    @Value("${ldap.cache.maxSize:10000}")
+    private int cacheMaxSize;
+    @Value("${ldap.cache.ttlSeconds:300}")
+    private int cacheTtlSeconds;
+    @Value("${ldap.sync.pageSize:500}")
+    private int pageSize;
+
+    /** LDAP users per id, absent values are ids not found in LDAP. */
+    private Cache<String, Optional<User>> usersCache;
+    /** All the LDAP users as read by the last refresh, null until the users are read for the first time. */
+    private volatile List<User> allUsers;
+
+    @PostConstruct
+    public void init() {
+        usersCache = CacheBuilder.newBuilder().maximumSize(cacheMaxSize).expireAfterWrite(cacheTtlSeconds, TimeUnit.SECONDS).build();
+    }
+
+    /**
+     * Periodically read all the users from LDAP again so the list returned by {@link #getUsers()} follows the directory changes.
+     */
+    @Scheduled(initialDelayString = "${ldap.cache.refreshIntervalMs:600000}", fixedDelayString = "${ldap.cache.refreshIntervalMs:600000}")
+    public void scheduledRefresh() {
+        try {
+            refreshUsers();
+        } catch (RuntimeException e) {
+            // keep the previous users, next refresh is still scheduled
+            log.error("Failed to refresh LDAP users", e);
+        }
+    }
+
     /**
      * Authenticate the user against ldap.
      * 
@@ -45,12 +100,89 @@ public class LdapUserDao {
     }
 
     /**
-     * Return all users from LDAP.
+     * Authenticate the user against ldap and read its entry using the authenticated connection.
+     * 
+     * @param userName the user name.
+     * @param password the user password.
+     * @return The user read from LDAP or null if the authentication failed.
+     */
+    public User authenticateAndGet(String userName, String password) {
+        final List<User> users = Lists.newArrayList();
+        boolean authenticated = ldapTemplate.authenticate("", userIdKey + "=" + userName, password, new AuthenticatedLdapEntryContextCallback() {
+            @Override
+            public void executeWithContext(DirContext ctx, LdapEntryIdentification ldapEntryIdentification) {
+                try {
+                    users.add(userLdapAttributeMapper.mapFromAttributes(ctx.getAttributes(ldapEntryIdentification.getRelativeName())));
+                } catch (NamingException e) {
+                    throw LdapUtils.convertLdapException(e);
+                }
+            }
+        });
+        return authenticated && !users.isEmpty() ? users.get(0) : null;
+    }
+
+    /**
+     * Return all users from LDAP. Users are read once and then refreshed on a schedule by {@link #refreshUsers()}.
      * 
      * @return The list of users in LDAP.
      */
     public List<User> getUsers() {
-        return ldapTemplate.search("", this.filter, userLdapAttributeMapper);
+        List<User> users = allUsers;
+        if (users == null) {
+            return refreshUsers();
+        }
+        return copy(users);
+    }
+
+    /**
+     * Read all users from LDAP page by page and replace the cached user list. Users cached per id are left to expire on their own.
+     * 
+     * @return The list of users in LDAP.
+     */
+    public List<User> refreshUsers() {
+        final List<User> users = Lists.newArrayList();
+        getUsers(pageSize, new IUserPageCallback() {
+            @Override
+            public void onPage(List<User> page) {
+                users.addAll(page);
+            }
+        });
+        allUsers = Collections.unmodifiableList(users);
+        return copy(users);
+    }
+
+    /**
+     * Read all users from LDAP page by page using the LDAP paged results control, so the whole directory is never loaded in memory at once.
+     * 
+     * @param pageSize The maximum number of users in a page.
+     * @param callback The callback that processes every page of users.
+     */
+    public void getUsers(int pageSize, final IUserPageCallback callback) {
+        final PagedResultsDirContextProcessor processor = new PagedResultsDirContextProcessor(pageSize);
+        final SearchControls searchControls = new SearchControls();
+        searchControls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        // the paged results cookie is valid only on the connection that started the search
+        SingleContextSource.doWithSingleContext(ldapTemplate.getContextSource(), new LdapOperationsCallback<Void>() {
+            @Override
+            public Void doWithLdapOperations(LdapOperations operations) {
+                do {
+                    callback.onPage(operations.search("", filter, searchControls, userLdapAttributeMapper, processor));
+                } while (processor.hasMore());
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Callback to process the pages of users read from LDAP.
+     */
+    public interface IUserPageCallback {
+        /**
+         * Process a page of users.
+         * 
+         * @param users The users of the page.
+         */
+        void onPage(List<User> users);
     }
 
     /**
@@ -59,13 +191,42 @@ public class LdapUserDao {
      * @param id The username / id of the user.
      * @return The user found in LDAP matching this username/id.
      */
-    public User getById(String id) {
-        String idFilter = "(" + userIdKey + "=" + id + ")";
-        List<User> users = ldapTemplate.search("", idFilter, userLdapAttributeMapper);
+    public User getById(final String id) {
+        Optional<User> user;
+        try {
+            user = usersCache.get(id, new Callable<Optional<User>>() {
+                @Override
+                public Optional<User> call() {
+                    String idFilter = "(" + userIdKey + "=" + id + ")";
+                    List<User> users = ldapTemplate.search("", idFilter, userLdapAttributeMapper);
+                    return users == null || users.isEmpty() ? Optional.<User> absent() : Optional.of(users.get(0));
+                }
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+        return user.isPresent() ? copy(user.get()) : null;
+    }
 
-        if (users == null || users.size() == 0) {
-            return null;
+    private List<User> copy(List<User> users) {
+        List<User> copies = Lists.newArrayListWithCapacity(users.size());
+        for (User user : users) {
+            copies.add(copy(user));
         }
-        return users.get(0);
+        return copies;
+    }
+
+    /**
+     * Copy a cached user so callers can update it (alien roles...) without changing the cache.
+     */
+    private User copy(User user) {
+        User copy = new User();
+        copy.setUsername(user.getUsername());
+        copy.setFirstName(user.getFirstName());
+        copy.setLastName(user.getLastName());
+        copy.setEmail(user.getEmail());
+        copy.setAccountNonExpired(user.isAccountNonExpired());
+        copy.setRoles(user.getRoles() == null ? null : user.getRoles().clone());
+        return copy;
     }
 }
@@ -0,0 +1,40 @@
+package alien4cloud.ldap;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+
+/**
+ * Progress of the synchronization of LDAP users into alien's user store.
+ */
+@Getter
+public class LdapUserSyncStatus {
+    /** True while a synchronization is running. */
+    private volatile boolean running;
+    /** Start and end dates of the last synchronization, end date is 0 while running. */
+    private volatile long startDate;
+    private volatile long endDate;
+    /** Error message of the last synchronization if it failed. */
+    private volatile String error;
+    private final AtomicInteger pages = new AtomicInteger();
+    private final AtomicInteger processedUsers = new AtomicInteger();
+    private final AtomicInteger createdUsers = new AtomicInteger();
+    private final AtomicInteger updatedUsers = new AtomicInteger();
+
+    void start() {
+        pages.set(0);
+        processedUsers.set(0);
+        createdUsers.set(0);
+        updatedUsers.set(0);
+        error = null;
+        endDate = 0;
+        startDate = System.currentTimeMillis();
+        running = true;
+    }
+
+    void end(String error) {
+        this.error = error;
+        endDate = System.currentTimeMillis();
+        running = false;
+    }
+}
@@ -1,9 +1,10 @@
 package alien4cloud.security;
 
-import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
 import org.elasticsearch.index.query.FilterBuilder;
@@ -11,11 +12,12 @@ import org.elasticsearch.index.query.FilterBuilders;
 import org.springframework.stereotype.Service;
 
 import alien4cloud.dao.IGenericSearchDAO;
-import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.dao.IScrollCallback;
 import alien4cloud.exception.NotFoundException;
 import alien4cloud.security.ISecuredResource;
 import alien4cloud.utils.TypeScanner;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -29,9 +31,27 @@ import com.google.common.collect.Sets;
 @Service
 public class ResourceRoleService {
 
+    /** Maximum number of resources per shard to update in a single bulk request when deleting the roles of a user or group. */
+    private static final int DELETE_ROLES_BATCH_SIZE = 100;
+
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
 
+    /** Classes implementing {@link ISecuredResource} and their indices. */
+    private Class<?>[] securedResourceClasses;
+    private String[] securedResourceIndices;
+
+    @PostConstruct
+    public void init() throws ClassNotFoundException {
+        Set<Class<?>> classes = TypeScanner.scanTypes("alien4cloud.model", ISecuredResource.class);
+        Set<String> indices = Sets.newHashSet();
+        for (Class<?> clazz : classes) {
+            indices.add(alienDAO.getIndexForType(clazz));
+        }
+        securedResourceClasses = classes.toArray(new Class<?>[classes.size()]);
+        securedResourceIndices = indices.toArray(new String[indices.size()]);
+    }
+
     /**
      * Add a role to a specific user on a secured resource
      *
@@ -190,15 +210,13 @@ public class ResourceRoleService {
      * Delete a groupRoles entry (groupId) in an ISecuredResource object
      *
      * @param groupId group id to remove in groupRoles
-     * @throws ClassNotFoundException
-     * @throws IOException
      */
-    public void deleteGroupRoles(String groupId) throws ClassNotFoundException, IOException {
+    public void deleteGroupRoles(String groupId) {
         FilterBuilder resourceFilter = FilterBuilders.nestedFilter("groupRoles", FilterBuilders.termFilter("groupRoles.key", groupId));
         deleteRoles(resourceFilter, groupId, new DeleteRoleVisitor() {
             @Override
-            public void deleteRoleOfOwner(Object[] securedResources, String owner) {
-                deleteRoleOfGroup(securedResources, owner);
+            public boolean deleteRoleOfOwner(ISecuredResource resource, String owner) {
+                return deleteRoleOfGroup(resource, owner);
             }
         });
     }
@@ -207,67 +225,62 @@ public class ResourceRoleService {
      * Delete a userRoles entry (userId) in an ISecuredResource object
      *
      * @param userId user id (username) to remove in userRoles
-     * @throws ClassNotFoundException
-     * @throws IOException
      */
-    public void deleteUserRoles(String userId) throws ClassNotFoundException, IOException {
+    public void deleteUserRoles(String userId) {
         FilterBuilder resourceFilter = FilterBuilders.nestedFilter("userRoles", FilterBuilders.termFilter("userRoles.key", userId));
         deleteRoles(resourceFilter, userId, new DeleteRoleVisitor() {
             @Override
-            public void deleteRoleOfOwner(Object[] securedResources, String owner) {
-                deleteRoleOfUser(securedResources, owner);
+            public boolean deleteRoleOfOwner(ISecuredResource resource, String owner) {
+                return deleteRoleOfUser(resource, owner);
             }
         });
     }
 
-    private void deleteRoles(FilterBuilder appFilter, String ownerId, DeleteRoleVisitor deleteRoleVisitor) throws IOException, ClassNotFoundException {
-        int from = 0;
-        long totalResult;
-
-        Set<String> indices = Sets.newHashSet();
-        Set<Class<?>> classes = TypeScanner.scanTypes("alien4cloud.model", ISecuredResource.class);
-
-        for (Class<?> clazz : classes) {
-            indices.add(alienDAO.getIndexForType(clazz));
-        }
-
-        do {
-            GetMultipleDataResult<Object> result = alienDAO.search(indices.toArray(new String[indices.size()]), classes.toArray(new Class<?>[classes.size()]),
-                    null, null, appFilter, null, from, 20);
-            deleteRoleVisitor.deleteRoleOfOwner(result.getData(), ownerId);
-            from += result.getData().length;
-            totalResult = result.getTotalResults();
-        } while (from < totalResult);
-    }
-
-    private void deleteRoleOfGroup(Object[] securedResources, String groupId) {
-        for (Object securedResource : securedResources) {
-            // Only remove in class implementing ISecuredResource
-            ISecuredResource resource = (ISecuredResource) securedResource;
-            if (resource.getGroupRoles().remove(groupId) != null) {
-                if (resource.getGroupRoles().isEmpty()) {
-                    resource.setGroupRoles(null);
+    private void deleteRoles(FilterBuilder appFilter, final String ownerId, final DeleteRoleVisitor deleteRoleVisitor) {
+        // resources are updated while iterating so we use a scroll rather than pages of a search that would shift as updated resources stop matching
+        alienDAO.scroll(securedResourceIndices, securedResourceClasses, appFilter, DELETE_ROLES_BATCH_SIZE, new IScrollCallback() {
+            @Override
+            public void onBatch(Object[] securedResources) {
+                List<ISecuredResource> updatedResources = Lists.newArrayList();
+                for (Object securedResource : securedResources) {
+                    // Only remove in class implementing ISecuredResource
+                    ISecuredResource resource = (ISecuredResource) securedResource;
+                    if (deleteRoleVisitor.deleteRoleOfOwner(resource, ownerId)) {
+                        updatedResources.add(resource);
+                    }
                 }
-                alienDAO.save(resource);
+                alienDAO.save(updatedResources.toArray(new ISecuredResource[updatedResources.size()]));
             }
+        });
+    }
+
+    private boolean deleteRoleOfGroup(ISecuredResource resource, String groupId) {
+        if (resource.getGroupRoles() == null || resource.getGroupRoles().remove(groupId) == null) {
+            return false;
+        }
+        if (resource.getGroupRoles().isEmpty()) {
+            resource.setGroupRoles(null);
         }
+        return true;
     }
 
-    private void deleteRoleOfUser(Object[] securedResources, String userId) {
-        for (Object securedResource : securedResources) {
-            // Only remove in class implementing ISecuredResource
-            ISecuredResource resource = (ISecuredResource) securedResource;
-            if (resource.getUserRoles().remove(userId) != null) {
-                if (resource.getUserRoles().isEmpty()) {
-                    resource.setUserRoles(null);
-                }
-                alienDAO.save(resource);
-            }
+    private boolean deleteRoleOfUser(ISecuredResource resource, String userId) {
+        if (resource.getUserRoles() == null || resource.getUserRoles().remove(userId) == null) {
+            return false;
+        }
+        if (resource.getUserRoles().isEmpty()) {
+            resource.setUserRoles(null);
         }
+        return true;
     }
 
     private static interface DeleteRoleVisitor {
 
-        void deleteRoleOfOwner(Object[] securedResources, String owner);
+        /**
+         * Remove the roles of an owner from a resource.
+         *
+         * @return True if the resource has been modified and must be saved.
+         */
+        boolean deleteRoleOfOwner(ISecuredResource resource, String owner);
     }
 }
@@ -22,7 +22,6 @@ import alien4cloud.security.model.User;
 import alien4cloud.security.users.UserService;
 import alien4cloud.utils.ReflectionUtil;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 @Slf4j
@@ -52,11 +51,8 @@ public class GroupService {
 
     public void deleteGroup(String groupId) {
         Group group = retrieveGroup(groupId);
-        if (CollectionUtils.isNotEmpty(group.getUsers())) {
-            for (String username : group.getUsers()) {
-                userService.removeGroupFromUser(username, group);
-            }
-        }
+        // users are updated before deleting the group so the deletion can be run again if the update is interrupted
+        userService.removeGroupFromUsers(group.getUsers(), group);
         alienGroupDao.delete(groupId);
     }
 
@@ -119,21 +115,14 @@ public class GroupService {
 
         List<User> usersList = null;
         if (CollectionUtils.isNotEmpty(users)) {
-            usersList = Lists.newArrayList();
-            Set<String> usersSet = Sets.newHashSet();
-            for (String username : users) {
-                usersList.add(userService.retrieveUser(username));
-                usersSet.add(username);
-            }
-            group.setUsers(usersSet);
+            usersList = userService.retrieveUsers(users);
+            group.setUsers(Sets.newHashSet(users));
         }
 
         alienGroupDao.save(group);
 
         if (CollectionUtils.isNotEmpty(usersList)) {
-            for (User user : usersList) {
-                userService.addGroupToUser(group, user);
-            }
+            userService.addGroupToUsers(group, usersList);
         }
 
         return group.getId();
@@ -149,11 +138,7 @@ public class GroupService {
         alienGroupDao.save(group);
 
         // update groupRoles in users objects
-        if (CollectionUtils.isNotEmpty(group.getUsers())) {
-            for (String username : group.getUsers()) {
-                userService.addGroupRoleToUser(username, role);
-            }
-        }
+        userService.addGroupRoleToUsers(group.getUsers(), role);
     }
 
     public Group retrieveGroup(String id) {
@@ -174,11 +159,7 @@ public class GroupService {
         alienGroupDao.save(group);
 
         // update groupRoles in users objects
-        if (CollectionUtils.isNotEmpty(group.getUsers())) {
-            for (String username : group.getUsers()) {
-                userService.updateUserGroupRoles(username);
-            }
-        }
+        userService.updateUsersGroupRoles(group.getUsers());
 
     }
 
@@ -1,6 +1,5 @@
 package alien4cloud.security.groups.rest;
 
-import java.io.IOException;
 import java.util.List;
 
 import javax.annotation.Resource;
@@ -105,14 +104,12 @@ public class GroupController {
      * @param groupId
      *            The unique id of the group to delete.
      * @return an empty (void) rest {@link RestResponse}.
-     * @throws IOException
-     * @throws ClassNotFoundException
      */
     @ApiOperation(value = "Delete an existing group from the repository.")
     @RequestMapping(value = "/{groupId}", method = RequestMethod.DELETE, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasAuthority('ADMIN')")
     @Audit
-    public RestResponse<Void> deleteGroup(@PathVariable String groupId) throws ClassNotFoundException, IOException {
+    public RestResponse<Void> deleteGroup(@PathVariable String groupId) {
         if (groupId == null || groupId.isEmpty()) {
             throw new InvalidArgumentException("Group with id <" + groupId + "> does not exist");
         }
@@ -43,6 +43,11 @@ public class ElasticSearchUserDao extends ESGenericSearchDAO implements IAlienUs
         super.save(user);
     }
 
+    @Override
+    public void save(User[] users) {
+        super.save(users);
+    }
+
     @Override
     public User find(String username) {
         return super.findById(User.class, username);
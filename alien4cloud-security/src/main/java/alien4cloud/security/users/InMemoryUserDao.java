@@ -24,6 +24,13 @@ public class InMemoryUserDao implements IAlienUserDao {
         userMap.put(user.getUsername(), user);
     }
 
+    @Override
+    public void save(User[] users) {
+        for (User user : users) {
+            userMap.put(user.getUsername(), user);
+        }
+    }
+
     @Override
     public User find(String username) {
         return userMap.get(username);
@@ -58,8 +65,14 @@ public class InMemoryUserDao implements IAlienUserDao {
 
     @Override
     public List<User> find(String... usernames) {
-        // TODO Auto-generated method stub
-        return null;
+        List<User> users = Lists.newArrayList();
+        for (String username : usernames) {
+            User user = userMap.get(username);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
     }
 
 }
\ No newline at end of file
@@ -2,8 +2,10 @@ package alien4cloud.security.users;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -25,10 +27,15 @@ import alien4cloud.security.model.Group;
 import alien4cloud.security.groups.IAlienGroupDao;
 import alien4cloud.utils.ReflectionUtil;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 @Component
 public class UserService {
+    /** Maximum number of users read and written at once when updating multiple users. */
+    private static final int USER_BATCH_SIZE = 500;
 
     @Resource
     private IAlienUserDao alienUserDao;
@@ -141,17 +148,9 @@ public class UserService {
      * @param user The user to process
      */
     public void addGroupToUser(Group group, User user) {
-        Set<String> groupSet = user.getGroups() == null ? new HashSet<String>() : user.getGroups();
-        groupSet.add(group.getId());
-        user.setGroups(groupSet);
-        if (CollectionUtils.isNotEmpty(group.getRoles())) {
-            Set<String> groupRolesSet = user.getGroupRoles() == null ? new HashSet<String>() : user.getGroupRoles();
-            groupRolesSet.addAll(group.getRoles());
-            user.setGroupRoles(groupRolesSet);
+        if (addGroup(user, group)) {
+            alienUserDao.save(user);
         }
-
-        alienUserDao.save(user);
-
     }
 
     /**
@@ -164,21 +163,6 @@ public class UserService {
         addGroupToUser(group, retrieveUser(username));
     }
 
-    /**
-     * Add a group role to a user
-     * 
-     * @param role The group role to add
-     * @param username The username of the user to process
-     */
-    public void addGroupRoleToUser(String username, String role) {
-        User user = retrieveUser(username);
-        Set<String> groupRolesSet = user.getGroupRoles() == null ? new HashSet<String>() : user.getGroupRoles();
-        groupRolesSet.add(Role.getStringFormatedRole(role));
-        user.setGroupRoles(groupRolesSet);
-
-        alienUserDao.save(user);
-    }
-
     public void saveUser(User user) {
         alienUserDao.save(user);
     }
@@ -190,61 +174,205 @@ public class UserService {
      * @param user the user for which to regenerate the group roles
      */
     public void updateUserGroupRoles(User user) {
-        if (CollectionUtils.isEmpty(user.getGroups())) {
-            user.setGroupRoles(null);
-        } else {
-            Set<String> groupRolesSet = Sets.newHashSet();
-            for (String groupId : user.getGroups()) {
-                Group group = alienGroupDao.find(groupId);
-                if (group == null) {
-                    throw new NotFoundException("Group [" + groupId + "] cannot be found");
-                }
-                if (CollectionUtils.isNotEmpty(group.getRoles())) {
-                    groupRolesSet.addAll(group.getRoles());
+        if (regenerateGroupRoles(user, Maps.<String, Group> newHashMap())) {
+            alienUserDao.save(user);
+        }
+    }
+
+    /**
+     * Remove a group from a user object
+     * 
+     * @param user the user to process
+     * @param group the group object to remove
+     */
+    public void removeGroupFromUser(User user, Group group) {
+        if (CollectionUtils.isEmpty(user.getGroups()) || !user.getGroups().remove(group.getId())) {
+            return;
+        }
+        if (CollectionUtils.isNotEmpty(group.getRoles())) {
+            regenerateGroupRoles(user, Maps.<String, Group> newHashMap());
+        }
+        alienUserDao.save(user);
+    }
+
+    /**
+     * Retrieve multiple users at once.
+     * 
+     * @param usernames The usernames of the users to retrieve.
+     * @return The users, in no particular order.
+     * @throws NotFoundException if one of the users cannot be found.
+     */
+    public List<User> retrieveUsers(Collection<String> usernames) {
+        Set<String> uniqueUsernames = Sets.newHashSet(usernames);
+        List<User> users = alienUserDao.find(uniqueUsernames.toArray(new String[uniqueUsernames.size()]));
+        if (users == null || users.size() != uniqueUsernames.size()) {
+            Set<String> missingUsernames = Sets.newHashSet(uniqueUsernames);
+            if (users != null) {
+                for (User user : users) {
+                    missingUsernames.remove(user.getUsername());
                 }
             }
-            user.setGroupRoles(groupRolesSet);
+            throw new NotFoundException("Users " + missingUsernames + " cannot be found");
         }
-        alienUserDao.save(user);
+        return users;
     }
 
     /**
+     * Add a group to multiple users, including all the group roles, and save them with a single request.
      * 
-     * Regenerate the group roles in the user.
+     * @param group The group to add.
+     * @param users The users to process.
+     */
+    public void addGroupToUsers(Group group, List<User> users) {
+        List<User> updatedUsers = Lists.newArrayList();
+        for (User user : users) {
+            if (addGroup(user, group)) {
+                updatedUsers.add(user);
+            }
+        }
+        saveUsers(updatedUsers);
+    }
+
+    /**
+     * Add a group role to multiple users. Users that already have the role are not saved so an interrupted update can safely be run again.
      * 
-     * @param username the username of the user for which to regenerate the group roles
+     * @param usernames The usernames of the users to process.
+     * @param role The group role to add.
      */
-    public void updateUserGroupRoles(String username) {
-        updateUserGroupRoles(retrieveUser(username));
+    public void addGroupRoleToUsers(Collection<String> usernames, String role) {
+        final String formattedRole = Role.getStringFormatedRole(role);
+        updateUsers(usernames, new IUserUpdate() {
+            @Override
+            public boolean apply(User user) {
+                Set<String> groupRolesSet = user.getGroupRoles() == null ? new HashSet<String>() : user.getGroupRoles();
+                user.setGroupRoles(groupRolesSet);
+                return groupRolesSet.add(formattedRole);
+            }
+        });
     }
 
     /**
-     * Remove a group from a user object
+     * Regenerate the group roles of multiple users. Only the users whose group roles changed are saved.
      * 
-     * @param username the username of the user to process
-     * @param group the group object to remove
+     * @param usernames The usernames of the users to process.
      */
-    public void removeGroupFromUser(String username, Group group) {
-        User user = retrieveUser(username);
-        removeGroupFromUser(user, group);
+    public void updateUsersGroupRoles(Collection<String> usernames) {
+        final Map<String, Group> groups = Maps.newHashMap();
+        updateUsers(usernames, new IUserUpdate() {
+            @Override
+            public boolean apply(User user) {
+                return regenerateGroupRoles(user, groups);
+            }
+        });
     }
 
     /**
-     * Remove a group from a user object
+     * Remove a group from multiple users. Users that are not in the group anymore are not saved so an interrupted update can safely be run again.
      * 
-     * @param user the user to process
-     * @param group the group object to remove
+     * @param usernames The usernames of the users to process.
+     * @param group The group to remove.
      */
-    public void removeGroupFromUser(User user, Group group) {
-        if (CollectionUtils.isEmpty(user.getGroups())) {
+    public void removeGroupFromUsers(Collection<String> usernames, final Group group) {
+        final Map<String, Group> groups = Maps.newHashMap();
+        updateUsers(usernames, new IUserUpdate() {
+            @Override
+            public boolean apply(User user) {
+                if (CollectionUtils.isEmpty(user.getGroups()) || !user.getGroups().remove(group.getId())) {
+                    return false;
+                }
+                regenerateGroupRoles(user, groups);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Read users by batches, apply an update in memory and write back the updated users of every batch with a single request.
+     * 
+     * @param usernames The usernames of the users to update, missing users are ignored.
+     * @param update The update to apply.
+     */
+    private void updateUsers(Collection<String> usernames, IUserUpdate update) {
+        if (CollectionUtils.isEmpty(usernames)) {
             return;
         }
-        user.getGroups().remove(group.getId());
+        for (List<String> batch : Iterables.partition(usernames, USER_BATCH_SIZE)) {
+            List<User> users = alienUserDao.find(batch.toArray(new String[batch.size()]));
+            if (users == null) {
+                continue;
+            }
+            List<User> updatedUsers = Lists.newArrayList();
+            for (User user : users) {
+                if (update.apply(user)) {
+                    updatedUsers.add(user);
+                }
+            }
+            saveUsers(updatedUsers);
+        }
+    }
+
+    private void saveUsers(List<User> users) {
+        if (!users.isEmpty()) {
+            alienUserDao.save(users.toArray(new User[users.size()]));
+        }
+    }
+
+    private boolean addGroup(User user, Group group) {
+        Set<String> groupSet = user.getGroups() == null ? new HashSet<String>() : user.getGroups();
+        boolean updated = groupSet.add(group.getId());
+        user.setGroups(groupSet);
         if (CollectionUtils.isNotEmpty(group.getRoles())) {
-            updateUserGroupRoles(user);
-        } else {
-            alienUserDao.save(user);
+            Set<String> groupRolesSet = user.getGroupRoles() == null ? new HashSet<String>() : user.getGroupRoles();
+            updated = groupRolesSet.addAll(group.getRoles()) || updated;
+            user.setGroupRoles(groupRolesSet);
         }
+        return updated;
+    }
+
+    /**
+     * Regenerate the group roles of a user from its groups.
+     * 
+     * @param user The user to process.
+     * @param groups Groups already read, shared between the users of a same update.
+     * @return True if the group roles of the user changed.
+     */
+    private boolean regenerateGroupRoles(User user, Map<String, Group> groups) {
+        Set<String> groupRolesSet = null;
+        if (CollectionUtils.isNotEmpty(user.getGroups())) {
+            groupRolesSet = Sets.newHashSet();
+            for (String groupId : user.getGroups()) {
+                Group group = groups.get(groupId);
+                if (group == null) {
+                    group = alienGroupDao.find(groupId);
+                    if (group == null) {
+                        throw new NotFoundException("Group [" + groupId + "] cannot be found");
+                    }
+                    groups.put(groupId, group);
+                }
+                if (CollectionUtils.isNotEmpty(group.getRoles())) {
+                    groupRolesSet.addAll(group.getRoles());
+                }
+            }
+        }
+        Set<String> previousGroupRoles = user.getGroupRoles();
+        user.setGroupRoles(groupRolesSet);
+        if (previousGroupRoles == null) {
+            return groupRolesSet != null;
+        }
+        return !previousGroupRoles.equals(groupRolesSet);
+    }
+
+    /**
+     * Change applied in memory to a user, implementations must be idempotent.
+     */
+    private interface IUserUpdate {
+        /**
+         * Apply the change to a user.
+         * 
+         * @param user The user to update.
+         * @return True if the user has been modified and must be saved.
+         */
+        boolean apply(User user);
     }
 
     public boolean isAdmin(String username) {
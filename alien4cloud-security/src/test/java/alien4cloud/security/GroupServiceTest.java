@@ -0,0 +1,102 @@
+package alien4cloud.security;
+
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.security.groups.GroupService;
+import alien4cloud.security.groups.IAlienGroupDao;
+import alien4cloud.security.model.Group;
+import alien4cloud.security.model.Role;
+import alien4cloud.security.model.User;
+import alien4cloud.security.users.InMemoryUserDao;
+import alien4cloud.security.users.UserService;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class GroupServiceTest {
+    private static final int USER_COUNT = 1200;
+    private static final String GROUP_ID = "group";
+
+    private InMemoryUserDao alienUserDao;
+    private IAlienGroupDao alienGroupDao;
+    private UserService userService;
+    private GroupService groupService;
+    private Group group;
+
+    @Before
+    public void before() {
+        alienUserDao = Mockito.spy(new InMemoryUserDao());
+        alienGroupDao = Mockito.mock(IAlienGroupDao.class);
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "alienUserDao", alienUserDao);
+        ReflectionTestUtils.setField(userService, "alienGroupDao", alienGroupDao);
+        groupService = new GroupService();
+        ReflectionTestUtils.setField(groupService, "alienGroupDao", alienGroupDao);
+        ReflectionTestUtils.setField(groupService, "userService", userService);
+
+        group = new Group("group");
+        group.setId(GROUP_ID);
+        Set<String> usernames = Sets.newHashSet();
+        for (int i = 0; i < USER_COUNT; i++) {
+            User user = new User();
+            user.setUsername("user_" + i);
+            user.setGroups(Sets.newHashSet(GROUP_ID));
+            alienUserDao.save(user);
+            usernames.add(user.getUsername());
+        }
+        group.setUsers(usernames);
+        Mockito.when(alienGroupDao.find(GROUP_ID)).thenReturn(group);
+        Mockito.reset(alienUserDao);
+    }
+
+    private void assertGroupRoles(Set<String> expectedGroupRoles) {
+        for (int i = 0; i < USER_COUNT; i++) {
+            Assert.assertEquals(expectedGroupRoles, alienUserDao.find("user_" + i).getGroupRoles());
+        }
+    }
+
+    @Test
+    public void groupRolesShouldBePropagatedInBatches() {
+        groupService.addRoleToGroup(GROUP_ID, Role.ARCHITECT.toString());
+
+        // users are read and written by batches of 500
+        Mockito.verify(alienUserDao, Mockito.times(3)).find(Matchers.<String[]> anyVararg());
+        Mockito.verify(alienUserDao, Mockito.times(3)).save(Matchers.any(User[].class));
+        Mockito.verify(alienUserDao, Mockito.never()).find(Matchers.anyString());
+        Mockito.verify(alienUserDao, Mockito.never()).save(Matchers.any(User.class));
+        assertGroupRoles(Sets.newHashSet(Role.ARCHITECT.toString()));
+
+        // propagating the same role again doesn't write anything
+        Mockito.reset(alienUserDao);
+        groupService.addRoleToGroup(GROUP_ID, Role.ARCHITECT.toString());
+        Mockito.verify(alienUserDao, Mockito.never()).save(Matchers.any(User[].class));
+
+        groupService.removeRoleFromGroup(GROUP_ID, Role.ARCHITECT.toString());
+        Mockito.verify(alienUserDao, Mockito.times(3)).save(Matchers.any(User[].class));
+        assertGroupRoles(Sets.<String> newHashSet());
+    }
+
+    @Test
+    public void deletedGroupShouldBeRemovedFromUsers() {
+        groupService.deleteGroup(GROUP_ID);
+
+        Mockito.verify(alienUserDao, Mockito.times(3)).save(Matchers.any(User[].class));
+        Mockito.verify(alienUserDao, Mockito.never()).save(Matchers.any(User.class));
+        Mockito.verify(alienGroupDao).delete(GROUP_ID);
+        for (int i = 0; i < USER_COUNT; i++) {
+            Assert.assertTrue(alienUserDao.find("user_" + i).getGroups().isEmpty());
+        }
+    }
+
+    @Test
+    public void duplicatedUsernamesShouldBeRetrievedOnce() {
+        Assert.assertEquals(2, userService.retrieveUsers(Lists.newArrayList("user_1", "user_2", "user_1")).size());
+    }
+}
@@ -0,0 +1,91 @@
+package alien4cloud.security;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.ldap.LdapAuthenticationProvider;
+import alien4cloud.ldap.LdapUserDao;
+import alien4cloud.security.model.Role;
+import alien4cloud.security.model.User;
+import alien4cloud.security.users.IAlienUserDao;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LdapRoleRefreshTest {
+    private static final String LOGIN = "user";
+    private static final String PASSWORD = "password";
+
+    @Mock
+    private LdapUserDao ldapUserDao;
+    @Mock
+    private IAlienUserDao alienUserDao;
+    @InjectMocks
+    private LdapAuthenticationProvider ldapAuthenticationProvider;
+
+    private User alienUser;
+
+    private static User user(String... roles) {
+        User user = new User();
+        user.setUsername(LOGIN);
+        user.setRoles(roles);
+        return user;
+    }
+
+    @Before
+    public void before() {
+        ReflectionTestUtils.setField(ldapAuthenticationProvider, "defaultRoles", new String[] { Role.COMPONENTS_BROWSER.toString() });
+        ReflectionTestUtils.setField(ldapAuthenticationProvider, "roleMappings", new String[] { "ROLE_ADMINS=ADMIN",
+                "ROLE_ARCHITECTS=ARCHITECT" });
+        ReflectionTestUtils.setField(ldapAuthenticationProvider, "roleCacheTtlSeconds", 60);
+        // no context source, users are not imported
+        Mockito.when(ldapUserDao.getLdapTemplate()).thenReturn(Mockito.mock(LdapTemplate.class));
+        ldapAuthenticationProvider.init();
+
+        alienUser = user(Role.ARCHITECT.toString(), Role.ADMIN.toString());
+        Mockito.when(alienUserDao.find(LOGIN)).thenReturn(alienUser);
+    }
+
+    private void login() {
+        ldapAuthenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, PASSWORD));
+    }
+
+    @Test
+    public void unchangedRolesShouldNotBeSaved() {
+        Mockito.when(ldapUserDao.authenticateAndGet(LOGIN, PASSWORD)).thenReturn(user("ROLE_ADMINS", "ROLE_ARCHITECTS"));
+        Mockito.when(ldapUserDao.authenticate(LOGIN, PASSWORD)).thenReturn(true);
+
+        login();
+        login();
+
+        // ldap roles are read with the first authentication only and the user is never saved
+        Mockito.verify(ldapUserDao, Mockito.times(1)).authenticateAndGet(LOGIN, PASSWORD);
+        Mockito.verify(ldapUserDao, Mockito.times(1)).authenticate(LOGIN, PASSWORD);
+        Mockito.verify(ldapUserDao, Mockito.never()).getById(Matchers.anyString());
+        Mockito.verify(alienUserDao, Mockito.never()).save(Matchers.any(User.class));
+    }
+
+    @Test
+    public void changedRolesShouldBeSaved() {
+        Mockito.when(ldapUserDao.authenticateAndGet(LOGIN, PASSWORD)).thenReturn(user("ROLE_ARCHITECTS"));
+
+        login();
+
+        Mockito.verify(alienUserDao, Mockito.times(1)).save(alienUser);
+        Assert.assertArrayEquals(new String[] { Role.ARCHITECT.toString() }, alienUser.getRoles());
+    }
+
+    @Test(expected = BadCredentialsException.class)
+    public void wrongPasswordShouldFail() {
+        login();
+    }
+}
@@ -0,0 +1,145 @@
+package alien4cloud.security;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.ldap.LdapUserDao;
+import alien4cloud.ldap.UserLdapAttributeMapper;
+import alien4cloud.security.model.Role;
+import alien4cloud.security.model.User;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSearchRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import com.unboundid.ldap.sdk.LDAPException;
+
+/**
+ * Check the number of searches the ldap user dao sends to an embedded LDAP server.
+ */
+public class LdapUserCacheTest {
+    private static final String BASE_DN = "dc=alien4cloud,dc=org";
+    private static final String PEOPLE_DN = "ou=People," + BASE_DN;
+    private static final int USER_COUNT = 20;
+    private static final int PAGE_SIZE = 8;
+
+    private final AtomicInteger searchCount = new AtomicInteger();
+    private InMemoryDirectoryServer server;
+    private LdapUserDao ldapUserDao;
+
+    private void addUser(String uid) throws LDAPException {
+        server.add("dn: uid=" + uid + "," + PEOPLE_DN, "objectClass: person", "objectClass: inetOrgPerson", "uid: " + uid, "givenName: first_" + uid,
+                "sn: last_" + uid, "cn: " + uid, "mail: " + uid + "@alien4cloud.org");
+    }
+
+    @Before
+    public void before() throws Exception {
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+        config.setSchema(null);
+        config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("default", 0));
+        config.addInMemoryOperationInterceptor(new InMemoryOperationInterceptor() {
+            @Override
+            public void processSearchRequest(InMemoryInterceptedSearchRequest request) throws LDAPException {
+                searchCount.incrementAndGet();
+            }
+        });
+        server = new InMemoryDirectoryServer(config);
+        server.add("dn: " + BASE_DN, "objectClass: domain", "dc: alien4cloud");
+        server.add("dn: " + PEOPLE_DN, "objectClass: organizationalUnit", "ou: People");
+        for (int i = 0; i < USER_COUNT; i++) {
+            addUser("user_" + i);
+        }
+        server.startListening();
+
+        LdapContextSource contextSource = new LdapContextSource();
+        contextSource.setUrl("ldap://localhost:" + server.getListenPort());
+        contextSource.setBase(PEOPLE_DN);
+        contextSource.setAnonymousReadOnly(true);
+        contextSource.afterPropertiesSet();
+
+        UserLdapAttributeMapper attributeMapper = new UserLdapAttributeMapper();
+        ReflectionTestUtils.setField(attributeMapper, "userIdKey", "uid");
+        ReflectionTestUtils.setField(attributeMapper, "userFirstNameKey", "givenName");
+        ReflectionTestUtils.setField(attributeMapper, "userLastNameKey", "sn");
+        ReflectionTestUtils.setField(attributeMapper, "userEmailKey", "mail");
+        ReflectionTestUtils.setField(attributeMapper, "userActiveKey", "");
+        ReflectionTestUtils.setField(attributeMapper, "userActiveValue", "");
+        ReflectionTestUtils.setField(attributeMapper, "userRolesKey", "");
+
+        ldapUserDao = new LdapUserDao();
+        ldapUserDao.setLdapTemplate(new LdapTemplate(contextSource));
+        ldapUserDao.setUserLdapAttributeMapper(attributeMapper);
+        ldapUserDao.setFilter("(objectClass=person)");
+        ldapUserDao.setUserIdKey("uid");
+        ldapUserDao.setCacheMaxSize(100);
+        ldapUserDao.setCacheTtlSeconds(60);
+        ldapUserDao.setPageSize(PAGE_SIZE);
+        // the refresh is scheduled by spring only, tests trigger it explicitly
+        ldapUserDao.init();
+        searchCount.set(0);
+    }
+
+    @After
+    public void after() {
+        server.shutDown(true);
+    }
+
+    @Test
+    public void userShouldBeSearchedOnce() {
+        for (int i = 0; i < 10; i++) {
+            User user = ldapUserDao.getById("user_1");
+            Assert.assertEquals("user_1", user.getUsername());
+            Assert.assertEquals("first_user_1", user.getFirstName());
+            Assert.assertEquals("user_1@alien4cloud.org", user.getEmail());
+        }
+        Assert.assertEquals(1, searchCount.get());
+
+        // unknown users are cached too
+        Assert.assertNull(ldapUserDao.getById("unknown"));
+        Assert.assertNull(ldapUserDao.getById("unknown"));
+        Assert.assertEquals(2, searchCount.get());
+    }
+
+    @Test
+    public void usersShouldBeReadOncePageByPage() {
+        Assert.assertEquals(USER_COUNT, ldapUserDao.getUsers().size());
+        Assert.assertEquals(USER_COUNT, ldapUserDao.getUsers().size());
+        // 20 users by pages of 8
+        Assert.assertEquals(3, searchCount.get());
+    }
+
+    @Test
+    public void refreshShouldReadNewUsers() throws LDAPException {
+        Assert.assertEquals(USER_COUNT, ldapUserDao.getUsers().size());
+        addUser("new_user");
+        Assert.assertEquals(USER_COUNT, ldapUserDao.getUsers().size());
+
+        ldapUserDao.refreshUsers();
+        Assert.assertEquals(USER_COUNT + 1, ldapUserDao.getUsers().size());
+        Assert.assertNotNull(ldapUserDao.getById("new_user"));
+        // two full reads of 3 pages and the search of the new user
+        Assert.assertEquals(7, searchCount.get());
+    }
+
+    @Test
+    public void cachedUsersShouldNotBeUpdatedByCallers() {
+        User user = ldapUserDao.getById("user_1");
+        user.setRoles(new String[] { Role.ADMIN.toString() });
+        user.setEmail("updated@alien4cloud.org");
+        List<User> users = ldapUserDao.getUsers();
+        users.get(0).setFirstName("updated");
+
+        Assert.assertNull(ldapUserDao.getById("user_1").getRoles());
+        Assert.assertEquals("user_1@alien4cloud.org", ldapUserDao.getById("user_1").getEmail());
+        Assert.assertFalse("updated".equals(ldapUserDao.getUsers().get(0).getFirstName()));
+    }
+}
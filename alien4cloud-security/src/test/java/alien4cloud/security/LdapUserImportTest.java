@@ -0,0 +1,95 @@
+package alien4cloud.security;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.ldap.LdapAuthenticationProvider;
+import alien4cloud.ldap.LdapUserDao;
+import alien4cloud.security.model.Role;
+import alien4cloud.security.model.User;
+import alien4cloud.security.users.IAlienUserDao;
+
+import com.google.common.collect.Lists;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LdapUserImportTest {
+    private static final int PAGE_SIZE = 10;
+
+    @Mock
+    private LdapUserDao ldapUserDao;
+    @Mock
+    private IAlienUserDao alienUserDao;
+    @InjectMocks
+    private LdapAuthenticationProvider ldapAuthenticationProvider;
+
+    private static User user(String username, String... roles) {
+        User user = new User();
+        user.setUsername(username);
+        user.setRoles(roles.length == 0 ? null : roles);
+        return user;
+    }
+
+    @Before
+    public void before() {
+        ReflectionTestUtils.setField(ldapAuthenticationProvider, "defaultRoles", new String[] { Role.COMPONENTS_BROWSER.toString() });
+        ReflectionTestUtils.setField(ldapAuthenticationProvider, "syncPageSize", PAGE_SIZE);
+        // two pages of ldap users
+        final List<User> firstPage = Lists.newArrayList();
+        final List<User> secondPage = Lists.newArrayList();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            firstPage.add(user("user_" + i));
+            secondPage.add(user("user_" + (PAGE_SIZE + i)));
+        }
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                LdapUserDao.IUserPageCallback callback = (LdapUserDao.IUserPageCallback) invocation.getArguments()[1];
+                callback.onPage(firstPage);
+                callback.onPage(secondPage);
+                return null;
+            }
+        }).when(ldapUserDao).getUsers(Matchers.eq(PAGE_SIZE), Matchers.any(LdapUserDao.IUserPageCallback.class));
+    }
+
+    @Test
+    public void onlyNewUsersShouldBeSavedInBulk() {
+        // the first page is already imported
+        List<User> existingUsers = Lists.newArrayList();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            existingUsers.add(user("user_" + i, Role.COMPONENTS_BROWSER.toString()));
+        }
+        Mockito.when(alienUserDao.find(Matchers.<String[]> anyVararg())).thenReturn(existingUsers, Lists.<User> newArrayList());
+
+        ldapAuthenticationProvider.importLdapUsers();
+
+        ArgumentCaptor<User[]> savedUsers = ArgumentCaptor.forClass(User[].class);
+        // unchanged users of the first page are not saved, new users of the second page are saved with a single request
+        Mockito.verify(alienUserDao, Mockito.times(1)).save(savedUsers.capture());
+        Mockito.verify(alienUserDao, Mockito.never()).save(Matchers.any(User.class));
+        Mockito.verify(alienUserDao, Mockito.never()).find(Matchers.anyString());
+        Assert.assertEquals(PAGE_SIZE, savedUsers.getValue().length);
+        for (User user : savedUsers.getValue()) {
+            Assert.assertArrayEquals(new String[] { Role.COMPONENTS_BROWSER.toString() }, user.getRoles());
+        }
+
+        Assert.assertFalse(ldapAuthenticationProvider.getSyncStatus().isRunning());
+        Assert.assertNull(ldapAuthenticationProvider.getSyncStatus().getError());
+        Assert.assertEquals(2, ldapAuthenticationProvider.getSyncStatus().getPages().get());
+        Assert.assertEquals(2 * PAGE_SIZE, ldapAuthenticationProvider.getSyncStatus().getProcessedUsers().get());
+        Assert.assertEquals(PAGE_SIZE, ldapAuthenticationProvider.getSyncStatus().getCreatedUsers().get());
+        Assert.assertEquals(0, ldapAuthenticationProvider.getSyncStatus().getUpdatedUsers().get());
+    }
+}
@@ -89,6 +89,12 @@ public class CheckElementExistService implements ICSARRepositorySearchService, I
         throw new NotImplementedException("This method is not used in the compilation tool.");
     }
 
+    @Override
+    public <T extends IndexedToscaElement> Map<String, T> getElementsInDependencies(Class<T> elementClass, Collection<String> elementIds,
+            Collection<CSARDependency> dependencies) {
+        throw new NotImplementedException("This method is not used in the compilation tool.");
+    }
+
     @Override
     public <T extends IndexedToscaElement> T getParentOfElement(Class<T> elementClass, T indexedToscaElement, String parentElementId) {
         throw new NotImplementedException("This method is not used in the compilation tool.");